@@ -969,8 +969,9 @@ public class MainApp extends Application {
     }
 
     private void handlePlayerAction(network.NetworkMessage message) {
-        // Only log non-ammunition requests to reduce noise
-        if (message.getData() != null && !message.getData().toString().contains("AMMUNITION_REQUEST")) {
+        // Only log non-ammunition requests to reduce noise; lockstep inputs arrive every turn
+        if (message.getData() != null && !(message.getData() instanceof multiplayer.LockstepInput)
+                && !message.getData().toString().contains("AMMUNITION_REQUEST")) {
             System.out.println("Player action received: " + message.getData());
         }
         // Handle opponent's actions
@@ -1085,18 +1086,8 @@ public class MainApp extends Application {
             if (networkData instanceof model.GameLevel) {
                 opponentNetwork = (model.GameLevel) networkData;
                 System.out.println("✅ MAINAPP: Received GameLevel directly");
-            } else if (networkData instanceof java.util.Map) {
-                // Convert LinkedHashMap back to GameLevel using Jackson
-                try {
-                    com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                    opponentNetwork = mapper.convertValue(networkData, model.GameLevel.class);
-                    System.out.println("✅ MAINAPP: Converted LinkedHashMap to GameLevel");
-                } catch (Exception e) {
-                    System.err.println("❌ MAINAPP: Failed to convert LinkedHashMap to GameLevel: " + e.getMessage());
-                    return;
-                }
             } else {
-                System.out.println("❌ MAINAPP: Network data is not GameLevel or Map: " +
+                System.out.println("❌ MAINAPP: Network data is not a GameLevel: " +
                         (networkData != null ? networkData.getClass().getSimpleName() : "null"));
                 return;
             }
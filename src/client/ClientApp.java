@@ -417,18 +417,8 @@ public class ClientApp extends Application {
             if (message.getData() instanceof model.GameLevel) {
                 networkData = (model.GameLevel) message.getData();
                 System.out.println("✅ CLIENT: Received GameLevel directly");
-            } else if (message.getData() instanceof java.util.Map) {
-                // Convert LinkedHashMap back to GameLevel using Jackson
-                try {
-                    com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                    networkData = mapper.convertValue(message.getData(), model.GameLevel.class);
-                    System.out.println("✅ CLIENT: Converted LinkedHashMap to GameLevel");
-                } catch (Exception e) {
-                    System.err.println("❌ CLIENT: Failed to convert LinkedHashMap to GameLevel: " + e.getMessage());
-                    return;
-                }
             } else {
-                System.out.println("❌ CLIENT: Network data is not GameLevel or Map: " +
+                System.out.println("❌ CLIENT: Network data is not a GameLevel: " +
                         (message.getData() != null ? message.getData().getClass().getSimpleName() : "null"));
                 return;
             }
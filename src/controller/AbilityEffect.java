@@ -69,7 +69,7 @@ class AergiaEffect extends AbilityEffect {
                     packet.setBaseSpeed(Math.max(20.0, packet.getBaseSpeed() * 0.1)); // Very slow but not stopped
 
                     // Apply visual effect
-                    java.lang.System.out.println("Aergia effect applied to packet " + packet.getId() +
+                    java.lang.System.out.println("Aergia effect applied to packet " + packet.getSerial() +
                             " - acceleration set to zero");
                 }
             }
@@ -169,7 +169,7 @@ class EliphasEffect extends AbilityEffect {
             );
             packet.setCurrentPosition(correctedPos);
 
-            java.lang.System.out.println("Eliphas effect: realigning packet " + packet.getId() +
+            java.lang.System.out.println("Eliphas effect: realigning packet " + packet.getSerial() +
                     " center (offset: " + offset.magnitude() + ")");
         }
     }
@@ -10,65 +10,181 @@ public class CollisionController {
 
     private GameController gameController;
     private static final int GRID_SIZE = 50; // Size of each grid cell
-    private Map<String, List<Packet>> spatialGrid;
-    private Map<String, Double> collisionCooldowns; // Track collision cooldowns
+    private SpatialGrid spatialGrid;
+    private final PacketStore packetStore; // Positions, sizes and wires of the packets, copied at the start of each check
+    private final Vec2D shockwaveScratch = new Vec2D(); // Resolution is sequential, so one is enough
+    private Map<Long, Double> collisionCooldowns; // Track collision cooldowns by packet pair
     private static final double COLLISION_COOLDOWN = 1.0; // 1 second cooldown
 
+    // Wire pairs whose paths come close enough for their packets to ever collide
+    private Map<WireConnection, Integer> wireIndices;
+    private List<BitSet> interactingWires;
+    private long wireLayoutSignature;
+    private double wireInteractionMargin;
+    private boolean wireInteractionsValid;
+
+    // Parallel narrow-phase for very large packet counts
+    private static final int PARALLEL_PACKET_THRESHOLD = 2000;
+    private static final int TILE_CELLS = 4; // Tile edge length in grid cells
+    private boolean parallelCollisionsEnabled;
+
     public CollisionController() {
-        this.spatialGrid = new HashMap<>();
+        this.spatialGrid = new SpatialGrid(GRID_SIZE);
+        this.packetStore = new PacketStore();
         this.collisionCooldowns = new HashMap<>();
+        this.wireIndices = new IdentityHashMap<>();
+        this.interactingWires = new ArrayList<>();
+        this.wireInteractionsValid = false;
+        this.parallelCollisionsEnabled = true;
     }
 
     public CollisionController(GameController gameController) {
+        this();
         this.gameController = gameController;
-        this.spatialGrid = new HashMap<>();
-        this.collisionCooldowns = new HashMap<>();
     }
 
     public void setGameController(GameController gameController) {
         this.gameController = gameController;
+        invalidateWireInteractions();
     }
 
-    private void updateSpatialGrid(List<Packet> packets) {
-        spatialGrid.clear();
+    public void invalidateWireInteractions() {
+        wireInteractionsValid = false;
+    }
 
-        for (Packet packet : packets) {
-            if (packet.isActive()) {
-                String gridKey = getGridKey(packet.getCurrentPosition());
-                spatialGrid.computeIfAbsent(gridKey, k -> new ArrayList<>()).add(packet);
+    private int getLargestPacketSize() {
+        // Sizes change at runtime (protected packets double theirs), so take them from the packets
+        int largest = 1;
+        for (int id = 0; id < packetStore.size(); id++) {
+            largest = Math.max(largest, packetStore.getSize(id));
+        }
+        return largest;
+    }
+
+    private double getOffWireLossThreshold() {
+        double threshold = WireConnection.DEFAULT_OFF_WIRE_LOSS_THRESHOLD;
+        if (gameController != null && gameController.getGameState() != null) {
+            Object setting = gameController.getGameState().getGameSettings().get("offWireLossThreshold");
+            if (setting instanceof Number) {
+                threshold = Math.max(threshold, ((Number) setting).doubleValue());
             }
         }
+        return threshold;
     }
 
-    private String getGridKey(Point2D position) {
-        int gridX = (int) (position.getX() / GRID_SIZE);
-        int gridY = (int) (position.getY() / GRID_SIZE);
-        return gridX + "," + gridY;
+    private double getWireInteractionMargin() {
+        // A live packet is at most the loss threshold off its wire, plus one separation push
+        // of up to 1.5 times its size; it then reaches its own size further to touch another
+        return getOffWireLossThreshold() + 2.5 * getLargestPacketSize() + 1.0;
     }
 
-    private List<Packet> getNeighboringPackets(Point2D position) {
-        List<Packet> neighboringPackets = new ArrayList<>();
-        String centerKey = getGridKey(position);
+    private void refreshWireInteractions(List<Packet> packets) {
+        boolean useSmoothCurves = isSmoothWires();
+        List<WireConnection> wires = getWiresForInteraction(packets);
+        long signature = computeWireLayoutSignature(wires, useSmoothCurves);
+        double margin = getWireInteractionMargin();
+
+        // A table built with a wider margin is still conservative
+        if (wireInteractionsValid && signature == wireLayoutSignature && margin <= wireInteractionMargin) {
+            return;
+        }
+
+        wireIndices.clear();
+        interactingWires.clear();
+
+        List<java.awt.geom.Rectangle2D> bounds = new ArrayList<>();
+        for (WireConnection wire : wires) {
+            wireIndices.put(wire, bounds.size());
+            interactingWires.add(new BitSet());
+            java.awt.geom.Rectangle2D pathBounds = wire.getPathBounds(useSmoothCurves);
+            bounds.add(new java.awt.geom.Rectangle2D.Double(
+                    pathBounds.getX() - margin,
+                    pathBounds.getY() - margin,
+                    pathBounds.getWidth() + 2 * margin,
+                    pathBounds.getHeight() + 2 * margin
+            ));
+        }
 
-        // Get center cell and 8 neighboring cells
-        for (int dx = -1; dx <= 1; dx++) {
-            for (int dy = -1; dy <= 1; dy++) {
-                String key = getNeighborKey(centerKey, dx, dy);
-                List<Packet> cellPackets = spatialGrid.get(key);
-                if (cellPackets != null) {
-                    neighboringPackets.addAll(cellPackets);
+        // A wire always interacts with itself; other wires only if their padded bounds overlap
+        for (int i = 0; i < bounds.size(); i++) {
+            interactingWires.get(i).set(i);
+            for (int j = i + 1; j < bounds.size(); j++) {
+                if (bounds.get(i).intersects(bounds.get(j))) {
+                    interactingWires.get(i).set(j);
+                    interactingWires.get(j).set(i);
                 }
             }
         }
 
-        return neighboringPackets;
+        wireLayoutSignature = signature;
+        wireInteractionMargin = margin;
+        wireInteractionsValid = true;
     }
 
-    private String getNeighborKey(String centerKey, int dx, int dy) {
-        String[] parts = centerKey.split(",");
-        int gridX = Integer.parseInt(parts[0]) + dx;
-        int gridY = Integer.parseInt(parts[1]) + dy;
-        return gridX + "," + gridY;
+    private List<WireConnection> getWiresForInteraction(List<Packet> packets) {
+        if (gameController != null && gameController.getGameState() != null &&
+                gameController.getGameState().getCurrentLevel() != null) {
+            return gameController.getGameState().getWireConnections();
+        }
+
+        // Without a level, fall back to the wires the packets are currently travelling on
+        Set<WireConnection> wires = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Packet packet : packets) {
+            if (packet.getCurrentWire() != null) {
+                wires.add(packet.getCurrentWire());
+            }
+        }
+        return new ArrayList<>(wires);
+    }
+
+    private long computeWireLayoutSignature(List<WireConnection> wires, boolean useSmoothCurves) {
+        long signature = useSmoothCurves ? 1 : 0;
+        for (WireConnection wire : wires) {
+            signature = 31 * signature + java.lang.System.identityHashCode(wire);
+            signature = 31 * signature + mixPosition(wire.getSourcePort() != null ? wire.getSourcePort().getPosition() : null);
+            for (WireBend bend : wire.getBends()) {
+                signature = 31 * signature + mixPosition(bend.getPosition());
+            }
+            signature = 31 * signature + mixPosition(wire.getDestinationPort() != null ? wire.getDestinationPort().getPosition() : null);
+        }
+        return signature;
+    }
+
+    private long mixPosition(Point2D position) {
+        if (position == null) return 0;
+        return 31L * Double.hashCode(position.getX()) + Double.hashCode(position.getY());
+    }
+
+    private boolean isSmoothWires() {
+        if (gameController != null && gameController.getGameState() != null) {
+            Object setting = gameController.getGameState().getGameSettings().get("smoothWireCurves");
+            if (setting instanceof Boolean) {
+                return (Boolean) setting;
+            }
+        }
+        return true;
+    }
+
+    private boolean canWiresInteract(WireConnection wire1, WireConnection wire2) {
+        if (wire1 == null || wire2 == null || wire1 == wire2) {
+            return true;
+        }
+
+        Integer index1 = wireIndices.get(wire1);
+        Integer index2 = wireIndices.get(wire2);
+        if (index1 == null || index2 == null) {
+            return true; // Unknown wire, let the narrow-phase decide
+        }
+
+        return interactingWires.get(index1).get(index2);
+    }
+
+    public void setParallelCollisionsEnabled(boolean enabled) {
+        this.parallelCollisionsEnabled = enabled;
+    }
+
+    public boolean isParallelCollisionsEnabled() {
+        return parallelCollisionsEnabled;
     }
 
     public void checkCollisions(List<Packet> allPackets) {
@@ -80,40 +196,163 @@ public class CollisionController {
         double currentTime = gameController != null ? gameController.getGameState().getTemporalProgress() : 0.0;
         updateCollisionCooldowns(currentTime);
 
-        // Build spatial grid for broad-phase
-        updateSpatialGrid(allPackets);
+        packetStore.load(allPackets);
+        try {
+            // Build spatial grid for broad-phase
+            spatialGrid.rebuild(packetStore);
+            refreshWireInteractions(allPackets);
 
-        // Narrow-phase only among neighbors
-        Set<String> processedPairs = new HashSet<>();
-        for (Packet packet1 : allPackets) {
-            if (!packet1.isActive()) continue;
-            List<Packet> candidates = getNeighboringPackets(packet1.getCurrentPosition());
-            for (Packet packet2 : candidates) {
-                if (packet1 == packet2 || !packet2.isActive()) continue;
+            if (parallelCollisionsEnabled && packetStore.size() >= PARALLEL_PACKET_THRESHOLD) {
+                resolveCollisionsParallel(currentTime);
+            } else {
+                resolveCollisionsSequential(currentTime);
+            }
+        } finally {
+            packetStore.clear();
+        }
+    }
 
-                String minId = packet1.getId().compareTo(packet2.getId()) < 0 ? packet1.getId() : packet2.getId();
-                String maxId = packet1.getId().compareTo(packet2.getId()) < 0 ? packet2.getId() : packet1.getId();
-                String pairId = minId + ":" + maxId;
+    /**
+     * Both modes find every colliding pair against the positions at the start
+     * of the check, then resolve them in packet order, so a level plays out the
+     * same whichever side of the parallel threshold its packet count is on.
+     * Pairs a collision pushes together or apart this frame are only seen by
+     * the next check.
+     */
+    private void resolveCollisionsSequential(double currentTime) {
+        List<CollisionEvent> events = new ArrayList<>();
+        spatialGrid.forEachCandidatePair((id1, id2) -> {
+            if (isCollisionCandidate(id1, id2)) {
+                events.add(new CollisionEvent(id1, id2));
+            }
+        });
+        resolveInOrder(events, currentTime);
+    }
 
-                if (processedPairs.contains(pairId)) continue;
-                processedPairs.add(pairId);
+    // Tiles are searched concurrently, so nothing may change until every pair is found
+    private void resolveCollisionsParallel(double currentTime) {
+        resolveInOrder(findCollisionsParallel(), currentTime);
+    }
 
-                // Skip if this pair is in cooldown
-                if (collisionCooldowns.containsKey(pairId)) {
-                    continue;
-                }
+    private void resolveInOrder(List<CollisionEvent> events, double currentTime) {
+        events.sort(null);
+        for (CollisionEvent event : events) {
+            // An earlier collision this frame may already have destroyed one of them
+            if (!packetStore.isActive(event.first) || !packetStore.isActive(event.second)) continue;
+            if (collisionCooldowns.containsKey(getPairId(event.first, event.second))) continue;
 
-                double distance = packet1.getCurrentPosition().distanceTo(packet2.getCurrentPosition());
-                double threshold = packet1.getSize() + packet2.getSize();
+            resolveCollision(event.first, event.second, currentTime);
+        }
+    }
 
-                if (distance <= threshold) {
+    private void resolveCollision(int id1, int id2, double currentTime) {
+        // Add cooldown for this pair
+        collisionCooldowns.put(getPairId(id1, id2), currentTime + COLLISION_COOLDOWN);
 
-                    // Add cooldown for this pair
-                    collisionCooldowns.put(pairId, currentTime + COLLISION_COOLDOWN);
+        // Handle the collision
+        handleCollision(id1, id2);
+    }
 
-                    // Handle the collision
-                    handleCollision(packet1, packet2, allPackets);
-                }
+    private List<CollisionEvent> findCollisionsParallel() {
+        // Square tiles of grid cells, numbered row by row; each tile is one unit of fork/join work
+        int tileColumns = (spatialGrid.getColumns() + TILE_CELLS - 1) / TILE_CELLS;
+        int tileRows = (spatialGrid.getRows() + TILE_CELLS - 1) / TILE_CELLS;
+        Map<Thread, List<CollisionEvent>> threadBuffers = new java.util.concurrent.ConcurrentHashMap<>();
+        java.util.concurrent.ForkJoinPool.commonPool().invoke(
+                new TileNarrowPhaseTask(tileColumns, 0, tileColumns * tileRows, threadBuffers));
+
+        List<CollisionEvent> events = new ArrayList<>();
+        for (List<CollisionEvent> buffer : threadBuffers.values()) {
+            events.addAll(buffer);
+        }
+        return events;
+    }
+
+    private void findCollisionsInTile(int tile, int tileColumns, List<CollisionEvent> events) {
+        int firstColumn = (tile % tileColumns) * TILE_CELLS;
+        int firstRow = (tile / tileColumns) * TILE_CELLS;
+        int lastColumn = Math.min(firstColumn + TILE_CELLS, spatialGrid.getColumns());
+        int lastRow = Math.min(firstRow + TILE_CELLS, spatialGrid.getRows());
+        for (int row = firstRow; row < lastRow; row++) {
+            for (int column = firstColumn; column < lastColumn; column++) {
+                findCollisionsInCell(column, row, events);
+            }
+        }
+    }
+
+    private void findCollisionsInCell(int column, int row, List<CollisionEvent> events) {
+        spatialGrid.forEachCandidatePair(column, row, (id1, id2) -> {
+            if (isCollisionCandidate(id1, id2)) {
+                events.add(new CollisionEvent(id1, id2));
+            }
+        });
+    }
+
+    private boolean isCollisionCandidate(int id1, int id2) {
+        // Packets on wires that never come close cannot collide
+        if (!canWiresInteract(packetStore.getWire(id1), packetStore.getWire(id2))) return false;
+
+        double dx = packetStore.getX(id1) - packetStore.getX(id2);
+        double dy = packetStore.getY(id1) - packetStore.getY(id2);
+        double threshold = packetStore.getSize(id1) + packetStore.getSize(id2);
+        if (dx * dx + dy * dy > threshold * threshold) return false;
+
+        // Skip if this pair is in cooldown
+        return !collisionCooldowns.containsKey(getPairId(id1, id2));
+    }
+
+    private long getPairId(int id1, int id2) {
+        long serial1 = packetStore.getSerial(id1);
+        long serial2 = packetStore.getSerial(id2);
+        // Serials only wrap the 32-bit halves after four billion packets
+        return (Math.min(serial1, serial2) << 32) | (Math.max(serial1, serial2) & 0xFFFFFFFFL);
+    }
+
+    private static class CollisionEvent implements Comparable<CollisionEvent> {
+        private final int first;
+        private final int second;
+
+        CollisionEvent(int first, int second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public int compareTo(CollisionEvent other) {
+            int result = Integer.compare(first, other.first);
+            return result != 0 ? result : Integer.compare(second, other.second);
+        }
+    }
+
+    private class TileNarrowPhaseTask extends java.util.concurrent.RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int tileColumns;
+        private final int from;
+        private final int to;
+        private final Map<Thread, List<CollisionEvent>> threadBuffers;
+
+        TileNarrowPhaseTask(int tileColumns, int from, int to,
+                            Map<Thread, List<CollisionEvent>> threadBuffers) {
+            this.tileColumns = tileColumns;
+            this.from = from;
+            this.to = to;
+            this.threadBuffers = threadBuffers;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TileNarrowPhaseTask(tileColumns, from, mid, threadBuffers),
+                        new TileNarrowPhaseTask(tileColumns, mid, to, threadBuffers));
+                return;
+            }
+
+            // The grid, cooldowns and wire table are only read here, so tiles can run concurrently
+            List<CollisionEvent> buffer = threadBuffers.computeIfAbsent(Thread.currentThread(), t -> new ArrayList<>());
+            for (int tile = from; tile < to; tile++) {
+                findCollisionsInTile(tile, tileColumns, buffer);
             }
         }
     }
@@ -137,7 +376,10 @@ public class CollisionController {
         return shouldCollide;
     }
 
-    private void handleCollision(Packet packet1, Packet packet2, List<Packet> allPackets) {
+    private void handleCollision(int id1, int id2) {
+        Packet packet1 = packetStore.getPacket(id1);
+        Packet packet2 = packetStore.getPacket(id2);
+
         // Check if collisions are disabled by ability
         if (gameController != null && gameController.isAbilityActive(AbilityType.O_AIRYAMAN)) {
             return; // Collisions disabled
@@ -154,9 +396,13 @@ public class CollisionController {
         // Handle special collision behaviors based on packet size and type
         handleSpecialCollisionBehaviors(packet1, packet2);
 
+        // Only the pair moved or lost packets; the rest of this check reads the store
+        packetStore.refresh(id1);
+        packetStore.refresh(id2);
+
         // Create shockwave effect (unless disabled by ability)
         if (gameController == null || !gameController.isAbilityActive(AbilityType.O_ATAR)) {
-            createShockwave(packet1, packet2, allPackets);
+            createShockwave(id1, id2);
         }
     }
 
@@ -165,24 +411,26 @@ public class CollisionController {
         Point2D pos2 = packet2.getCurrentPosition();
 
         // Calculate separation vector
-        Vec2D separation = new Vec2D(pos1.getX() - pos2.getX(), pos1.getY() - pos2.getY());
-        double distance = separation.magnitude();
+        double separationX = pos1.getX() - pos2.getX();
+        double separationY = pos1.getY() - pos2.getY();
+        double distance = Math.sqrt(separationX * separationX + separationY * separationY);
 
         // If packets are exactly on top of each other, create a random separation
         if (distance < 0.1) {
-            separation = new Vec2D(Math.random() - 0.5, Math.random() - 0.5);
-            distance = separation.magnitude();
+            separationX = Math.random() - 0.5;
+            separationY = Math.random() - 0.5;
+            distance = Math.sqrt(separationX * separationX + separationY * separationY);
         }
 
         // Normalize and scale separation
         if (distance > 0) {
-            separation = separation.normalize();
             double minSeparation = (packet1.getSize() + packet2.getSize()) * 1.5; // 1.5x for buffer
 
             // Move packets apart
-            Vec2D offset = separation.scale(minSeparation / 2.0);
-            packet1.setCurrentPosition(new Point2D(pos1.getX() + offset.getX(), pos1.getY() + offset.getY()));
-            packet2.setCurrentPosition(new Point2D(pos2.getX() - offset.getX(), pos2.getY() - offset.getY()));
+            double offsetX = separationX / distance * (minSeparation / 2.0);
+            double offsetY = separationY / distance * (minSeparation / 2.0);
+            packet1.setCurrentPosition(pos1.getX() + offsetX, pos1.getY() + offsetY);
+            packet2.setCurrentPosition(pos2.getX() - offsetX, pos2.getY() - offsetY);
 
         }
     }
@@ -218,22 +466,23 @@ public class CollisionController {
                 (newNoise2 - 1) + " -> " + newNoise2 + " (size " + packet2.getSize() + ")");
     }
 
-    private void createShockwave(Packet packet1, Packet packet2, List<Packet> allPackets) {
-        Point2D collisionPoint = new Point2D(
-                (packet1.getCurrentPosition().getX() + packet2.getCurrentPosition().getX()) / 2,
-                (packet1.getCurrentPosition().getY() + packet2.getCurrentPosition().getY()) / 2
-        );
+    private void createShockwave(int id1, int id2) {
+        double collisionX = (packetStore.getX(id1) + packetStore.getX(id2)) / 2;
+        double collisionY = (packetStore.getY(id1) + packetStore.getY(id2)) / 2;
 
-
-        for (Packet packet : allPackets) {
-            if (packet == packet1 || packet == packet2) {
+        // Range test runs on the store arrays; only packets inside the radius are touched
+        for (int id = 0; id < packetStore.size(); id++) {
+            if (id == id1 || id == id2) {
                 continue; // Skip the colliding packets themselves
             }
 
-            double distance = collisionPoint.distanceTo(packet.getCurrentPosition());
+            double dx = collisionX - packetStore.getX(id);
+            double dy = collisionY - packetStore.getY(id);
+            double distance = Math.sqrt(dx * dx + dy * dy);
 
             // Limit shockwave radius to 100 pixels
             if (distance <= 100.0) {
+                Packet packet = packetStore.getPacket(id);
                 double strength = 1.0 - (distance / 100.0);
 
                 // Skip applying shockwave to size 1 packets that have already been reversed
@@ -243,17 +492,10 @@ public class CollisionController {
 
                 // Apply shockwave effect to movement vector
                 Vec2D currentMovement = packet.getMovementVector();
-                Vec2D shockwaveVector = new Vec2D(
-                        (collisionPoint.getX() - packet.getCurrentPosition().getX()) * strength * 0.2,
-                        (collisionPoint.getY() - packet.getCurrentPosition().getY()) * strength * 0.2
-                );
-
-                Vec2D newMovement = new Vec2D(
-                        currentMovement.getX() + shockwaveVector.getX(),
-                        currentMovement.getY() + shockwaveVector.getY()
-                );
+                Vec2D shockwaveVector = shockwaveScratch.setXY(dx * strength * 0.2, dy * strength * 0.2);
 
-                packet.setMovementVector(newMovement);
+                packet.setMovementVector(currentMovement.getX() + shockwaveVector.getX(),
+                        currentMovement.getY() + shockwaveVector.getY());
 
                 // Apply shockwave effect to increase noise level
                 packet.applyShockwave(shockwaveVector);
@@ -0,0 +1,122 @@
+package controller;
+
+import model.Packet;
+import model.Point2D;
+import model.SquarePacket;
+import model.TrianglePacket;
+import model.Vec2D;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs one crowded scene, above the parallel threshold, through the
+ * sequential and the parallel collision check and compares the outcome
+ * exactly: every packet's position, movement, noise and whether it is still
+ * active. Exits with status 1 on the first difference.
+ *
+ * Run with: java -cp target/classes controller.CollisionParityCheck [packets] [frames]
+ */
+public class CollisionParityCheck {
+    private static final long SEED = 20240601L;
+    private static final double WIDTH = 1600;
+    private static final double HEIGHT = 1000;
+    private static final double FRAME_SECONDS = 1.0 / 60.0;
+
+    public static void main(String[] args) {
+        int packets = args.length > 0 ? Integer.parseInt(args[0]) : 2400;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+
+        List<Packet> sequential = createScene(packets);
+        List<Packet> parallel = createScene(packets);
+
+        CollisionController sequentialController = new CollisionController();
+        sequentialController.setParallelCollisionsEnabled(false);
+        CollisionController parallelController = new CollisionController();
+        parallelController.setParallelCollisionsEnabled(true);
+
+        // Collisions are logged one line each; keep the check's own output readable
+        PrintStream out = java.lang.System.out;
+        java.lang.System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        String difference;
+        try {
+            difference = null;
+            for (int frame = 0; frame < frames && difference == null; frame++) {
+                step(sequential, sequentialController);
+                step(parallel, parallelController);
+                difference = compare(sequential, parallel, frame);
+            }
+        } finally {
+            java.lang.System.setOut(out);
+        }
+
+        int active = countActive(sequential);
+        if (difference != null) {
+            java.lang.System.err.println("Collision modes differ: " + difference);
+            java.lang.System.exit(1);
+        }
+        out.println("Collision modes match: " + packets + " packets, " + frames + " frames, "
+                + active + " still active");
+    }
+
+    // The same packets every time, so both controllers start from identical scenes
+    private static List<Packet> createScene(int count) {
+        Random random = new Random(SEED);
+        List<Packet> packets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Point2D position = new Point2D(random.nextDouble() * WIDTH, random.nextDouble() * HEIGHT);
+            Vec2D movement = new Vec2D(random.nextDouble() * 120 - 60, random.nextDouble() * 120 - 60);
+            packets.add(i % 2 == 0
+                    ? new SquarePacket(0.0, position, movement)
+                    : new TrianglePacket(0.0, position, movement));
+        }
+        return packets;
+    }
+
+    private static void step(List<Packet> packets, CollisionController controller) {
+        for (Packet packet : packets) {
+            if (!packet.isActive()) continue;
+            Point2D position = packet.getCurrentPosition();
+            Vec2D movement = packet.getMovementVector();
+            packet.setCurrentPosition(position.getX() + movement.getX() * FRAME_SECONDS,
+                    position.getY() + movement.getY() * FRAME_SECONDS);
+        }
+        controller.checkCollisions(packets);
+    }
+
+    private static String compare(List<Packet> expected, List<Packet> actual, int frame) {
+        if (countActive(expected) != countActive(actual)) {
+            return "frame " + frame + ": " + countActive(expected) + " vs " + countActive(actual) + " active packets";
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            Packet a = expected.get(i);
+            Packet b = actual.get(i);
+            boolean same = a.isActive() == b.isActive()
+                    && Double.compare(a.getCurrentPosition().getX(), b.getCurrentPosition().getX()) == 0
+                    && Double.compare(a.getCurrentPosition().getY(), b.getCurrentPosition().getY()) == 0
+                    && Double.compare(a.getMovementVector().getX(), b.getMovementVector().getX()) == 0
+                    && Double.compare(a.getMovementVector().getY(), b.getMovementVector().getY()) == 0
+                    && Double.compare(a.getNoiseLevel(), b.getNoiseLevel()) == 0;
+            if (!same) {
+                return "frame " + frame + ", packet " + i + ": " + describe(a) + " vs " + describe(b);
+            }
+        }
+        return null;
+    }
+
+    private static String describe(Packet packet) {
+        return packet.getCurrentPosition() + " " + packet.getMovementVector()
+                + " noise=" + packet.getNoiseLevel() + " active=" + packet.isActive();
+    }
+
+    private static int countActive(List<Packet> packets) {
+        int active = 0;
+        for (Packet packet : packets) {
+            if (packet.isActive()) active++;
+        }
+        return active;
+    }
+}
@@ -3,6 +3,7 @@ package controller;
 import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import model.GameState;
+import model.GameStats;
 import model.GameLevel;
 import model.Packet;
 import model.AbilityType;
@@ -16,6 +17,7 @@ import model.SystemType;
 import model.Port;
 import model.PortShape;
 import model.PacketInjection;
+import model.PacketPool;
 import model.PacketType;
 import model.SpySystem;
 import model.SaboteurSystem;
@@ -36,6 +38,7 @@ import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Arrays;
+import java.util.function.BooleanSupplier;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.InputStream;
 
@@ -57,12 +60,16 @@ public class GameController {
     private GameFlowController gameFlowController;
     private AbilityManager abilityManager;
     private SoundManager soundManager;
+    private PacketPool packetPool;
+    private OutcomePredictor outcomePredictor;
+    private long lastPredictedWiringSignature;
 
     private AnimationTimer gameLoop;
     private AnimationTimer editingRenderLoop;
     private boolean isRunning;
     private boolean isEditingRenderLoopRunning;
     private long lastUpdateTime;
+    private final SimulationClock simulationClock = new SimulationClock();
 
     // Phase 2 additions
     private GameSaveManager saveManager;
@@ -81,6 +88,14 @@ public class GameController {
     private int initialCoinsBeforeSimulate = 0; // Store initial coins before simulate
 
     public GameController(GameState gameState) {
+        this(gameState, false);
+    }
+
+    /**
+     * A headless controller only runs the simulation: it has no views, sound,
+     * save manager or game loops. Used for background outcome predictions.
+     */
+    GameController(GameState gameState, boolean headless) {
         this.gameState = gameState;
         this.isRunning = false;
         this.isEditingRenderLoopRunning = false;
@@ -88,9 +103,10 @@ public class GameController {
         this.currentTime = 0.0;
 
         // Initialize Phase 2 components
-        this.saveManager = new GameSaveManager();
+        this.saveManager = headless ? null : new GameSaveManager();
         this.activeAbilities = new ArrayList<>();
         this.abilityCooldowns = new HashMap<>();
+        this.packetPool = new PacketPool();
 
         // Initialize temporal navigation modes
         this.isEditingMode = true;  // Start in editing mode
@@ -100,19 +116,27 @@ public class GameController {
         // Initialize game loading mode (default to fresh mode)
 
 
-        initializeControllers();
-        initializeViews();
-        initializeGameLoop();
+        initializeControllers(headless);
+        if (!headless) {
+            initializeViews();
+            initializeGameLoop();
+            // Requests and cancels happen on the FX thread, so checking there cannot race them
+            outcomePredictor = new OutcomePredictor(prediction -> Platform.runLater(() -> {
+                if (outcomePredictor.isLatest(prediction)) {
+                    hudView.showPrediction(prediction);
+                }
+            }));
+        }
     }
 
-    private void initializeControllers() {
+    private void initializeControllers(boolean headless) {
         inputHandler = new InputHandler(this);
         movementController = new MovementController();
         collisionController = new CollisionController(this);
         wiringController = new WiringController();
         gameFlowController = new GameFlowController(this);
         abilityManager = new AbilityManager(this, movementController);
-        soundManager = new SoundManager();
+        soundManager = headless ? null : new SoundManager();
     }
 
     private void initializeViews() {
@@ -198,8 +222,11 @@ public class GameController {
                 double deltaTime = (now - lastUpdateTime) / 1_000_000_000.0; // Convert to seconds
                 lastUpdateTime = now;
 
-                // Update game logic
-                update(deltaTime);
+                // Update game logic, in fixed substeps when running faster than 1x
+                simulationClock.advance(deltaTime, step -> {
+                    update(step);
+                    return isRunning && isSimulationMode && !gameState.isPaused();
+                });
 
                 // Update views
                 Platform.runLater(() -> {
@@ -223,6 +250,8 @@ public class GameController {
                         boolean allIndicatorsOn = areAllIndicatorsOn();
                         boolean refSystemsReady = areReferenceSystemsReady();
                         boolean noWireCollisions = !doAnyWiresPassOverSystems();
+
+                        updateOutcomePrediction(refSystemsReady);
                         
                         if (allIndicatorsOn && refSystemsReady && noWireCollisions) {
                             // All conditions met - ready to start simulation
@@ -306,12 +335,7 @@ public class GameController {
         }
         applyAbilityEffects();
         saveManager.updateSaveTimer(gameState, currentTime);
-
-        // Update views
-        Platform.runLater(() -> {
-            gameView.update();
-            hudView.update();
-        });
+        // Views are refreshed once per rendered frame by the game loop
     }
 
     private void processPacketInjections(double deltaTime) {
@@ -334,7 +358,7 @@ public class GameController {
         for (PacketInjection injection : gameState.getCurrentLevel().getPacketSchedule()) {
             if (!injection.isExecuted() && injection.getTime() <= currentTemporalTime) {
                 // Create a new packet for this injection attempt
-                Packet packet = injection.createPacket();
+                Packet packet = injection.createPacket(packetPool);
 
                 // Try to place the packet onto the first available wire from the source port
                 boolean placed = tryPlacePacketOnOutgoingWire(packet, injection.getSourceSystem());
@@ -342,9 +366,11 @@ public class GameController {
                 if (placed) {
                     // Only now consider the packet active and mark the injection executed
                     gameState.addActivePacket(packet);
+                    gameState.incrementInjectedPackets();
                     injection.setExecuted(true);
                 } else {
                     // Do NOT mark executed; we'll retry in a subsequent frame when connections permit
+                    packetPool.release(packet);
                     debugPacketPlacementFailure(injection.getSourceSystem());
                 }
             }
@@ -423,7 +449,10 @@ public class GameController {
     private void updateSystems(double deltaTime, double accelerationFactor) {
         if (gameState.getCurrentLevel() == null) return;
 
-        for (model.System system : gameState.getCurrentLevel().getSystems()) {
+        // Indexed loop: systems woken up while this runs are appended and stepped in the same pass
+        List<model.System> pendingSystems = gameState.getCurrentLevel().getPendingSystemUpdates();
+        for (int i = 0; i < pendingSystems.size(); i++) {
+            model.System system = pendingSystems.get(i);
             if (system instanceof ReferenceSystem) {
                 ((ReferenceSystem) system).update(gameState.getTemporalProgress());
             }
@@ -455,9 +484,11 @@ public class GameController {
     private void updateSystemDeactivationTimers(double deltaTime) {
         if (gameState.getCurrentLevel() == null) return;
 
-        for (model.System system : gameState.getCurrentLevel().getSystems()) {
+        // Only systems on the worklist can have a running timer
+        List<model.System> pendingSystems = gameState.getCurrentLevel().getPendingSystemUpdates();
+        for (int i = 0; i < pendingSystems.size(); i++) {
             // Call the full update method to ensure indicators are updated
-            system.update(deltaTime);
+            pendingSystems.get(i).update(deltaTime);
         }
     }
 
@@ -491,14 +522,17 @@ public class GameController {
     }
 
     private void processWireConnections() {
-        if (gameState.getCurrentLevel() == null) return;
+        GameLevel level = gameState.getCurrentLevel();
+        if (level == null) return;
 
-        for (WireConnection connection : gameState.getCurrentLevel().getWireConnections()) {
+        // Only wires that reported an arrival or a packet waiting on their source port are visited
+        for (WireConnection connection : level.drainPendingWireTransfers()) {
             if (connection.isActive()) {
-                boolean transferred = connection.transferPacket();
-                if (transferred) {
-                    // Debug: Log successful packet transfers
-                }
+                connection.transferPacket();
+            }
+            // Blocked wires (busy wire or full destination port) are retried on the next pass
+            if (connection.hasPendingTransfer()) {
+                level.queueWireTransfer(connection);
             }
         }
     }
@@ -531,10 +565,11 @@ public class GameController {
         }
 
         // Remove lost/delivered packets from active list
-        gameState.getActivePackets().removeAll(packetsToRemove);
+        gameState.removeActivePackets(packetsToRemove);
         
         // Also remove destroyed packets from wires to free up wire space
         removeDestroyedPacketsFromWires(packetsToRemove);
+        recycleRemovedPackets(packetsToRemove);
 
         if (!packetsToRemove.isEmpty()) {
             // Packets removed from active list
@@ -583,9 +618,11 @@ public class GameController {
             gameState.setTemporalProgress(0);
             // Reset lost packets count for new level (each level should start fresh)
             gameState.setLostPacketsCount(0);
+            gameState.setInjectedPacketsCount(0);
 
             // Clear all wire connections for fresh start
             level.setWireConnections(new ArrayList<>());
+            stopOutcomePrediction();
 
             // Ensure wire connections and packet sources are correctly rebound after JSON load
             updateWireConnectionPortReferences(level);
@@ -1511,6 +1548,7 @@ public class GameController {
         editingRenderLoop.stop();
         isEditingRenderLoopRunning = false;
         soundManager.stopBackgroundMusic();
+        stopOutcomePrediction();
     }
 
     public GameView getGameView() {
@@ -1553,6 +1591,10 @@ public class GameController {
         return gameState;
     }
 
+    public SimulationClock getSimulationClock() {
+        return simulationClock;
+    }
+
     public SoundManager getSoundManager() {
         return soundManager;
     }
@@ -1627,6 +1669,7 @@ public class GameController {
         // Exit temporal navigation and reset simulation state (preserve initial coins)
         exitTemporalNavigation();
         resetSimulationToBeginning();
+        stopOutcomePrediction();
         
         isEditingMode = false;
         isSimulationMode = true;
@@ -1642,6 +1685,7 @@ public class GameController {
         
         // Reset lastUpdateTime AFTER starting the loop to ensure proper deltaTime calculation
         lastUpdateTime = java.lang.System.nanoTime();
+        simulationClock.reset();
 
     }
 
@@ -1661,6 +1705,8 @@ public class GameController {
         // Store initial coins before entering simulate mode
         initialCoinsBeforeSimulate = gameState.getCoins();
 
+        stopOutcomePrediction();
+
         isSimulatingMode = true;
         isEditingMode = false;
         isSimulationMode = false;
@@ -1794,6 +1840,9 @@ public class GameController {
                 system.reset();
             }
         }
+
+        // Wiring may have been edited since the last run
+        collisionController.invalidateWireInteractions();
         
         // Reset systems
         if (gameState.getCurrentLevel() != null) {
@@ -1840,6 +1889,7 @@ public class GameController {
     private void resetPacketStatistics() {
         // Reset lost packets count
         gameState.setLostPacketsCount(0);
+        gameState.setInjectedPacketsCount(0);
         
         if (gameState.getCurrentLevel() != null) {
             for (model.System system : gameState.getCurrentLevel().getSystems()) {
@@ -1854,6 +1904,7 @@ public class GameController {
     private void resetPacketStatisticsCompletely() {
         // Reset lost packets count
         gameState.setLostPacketsCount(0);
+        gameState.setInjectedPacketsCount(0);
         
         if (gameState.getCurrentLevel() != null) {
             for (model.System system : gameState.getCurrentLevel().getSystems()) {
@@ -1866,7 +1917,21 @@ public class GameController {
     }
     
     private void runSimulationToTime(double targetTime) {
-        if (targetTime <= 0) return;
+        runSimulationToTime(targetTime, () -> false);
+    }
+
+    /**
+     * Fast-forwards from time zero in fixed 0.2s steps. Returns false if the
+     * run was cancelled before reaching the target time.
+     *
+     * Only stretches with nothing in flight are jumped over, up to the next
+     * injection. Wire arrivals and collisions are not event-driven: movement
+     * and acceleration are integrated per step, so a jump would not land
+     * packets where stepping does. Deactivation timers are only ticked by the
+     * live loop, so no expiry can occur here either.
+     */
+    private boolean runSimulationToTime(double targetTime, BooleanSupplier cancelled) {
+        if (targetTime <= 0) return true;
         
         double currentTime = 0.0;
         double deltaTime = 0.2; // Even larger steps for better performance (0.2s steps)
@@ -1879,11 +1944,23 @@ public class GameController {
         System.out.println("Initial coins before simulation: " + initialCoins);
         
         int stepCount = 0;
+        int idleSteps = 0;
+        // Steps before this time would not change anything, so they are skipped
+        double idleUntil = getIdleUntilTime();
         while (currentTime < targetTime) {
+            if (cancelled.getAsBoolean()) {
+                return false;
+            }
             double stepTime = Math.min(deltaTime, targetTime - currentTime);
             
-            // Update simulation with normal speed for accuracy
-            updateSimulationStep(stepTime, accelerationFactor);
+            if (currentTime < idleUntil) {
+                // Still on the same fixed-step grid, so the next real step lands exactly where it would have
+                idleSteps++;
+            } else {
+                // Update simulation with normal speed for accuracy
+                updateSimulationStep(stepTime, accelerationFactor);
+                idleUntil = getIdleUntilTime();
+            }
             
             currentTime += stepTime;
             gameState.setTemporalProgress(currentTime);
@@ -1901,23 +1978,133 @@ public class GameController {
         // Calculate correct coins based on delivered packets
         calculateCorrectCoins(initialCoins);
         
-        System.out.println("Fast simulation completed at time " + String.format("%.2f", currentTime) + "s in " + stepCount + " steps");
+        System.out.println("Fast simulation completed at time " + String.format("%.2f", currentTime) + "s in " + stepCount +
+                " steps (" + idleSteps + " idle steps skipped)");
+        return true;
+    }
+
+    // Editing mode: re-run the prediction whenever the layout or wiring changes
+    private void updateOutcomePrediction(boolean refSystemsReady) {
+        if (outcomePredictor == null) return;
+
+        if (!refSystemsReady) {
+            if (lastPredictedWiringSignature != 0) {
+                outcomePredictor.cancel();
+                hudView.clearPrediction();
+                lastPredictedWiringSignature = 0;
+            }
+            return;
+        }
+
+        long signature = OutcomePredictor.wiringSignature(gameState.getCurrentLevel());
+        if (signature == lastPredictedWiringSignature) return;
+        lastPredictedWiringSignature = signature;
+
+        OutcomePredictor.LevelSnapshot snapshot = OutcomePredictor.LevelSnapshot.capture(gameState);
+        if (snapshot != null) {
+            outcomePredictor.requestPrediction(snapshot);
+        }
+    }
+
+    private void stopOutcomePrediction() {
+        if (outcomePredictor == null) return;
+        outcomePredictor.cancel();
+        hudView.clearPrediction();
+        lastPredictedWiringSignature = 0;
+    }
+
+    /**
+     * Headless run of a snapshot to the end of its level. Only meant for a
+     * controller created with the headless constructor.
+     */
+    OutcomePredictor.Prediction predictOutcome(OutcomePredictor.LevelSnapshot snapshot, BooleanSupplier cancelled) {
+        GameLevel level = createLevel(snapshot.getLevelId());
+        snapshot.applyTo(level);
+
+        gameState.setCurrentLevel(level);
+        gameState.setCoins(snapshot.getCoins());
+        gameState.getGameSettings().put("smoothWireCurves", snapshot.isSmoothWireCurves());
+        restorePortConnectionsFromWires(level);
+        rebindPacketInjectionSources(level);
+        resetSimulationToBeginning();
+
+        if (!runSimulationToTime(level.getLevelDuration(), cancelled)) {
+            return null;
+        }
+
+        GameStats stats = gameState.getStats();
+        // Same rules as the end of a real run: loss and topology checks, then the delivery rate at time-out
+        boolean passed = !gameState.shouldEndGame() && stats.getDeliveryRate() >= 0.5;
+        return new OutcomePredictor.Prediction(stats.getFinalPacketLossPercentage(),
+                stats.getDeliveredPackets(), stats.getLostPackets(), gameState.getCoins(), passed);
+    }
+
+    /**
+     * Makes a level built elsewhere, such as a player's network decoded on
+     * the server, the current level of a headless controller and rewinds it
+     * to time zero.
+     */
+    void loadForSimulation(GameLevel level) {
+        gameState.setCurrentLevel(level);
+        level.resolvePacketInjectionSources();
+        updateWireConnectionPortReferences(level);
+        restorePortConnectionsFromWires(level);
+        rebindPacketInjectionSources(level);
+        resetSimulationToBeginning();
+    }
+
+    /**
+     * Advances a headless run by one step and returns the new level time.
+     * Like a fast-forward, the step's work is skipped while nothing can
+     * change before the next injection.
+     */
+    double stepSimulation(double stepTime) {
+        double time = gameState.getLevelTimer();
+        if (time >= getIdleUntilTime()) {
+            updateSimulationStep(stepTime, 1.0);
+        }
+        time += stepTime;
+        gameState.setTemporalProgress(time);
+        gameState.setLevelTimer(time);
+        return time;
+    }
+
+    /**
+     * Next time at which a fast-forward step can change the simulation. While
+     * no packet is moving, waiting in a port or stored in a system, the only
+     * thing that can happen is the next scheduled injection; otherwise every
+     * step matters and 0 is returned. Injections are the only events with a
+     * known time, see runSimulationToTime.
+     */
+    private double getIdleUntilTime() {
+        GameLevel level = gameState.getCurrentLevel();
+        if (level == null) return 0.0;
+
+        for (Packet packet : gameState.getActivePackets()) {
+            if (packet.isActive()) return 0.0;
+        }
+        for (WireConnection connection : level.getWireConnections()) {
+            if (connection.hasPacketsOnWire()) return 0.0;
+        }
+        for (model.System system : level.getSystems()) {
+            if (system.getTotalPacketCount() > 0) return 0.0;
+        }
+
+        // Injections fire on the first step whose start time has reached the scheduled time
+        double nextInjection = Double.POSITIVE_INFINITY;
+        for (PacketInjection injection : level.getPacketSchedule()) {
+            if (!injection.isExecuted()) {
+                nextInjection = Math.min(nextInjection, injection.getTime());
+            }
+        }
+        return nextInjection;
     }
     
     private void calculateCorrectCoins(int initialCoins) {
         if (gameState.getCurrentLevel() == null) return;
         
-        int deliveredCoins = 0;
-        
-        // Count coins from all delivered packets
-        for (model.System system : gameState.getCurrentLevel().getSystems()) {
-            if (system instanceof ReferenceSystem) {
-                ReferenceSystem refSystem = (ReferenceSystem) system;
-                int deliveredCount = refSystem.getDeliveredPacketCount();
-                // Each delivered packet gives 1 coin
-                deliveredCoins += deliveredCount;
-            }
-        }
+        // Each delivered packet gives 1 coin
+        int deliveredCoins = gameState.getStats().getDeliveredPackets();
         
         // For temporal navigation, calculate total coins based on current state
         // This ensures we don't accumulate coins from previous temporal navigation
@@ -2123,18 +2310,20 @@ public class GameController {
         for (PacketInjection injection : gameState.getCurrentLevel().getPacketSchedule()) {
             if (!injection.isExecuted() && injection.getTime() <= targetTime) {
                 // Create packet instance to attempt placement
-                Packet packet = injection.createPacket();
+                Packet packet = injection.createPacket(packetPool);
 
                 // Try to place on outgoing wire immediately for temporal jumps
                 boolean placed = tryPlacePacketOnOutgoingWire(packet, injection.getSourceSystem());
 
                 if (placed) {
                     gameState.addActivePacket(packet);
+                    gameState.incrementInjectedPackets();
                     injection.setExecuted(true);
                     java.lang.System.out.println("Temporal injection: " + packet.getClass().getSimpleName() +
                             " at " + String.format("%.2f", injection.getTime()) + "s (placed on wire)");
                 } else {
                     java.lang.System.out.println("Temporal injection deferred: no available wire for " + packet.getClass().getSimpleName());
+                    packetPool.release(packet);
                 }
             }
         }
@@ -2152,75 +2341,67 @@ public class GameController {
         return wirePackets;
     }
 
+    private void recycleRemovedPackets(List<Packet> removedPackets) {
+        if (removedPackets.isEmpty()) return;
+
+        // Delivered packets can still sit in a destination port, so only recycle what nothing holds
+        for (Packet packet : removedPackets) {
+            if (packet.isHeldBySystem() || gameState.getActivePackets().contains(packet)) continue;
+
+            WireConnection wire = packet.getCurrentWire();
+            if (wire != null && wire.getPacketsOnWire().contains(packet)) continue;
+
+            packetPool.release(packet);
+        }
+    }
+
     private void removeDestroyedPacketsFromWires(List<Packet> packetsToRemove) {
         if (gameState.getCurrentLevel() == null || packetsToRemove.isEmpty()) return;
 
-        int totalRemoved = 0;
-        for (WireConnection connection : gameState.getCurrentLevel().getWireConnections()) {
-            if (connection.isActive()) {
-                int beforeCount = connection.getPacketsOnWire().size();
-                // Remove destroyed packets from this wire
-                connection.getPacketsOnWire().removeAll(packetsToRemove);
-                int afterCount = connection.getPacketsOnWire().size();
-                int removedFromWire = beforeCount - afterCount;
-                totalRemoved += removedFromWire;
-                
-                if (removedFromWire > 0) {
-                }
+        // Each packet points at the wire it travels on, so no other wire needs to be scanned
+        for (Packet packet : packetsToRemove) {
+            WireConnection wire = packet.getCurrentWire();
+            if (wire != null && wire.isActive()) {
+                wire.releasePacket(packet);
             }
         }
-        
-        if (totalRemoved > 0) {
-        }
     }
 
     private void removeDestroyedPacketsFromWiresImmediate() {
         if (gameState.getCurrentLevel() == null) return;
 
-        int totalRemoved = 0;
         List<Packet> destroyedPackets = new ArrayList<>();
-        
+
+        // Mark destroyed packets as inactive and collect them
         for (WireConnection connection : gameState.getCurrentLevel().getWireConnections()) {
-            if (connection.isActive()) {
-                List<Packet> packetsOnWire = connection.getPacketsOnWire();
-                int beforeCount = packetsOnWire.size();
-                
-                // First, mark destroyed packets as inactive and collect them
-                for (Packet packet : packetsOnWire) {
+            if (connection.isActive() && connection.isOccupied()) {
+                for (Packet packet : connection.getPacketsOnWire()) {
                     if (packet.shouldBeLost() && packet.isActive()) {
                         packet.setActive(false);
                         destroyedPackets.add(packet);
                     }
                 }
-                
-                // Then remove inactive packets from wire
-                packetsOnWire.removeIf(packet -> !packet.isActive());
-                
-                int afterCount = packetsOnWire.size();
-                int removedFromWire = beforeCount - afterCount;
-                totalRemoved += removedFromWire;
-                
-                if (removedFromWire > 0) {
-                }
             }
         }
-        
-        // Also remove destroyed packets from active packets list and count them as lost
+
+        // Remove them from their wires and the active set, and count them as lost
         if (!destroyedPackets.isEmpty()) {
+            removeDestroyedPacketsFromWires(destroyedPackets);
             for (Packet packet : destroyedPackets) {
                 gameState.incrementLostPackets();
             }
-            gameState.getActivePackets().removeAll(destroyedPackets);
-        }
-        
-        if (totalRemoved > 0) {
+            gameState.removeActivePackets(destroyedPackets);
+            recycleRemovedPackets(destroyedPackets);
         }
     }
 
     private void processSystemTransfers() {
-        if (gameState.getCurrentLevel() == null) return;
+        GameLevel level = gameState.getCurrentLevel();
+        if (level == null) return;
 
-        for (model.System system : gameState.getCurrentLevel().getSystems()) {
+        List<model.System> pendingSystems = level.getPendingSystemUpdates();
+        for (int i = 0; i < pendingSystems.size(); i++) {
+            model.System system = pendingSystems.get(i);
             if (!system.isActive()) continue;
 
             // Process packets from storage to output ports (when ports become available)
@@ -2236,6 +2417,9 @@ public class GameController {
                 }
             }
         }
+
+        // Last system phase of the tick: idle systems leave the worklist until something wakes them
+        level.prunePendingSystemUpdates();
     }
 
     private void processStorageToOutputs(model.System system) {
@@ -2244,7 +2428,7 @@ public class GameController {
         List<Packet> storage = new ArrayList<>(system.getStorage());
         for (Packet packet : storage) {
             if (!packet.isActive()) {
-                system.getStorage().remove(packet);
+                system.unstorePacket(packet);
                 continue;
             }
 
@@ -2252,7 +2436,7 @@ public class GameController {
             Port availablePort = findAvailableOutputPortWithWire(system, packet);
             if (availablePort != null) {
                 // Remove from storage and place on output port
-                system.getStorage().remove(packet);
+                system.unstorePacket(packet);
                 availablePort.acceptPacket(packet);
 
                 // Apply exit speed doubling if packet is exiting through incompatible port
@@ -2296,11 +2480,8 @@ public class GameController {
     private boolean hasAvailableOutgoingWire(Port port) {
         if (gameState.getCurrentLevel() == null) return false;
 
-        for (WireConnection connection : gameState.getCurrentLevel().getWireConnections()) {
-            if (!connection.isActive()) continue;
-
-            // Check if this port is the source of an outgoing connection
-            if (connection.getSourcePort() == port && connection.canAcceptPacket()) {
+        for (WireConnection connection : gameState.getCurrentLevel().getOutgoingWires(port)) {
+            if (connection.isActive() && connection.canAcceptPacket()) {
                 return true;
             }
         }
@@ -2312,10 +2493,10 @@ public class GameController {
         if (gameState.getCurrentLevel() == null) return false;
 
         // Find the wire connection starting from this port
-        for (WireConnection connection : gameState.getCurrentLevel().getWireConnections()) {
+        for (WireConnection connection : gameState.getCurrentLevel().getOutgoingWires(port)) {
             if (!connection.isActive()) continue;
 
-            if (connection.getSourcePort() == port && connection.canAcceptPacket()) {
+            if (connection.canAcceptPacket()) {
                 Packet packet = port.releasePacket();
                 boolean accepted = connection.acceptPacket(packet);
                 if (accepted) {
@@ -0,0 +1,97 @@
+package controller;
+
+import model.GameLevel;
+import model.GameState;
+import model.GameStats;
+
+/**
+ * Runs one player's network without views or game loop, for a server that
+ * hosts the authoritative simulation of a match. The level is taken over and
+ * changed as it runs, so callers pass a copy they do not share.
+ *
+ * The simulation moves in fixed steps regardless of how often advance is
+ * called. Each call only runs steps until its deadline; the time that did not
+ * fit is carried to the next call up to MAX_BACKLOG_SECONDS and dropped beyond
+ * that, so a match that is too expensive runs slower instead of taking the
+ * tick time of every other match on the same thread.
+ */
+public class HeadlessSimulation {
+    public static final double STEP_SECONDS = 1.0 / 30.0;
+    private static final double MAX_BACKLOG_SECONDS = 0.5;
+
+    private final GameController controller;
+    private final GameState gameState;
+    private final double levelDuration;
+
+    private double backlog;
+    private double simulatedTime;
+    private long stepsRun;
+    private double droppedSeconds;
+
+    public HeadlessSimulation(GameLevel level) {
+        this.gameState = new GameState();
+        this.controller = new GameController(gameState, true);
+        this.controller.loadForSimulation(level);
+        this.levelDuration = level.getLevelDuration();
+    }
+
+    /**
+     * Adds elapsed wall time and runs the steps that are due, stopping early
+     * once System.nanoTime() passes deadlineNanos. Returns the steps run.
+     */
+    public int advance(double seconds, long deadlineNanos) {
+        if (isFinished()) {
+            backlog = 0;
+            return 0;
+        }
+
+        backlog += Math.max(0.0, seconds);
+        if (backlog > MAX_BACKLOG_SECONDS) {
+            droppedSeconds += backlog - MAX_BACKLOG_SECONDS;
+            backlog = MAX_BACKLOG_SECONDS;
+        }
+
+        int steps = 0;
+        while (backlog >= STEP_SECONDS && !isFinished()) {
+            // At least one step per call, so a tight budget slows the match down but never stalls it
+            if (steps > 0 && java.lang.System.nanoTime() - deadlineNanos > 0) {
+                break;
+            }
+            simulatedTime = controller.stepSimulation(STEP_SECONDS);
+            backlog -= STEP_SECONDS;
+            steps++;
+        }
+        stepsRun += steps;
+        return steps;
+    }
+
+    // The level ran for its full duration or was lost
+    public boolean isFinished() {
+        return simulatedTime >= levelDuration || gameState.shouldEndGame();
+    }
+
+    public double getSimulatedTime() {
+        return simulatedTime;
+    }
+
+    public double getLevelDuration() {
+        return levelDuration;
+    }
+
+    public GameStats getStats() {
+        return gameState.getStats();
+    }
+
+    public int getActivePacketCount() {
+        return gameState.getActivePackets().size();
+    }
+
+    public long getStepsRun() {
+        return stepsRun;
+    }
+
+    // Wall time that was given up because the match could not keep up
+    public double getDroppedSeconds() {
+        return droppedSeconds;
+    }
+}
@@ -54,6 +54,7 @@ public class InputHandler {
         // ESC functionality removed per user request
         // DEFAULT_BINDINGS.put("escape", KeyCode.ESCAPE);
         DEFAULT_BINDINGS.put("toggle_smooth_wires", KeyCode.C); // C for Curves
+        DEFAULT_BINDINGS.put("simulation_speed", KeyCode.T); // T for Turbo
     }
 
     public InputHandler(GameController gameController) {
@@ -232,6 +233,11 @@ public class InputHandler {
                 }
                 break;
             */
+            case "simulation_speed":
+                // Cycle playback speed 1x -> 2x -> 4x -> 8x -> 16x -> 1x
+                int speed = gameController.getSimulationClock().cycleSpeed();
+                java.lang.System.out.println("Simulation speed: " + speed + "x");
+                break;
             case "toggle_smooth_wires":
                 // Toggle smooth wire curves - only allowed in editing mode
                 if (gameController.isEditingMode()) {
@@ -17,6 +17,11 @@ public class MovementController {
     private static final double LONG_WIRE_ACCELERATION_MULTIPLIER = 1.2; // gentler acceleration
     private static final double SPEED_THRESHOLD_FOR_SYSTEM_DAMAGE = 100.0; // pixels/second
 
+    // Scratch values reused every frame so movement updates do not allocate
+    private final Point2D pathPosition = new Point2D();
+    private final Point2D lookAheadPosition = new Point2D();
+    private final Vec2D acceleration = new Vec2D();
+
     public MovementController() {
     }
 
@@ -84,13 +89,15 @@ public class MovementController {
                 packet.setPathProgress(newProgress);
                 packet.updatePositionOnWire(useSmoothCurves);
 
-                // Packet has reached destination - will be handled by wire transfer logic
+                // Packet has reached destination - queue the wire for the transfer phase
+                wire.reportArrival(packet);
                 return;
             }
 
             // Update progress and position
             packet.setPathProgress(newProgress);
             packet.updatePositionOnWire(useSmoothCurves);
+            wire.reportArrival(packet); // Close enough to the port counts as arrived
 
             // Update movement vector for visual effects and collision detection
             updateMovementVectorFromPath(packet, wire, deltaTime, useSmoothCurves);
@@ -109,30 +116,26 @@ public class MovementController {
         double lookAheadDistance = Math.min(0.01, speed * deltaTime / wire.getTotalLength(useSmoothCurves));
         double futureProgress = Math.min(1.0, currentProgress + lookAheadDistance);
 
-        Point2D currentPos = wire.getPositionAtProgress(currentProgress, useSmoothCurves);
-        Point2D futurePos = wire.getPositionAtProgress(futureProgress, useSmoothCurves);
+        Point2D currentPos = wire.getPositionAtProgress(currentProgress, useSmoothCurves, pathPosition);
+        Point2D futurePos = wire.getPositionAtProgress(futureProgress, useSmoothCurves, lookAheadPosition);
 
-        if (currentPos != null && futurePos != null) {
-            Vec2D direction = new Vec2D(
-                    futurePos.getX() - currentPos.getX(),
-                    futurePos.getY() - currentPos.getY()
-            );
+        double directionX = futurePos.getX() - currentPos.getX();
+        double directionY = futurePos.getY() - currentPos.getY();
+        double magnitude = Math.sqrt(directionX * directionX + directionY * directionY);
 
-            if (direction.magnitude() > 0) {
-                Vec2D velocity = direction.normalize().scale(speed);
-                packet.setMovementVector(velocity);
-            }
+        if (magnitude > 0) {
+            packet.setMovementVector(directionX / magnitude * speed, directionY / magnitude * speed);
         }
     }
 
     private void updateFreeMovement(Packet packet, double deltaTime) {
         // Apply acceleration/deceleration for smooth movement
         Vec2D currentVelocity = packet.getMovementVector();
-        Vec2D acceleration = calculateAcceleration(packet);
+        calculateAcceleration(packet, acceleration);
 
         // Update velocity
-        Vec2D newVelocity = currentVelocity.add(acceleration.scale(deltaTime));
-        packet.setMovementVector(newVelocity);
+        packet.setMovementVector(currentVelocity.getX() + acceleration.getX() * deltaTime,
+                currentVelocity.getY() + acceleration.getY() * deltaTime);
 
         // Update position using traditional method
         packet.updatePosition(deltaTime);
@@ -263,7 +266,7 @@ public class MovementController {
         return false;
     }
 
-    private Vec2D calculateAcceleration(Packet packet) {
+    private Vec2D calculateAcceleration(Packet packet, Vec2D dest) {
         Vec2D currentVelocity = packet.getMovementVector();
         double currentSpeed = currentVelocity.magnitude();
         double targetSpeed = calculateTargetSpeed(packet);
@@ -271,18 +274,18 @@ public class MovementController {
         if (currentSpeed < targetSpeed) {
             // Accelerate towards target speed
             if (currentSpeed > 0) {
-                return currentVelocity.normalize().scale(DEFAULT_ACCELERATION);
+                return currentVelocity.scale(DEFAULT_ACCELERATION / currentSpeed, dest);
             } else {
                 // If no current velocity, accelerate in a default direction
-                return new Vec2D(DEFAULT_ACCELERATION, 0);
+                return dest.setXY(DEFAULT_ACCELERATION, 0);
             }
         } else if (currentSpeed > targetSpeed) {
             // Decelerate to target speed
-            return currentVelocity.normalize().scale(-DEFAULT_DECELERATION);
+            return currentVelocity.scale(-DEFAULT_DECELERATION / currentSpeed, dest);
         }
 
         // Maintain current speed
-        return new Vec2D(0, 0);
+        return dest.setXY(0, 0);
     }
 
     public void initializePacketOnWire(Packet packet, WireConnection wire) {
@@ -0,0 +1,309 @@
+package controller;
+
+import model.GameLevel;
+import model.GameState;
+import model.Point2D;
+import model.Port;
+import model.WireBend;
+import model.WireConnection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Predicts how the level being edited will play out. Each request carries a
+ * snapshot of the wiring taken on the FX thread; after a short debounce a
+ * background thread runs a headless fast-forward to the end of the level.
+ * A newer request cancels the pending or running one. A result can still be
+ * overtaken while it is handed to the listener, so listeners publishing it
+ * on another thread check isLatest there before showing it.
+ */
+public class OutcomePredictor {
+    private static final long DEBOUNCE_MILLIS = 400;
+
+    private final ScheduledExecutorService executor;
+    private final AtomicLong latestRequest;
+    private final Consumer<Prediction> listener;
+    private ScheduledFuture<?> pendingRun;
+
+    public OutcomePredictor(Consumer<Prediction> listener) {
+        this.listener = listener;
+        this.latestRequest = new AtomicLong();
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outcome-predictor");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    public synchronized void requestPrediction(LevelSnapshot snapshot) {
+        long requestId = latestRequest.incrementAndGet();
+        if (pendingRun != null) {
+            pendingRun.cancel(true);
+        }
+        pendingRun = executor.schedule(() -> run(snapshot, requestId), DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void cancel() {
+        latestRequest.incrementAndGet();
+        if (pendingRun != null) {
+            pendingRun.cancel(true);
+            pendingRun = null;
+        }
+    }
+
+    // False once a newer request or a cancel() came after the one that produced the prediction
+    public boolean isLatest(Prediction prediction) {
+        return prediction.requestId == latestRequest.get();
+    }
+
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    private void run(LevelSnapshot snapshot, long requestId) {
+        BooleanSupplier stale = () -> latestRequest.get() != requestId || Thread.currentThread().isInterrupted();
+        try {
+            GameController simulator = new GameController(new GameState(), true);
+            Prediction prediction = simulator.predictOutcome(snapshot, stale);
+            if (prediction != null && !stale.getAsBoolean()) {
+                prediction.requestId = requestId;
+                listener.accept(prediction);
+            }
+        } catch (RuntimeException e) {
+            java.lang.System.err.println("Outcome prediction failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cheap fingerprint of everything a snapshot captures, so the editing loop
+     * can tell when the wiring or layout changed without building a snapshot.
+     */
+    public static long wiringSignature(GameLevel level) {
+        if (level == null) return 0;
+
+        long hash = 17;
+        for (model.System system : level.getSystems()) {
+            hash = hash * 31 + pointHash(system.getPosition());
+        }
+        for (WireConnection connection : level.getWireConnections()) {
+            hash = hash * 31 + java.lang.System.identityHashCode(connection);
+            hash = hash * 31 + (connection.isActive() ? 1 : 0);
+            for (WireBend bend : connection.getBends()) {
+                hash = hash * 31 + pointHash(bend.getPosition());
+            }
+        }
+        return hash;
+    }
+
+    private static long pointHash(Point2D point) {
+        if (point == null) return 0;
+        return Double.hashCode(point.getX()) * 31L + Double.hashCode(point.getY());
+    }
+
+    /**
+     * Copy of the editable parts of a level: system and port positions and the
+     * active wires, with ports referred to by index so the snapshot can be
+     * applied to a freshly built copy of the same level.
+     */
+    public static final class LevelSnapshot {
+        private final String levelId;
+        private final int coins;
+        private final boolean smoothWireCurves;
+        private final List<Point2D> systemPositions;
+        private final List<List<Point2D>> inputPortPositions;
+        private final List<List<Point2D>> outputPortPositions;
+        private final List<WireSpec> wires;
+
+        private LevelSnapshot(String levelId, int coins, boolean smoothWireCurves) {
+            this.levelId = levelId;
+            this.coins = coins;
+            this.smoothWireCurves = smoothWireCurves;
+            this.systemPositions = new ArrayList<>();
+            this.inputPortPositions = new ArrayList<>();
+            this.outputPortPositions = new ArrayList<>();
+            this.wires = new ArrayList<>();
+        }
+
+        // Must be called on the thread that owns the game state
+        public static LevelSnapshot capture(GameState gameState) {
+            GameLevel level = gameState.getCurrentLevel();
+            if (level == null || level.getLevelId() == null) return null;
+
+            Object setting = gameState.getGameSettings().get("smoothWireCurves");
+            boolean smooth = !(setting instanceof Boolean) || (Boolean) setting;
+            LevelSnapshot snapshot = new LevelSnapshot(level.getLevelId(), gameState.getCoins(), smooth);
+
+            List<model.System> systems = level.getSystems();
+            for (model.System system : systems) {
+                snapshot.systemPositions.add(copyOf(system.getPosition()));
+                snapshot.inputPortPositions.add(copyPositions(system.getInputPorts()));
+                snapshot.outputPortPositions.add(copyPositions(system.getOutputPorts()));
+            }
+
+            for (WireConnection connection : level.getWireConnections()) {
+                if (!connection.isActive() || connection.isDestroyed()) continue;
+                Port source = connection.getSourcePort();
+                Port destination = connection.getDestinationPort();
+                if (source == null || destination == null) continue;
+
+                int sourceSystem = systems.indexOf(source.getParentSystem());
+                int destinationSystem = systems.indexOf(destination.getParentSystem());
+                if (sourceSystem < 0 || destinationSystem < 0) continue;
+
+                List<WireBend> bends = new ArrayList<>();
+                for (WireBend bend : connection.getBends()) {
+                    bends.add(new WireBend(copyOf(bend.getPosition()), bend.getMaxMoveRadius()));
+                }
+                snapshot.wires.add(new WireSpec(
+                        sourceSystem, indexOfPort(systems.get(sourceSystem).getOutputPorts(), source),
+                        destinationSystem, indexOfPort(systems.get(destinationSystem).getInputPorts(), destination),
+                        connection.getWireLength(), bends));
+            }
+            return snapshot;
+        }
+
+        /**
+         * Moves the level's systems and ports to the captured positions and
+         * recreates the captured wires on it. The level must have been built
+         * from the same level id.
+         */
+        void applyTo(GameLevel level) {
+            List<model.System> systems = level.getSystems();
+            for (int i = 0; i < systems.size() && i < systemPositions.size(); i++) {
+                model.System system = systems.get(i);
+                system.setPosition(copyOf(systemPositions.get(i)));
+                applyPositions(system.getInputPorts(), inputPortPositions.get(i));
+                applyPositions(system.getOutputPorts(), outputPortPositions.get(i));
+            }
+
+            List<WireConnection> connections = new ArrayList<>();
+            for (WireSpec wire : wires) {
+                Port source = portAt(systems, wire.sourceSystem, wire.sourcePort, false);
+                Port destination = portAt(systems, wire.destinationSystem, wire.destinationPort, true);
+                if (source == null || destination == null) continue;
+
+                WireConnection connection = new WireConnection(source, destination, wire.wireLength);
+                List<WireBend> bends = new ArrayList<>();
+                for (WireBend bend : wire.bends) {
+                    bends.add(new WireBend(copyOf(bend.getPosition()), bend.getMaxMoveRadius()));
+                }
+                connection.setBends(bends);
+                connections.add(connection);
+            }
+            level.setWireConnections(connections);
+        }
+
+        public String getLevelId() {
+            return levelId;
+        }
+
+        public int getCoins() {
+            return coins;
+        }
+
+        public boolean isSmoothWireCurves() {
+            return smoothWireCurves;
+        }
+
+        private static Port portAt(List<model.System> systems, int systemIndex, int portIndex, boolean input) {
+            if (systemIndex < 0 || systemIndex >= systems.size() || portIndex < 0) return null;
+            List<Port> ports = input ? systems.get(systemIndex).getInputPorts() : systems.get(systemIndex).getOutputPorts();
+            return portIndex < ports.size() ? ports.get(portIndex) : null;
+        }
+
+        // Port.equals compares by value, the snapshot needs the exact instance
+        private static int indexOfPort(List<Port> ports, Port port) {
+            for (int i = 0; i < ports.size(); i++) {
+                if (ports.get(i) == port) return i;
+            }
+            return -1;
+        }
+
+        private static List<Point2D> copyPositions(List<Port> ports) {
+            List<Point2D> positions = new ArrayList<>(ports.size());
+            for (Port port : ports) {
+                positions.add(copyOf(port.getPosition()));
+            }
+            return positions;
+        }
+
+        private static void applyPositions(List<Port> ports, List<Point2D> positions) {
+            for (int i = 0; i < ports.size() && i < positions.size(); i++) {
+                ports.get(i).setPosition(copyOf(positions.get(i)));
+            }
+        }
+
+        private static Point2D copyOf(Point2D point) {
+            return point != null ? new Point2D(point.getX(), point.getY()) : null;
+        }
+    }
+
+    private static final class WireSpec {
+        private final int sourceSystem;
+        private final int sourcePort;
+        private final int destinationSystem;
+        private final int destinationPort;
+        private final double wireLength;
+        private final List<WireBend> bends;
+
+        private WireSpec(int sourceSystem, int sourcePort, int destinationSystem, int destinationPort,
+                         double wireLength, List<WireBend> bends) {
+            this.sourceSystem = sourceSystem;
+            this.sourcePort = sourcePort;
+            this.destinationSystem = destinationSystem;
+            this.destinationPort = destinationPort;
+            this.wireLength = wireLength;
+            this.bends = bends;
+        }
+    }
+
+    /**
+     * Result of a headless run to the end of the level.
+     */
+    public static final class Prediction {
+        private final double packetLossPercentage;
+        private final int deliveredPackets;
+        private final int lostPackets;
+        private final int coins;
+        private final boolean passed;
+        private long requestId;
+
+        Prediction(double packetLossPercentage, int deliveredPackets, int lostPackets, int coins, boolean passed) {
+            this.packetLossPercentage = packetLossPercentage;
+            this.deliveredPackets = deliveredPackets;
+            this.lostPackets = lostPackets;
+            this.coins = coins;
+            this.passed = passed;
+        }
+
+        public double getPacketLossPercentage() {
+            return packetLossPercentage;
+        }
+
+        public int getDeliveredPackets() {
+            return deliveredPackets;
+        }
+
+        public int getLostPackets() {
+            return lostPackets;
+        }
+
+        public int getCoins() {
+            return coins;
+        }
+
+        public boolean isPassed() {
+            return passed;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package controller;
+
+/**
+ * Drives the live simulation at a selectable playback speed. At 1x a frame
+ * advances the simulation by the frame time, as before. At higher speeds the
+ * frame time is multiplied and split into fixed substeps, so packet movement
+ * and collision checks keep the same resolution they have at 1x.
+ *
+ * Substeps only run while the frame's CPU budget lasts. Simulated time that
+ * does not fit in the budget is dropped instead of carried over, so an
+ * overloaded machine plays back slower rather than falling further behind.
+ */
+public class SimulationClock {
+    public static final int[] SPEEDS = {1, 2, 4, 8, 16};
+
+    private static final double SUBSTEP_SECONDS = 1.0 / 60.0;
+    private static final double MAX_FRAME_SECONDS = 0.1;
+    private static final long FRAME_BUDGET_NANOS = 10_000_000L;
+    private static final double EFFECTIVE_SPEED_SMOOTHING = 0.1;
+
+    private int speed;
+    private double accumulator;
+    private double effectiveSpeed;
+
+    public SimulationClock() {
+        this.speed = 1;
+        this.effectiveSpeed = 1.0;
+    }
+
+    public interface Step {
+        // Returns false when the simulation stopped and no more steps should run
+        boolean run(double deltaTime);
+    }
+
+    /**
+     * Advances the simulation for one rendered frame.
+     */
+    public void advance(double frameSeconds, Step step) {
+        if (frameSeconds <= 0) return;
+
+        if (speed == 1) {
+            step.run(frameSeconds);
+            accumulator = 0;
+            effectiveSpeed = 1.0;
+            return;
+        }
+
+        double frame = Math.min(frameSeconds, MAX_FRAME_SECONDS);
+        accumulator += frame * speed;
+
+        long start = java.lang.System.nanoTime();
+        double simulated = 0;
+        while (accumulator >= SUBSTEP_SECONDS) {
+            if (java.lang.System.nanoTime() - start > FRAME_BUDGET_NANOS) {
+                accumulator = 0; // Over budget: let the simulation fall behind the requested speed
+                break;
+            }
+            accumulator -= SUBSTEP_SECONDS;
+            simulated += SUBSTEP_SECONDS;
+            if (!step.run(SUBSTEP_SECONDS)) {
+                accumulator = 0;
+                break;
+            }
+        }
+
+        double frameSpeed = simulated / frame;
+        effectiveSpeed += (frameSpeed - effectiveSpeed) * EFFECTIVE_SPEED_SMOOTHING;
+    }
+
+    public int getSpeed() {
+        return speed;
+    }
+
+    public void setSpeed(int speed) {
+        this.speed = Math.max(1, speed);
+        this.accumulator = 0;
+        this.effectiveSpeed = this.speed;
+    }
+
+    public int cycleSpeed() {
+        int next = SPEEDS[0];
+        for (int i = 0; i < SPEEDS.length; i++) {
+            if (SPEEDS[i] == speed) {
+                next = SPEEDS[(i + 1) % SPEEDS.length];
+                break;
+            }
+        }
+        setSpeed(next);
+        return next;
+    }
+
+    public double getEffectiveSpeed() {
+        return effectiveSpeed;
+    }
+
+    // True while the requested speed is noticeably more than what the budget allows
+    public boolean isThrottled() {
+        return speed > 1 && effectiveSpeed < speed * 0.9;
+    }
+
+    public void reset() {
+        accumulator = 0;
+        effectiveSpeed = speed;
+    }
+}
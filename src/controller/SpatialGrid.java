@@ -0,0 +1,182 @@
+package controller;
+
+import model.PacketStore;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Uniform grid over the packets of a PacketStore, rebuilt every check
+ * without allocating: packet ids are counting-sorted by cell into one flat
+ * array, and a prefix-sum array tells where each cell's ids start. The grid
+ * covers the cells the packets occupy, at most MAX_AXIS_CELLS per axis;
+ * packets further out are counted in the border cells, which only adds
+ * candidates and never hides a neighbour.
+ */
+public class SpatialGrid {
+    private static final int MAX_AXIS_CELLS = 256;
+
+    private final double cellSize;
+    private int originX;
+    private int originY;
+    private int columns;
+    private int rows;
+    private int[] cellStart = new int[2];  // Cell -> first index into cellIds; cellStart[cell + 1] ends it
+    private int[] cellIds = new int[64];   // Packet ids grouped by cell, ascending within a cell
+    private int[] cellOf = new int[64];    // Packet id -> cell, or -1 when not in the grid
+
+    public SpatialGrid(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    public void rebuild(PacketStore store) {
+        int count = store.size();
+        if (cellOf.length < count) {
+            cellOf = new int[Math.max(count, cellOf.length * 2)];
+            cellIds = new int[cellOf.length];
+        }
+
+        // Bounds of the occupied cells
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (int id = 0; id < count; id++) {
+            if (!store.isActive(id) || !store.hasPosition(id)) continue;
+            int cellX = cellCoordinate(store.getX(id));
+            int cellY = cellCoordinate(store.getY(id));
+            minX = Math.min(minX, cellX);
+            minY = Math.min(minY, cellY);
+            maxX = Math.max(maxX, cellX);
+            maxY = Math.max(maxY, cellY);
+        }
+        if (minX > maxX) {
+            columns = 0;
+            rows = 0;
+            Arrays.fill(cellOf, 0, count, -1);
+            return;
+        }
+        originX = minX;
+        originY = minY;
+        columns = (int) Math.min((long) maxX - minX + 1, MAX_AXIS_CELLS);
+        rows = (int) Math.min((long) maxY - minY + 1, MAX_AXIS_CELLS);
+
+        int cells = columns * rows;
+        if (cellStart.length < cells + 1) {
+            cellStart = new int[Math.max(cells + 1, cellStart.length * 2)];
+        }
+        Arrays.fill(cellStart, 0, cells + 1, 0);
+
+        // Count per cell, shifted by one so the prefix sum yields start offsets
+        for (int id = 0; id < count; id++) {
+            if (!store.isActive(id) || !store.hasPosition(id)) {
+                cellOf[id] = -1;
+                continue;
+            }
+            int cell = cellIndex(column(store.getX(id)), row(store.getY(id)));
+            cellOf[id] = cell;
+            cellStart[cell + 1]++;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+
+        // Place ids in ascending order, using the start offsets as moving cursors
+        for (int id = 0; id < count; id++) {
+            int cell = cellOf[id];
+            if (cell >= 0) {
+                cellIds[cellStart[cell]++] = id;
+            }
+        }
+        // The cursors now point at each cell's end, i.e. the next cell's start; shift them back
+        for (int cell = cells; cell > 0; cell--) {
+            cellStart[cell] = cellStart[cell - 1];
+        }
+        cellStart[0] = 0;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public boolean isEmpty() {
+        return columns == 0;
+    }
+
+    // Packets in the cell containing (x, y) and the 8 cells around it
+    public void forEachNeighbor(double x, double y, IntConsumer consumer) {
+        if (isEmpty()) return;
+
+        int column = column(x);
+        int row = row(y);
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                int neighbourColumn = column + dx;
+                int neighbourRow = row + dy;
+                if (neighbourColumn < 0 || neighbourColumn >= columns || neighbourRow < 0 || neighbourRow >= rows) continue;
+
+                int cell = cellIndex(neighbourColumn, neighbourRow);
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    consumer.accept(cellIds[i]);
+                }
+            }
+        }
+    }
+
+    public void forEachCandidatePair(int column, int row, PairConsumer consumer) {
+        int cell = cellIndex(column, row);
+        for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+            int index1 = cellIds[i];
+
+            // Check center cell and 8 neighboring cells
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    int neighbourColumn = column + dx;
+                    int neighbourRow = row + dy;
+                    if (neighbourColumn < 0 || neighbourColumn >= columns || neighbourRow < 0 || neighbourRow >= rows) continue;
+
+                    int neighbour = cellIndex(neighbourColumn, neighbourRow);
+                    for (int j = cellStart[neighbour]; j < cellStart[neighbour + 1]; j++) {
+                        int index2 = cellIds[j];
+                        // Each pair is reported once, by the packet that comes first
+                        if (index2 > index1) {
+                            consumer.accept(index1, index2);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public void forEachCandidatePair(PairConsumer consumer) {
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                forEachCandidatePair(column, row, consumer);
+            }
+        }
+    }
+
+    private int cellCoordinate(double position) {
+        return (int) Math.floor(position / cellSize);
+    }
+
+    // Column and row inside the grid, clamped to its border
+    private int column(double x) {
+        return (int) Math.max(0, Math.min((long) cellCoordinate(x) - originX, columns - 1));
+    }
+
+    private int row(double y) {
+        return (int) Math.max(0, Math.min((long) cellCoordinate(y) - originY, rows - 1));
+    }
+
+    private int cellIndex(int column, int row) {
+        return row * columns + column;
+    }
+
+    @FunctionalInterface
+    public interface PairConsumer {
+        void accept(int first, int second);
+    }
+}
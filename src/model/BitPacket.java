@@ -22,6 +22,14 @@ public class BitPacket extends Packet {
         this.colorIndex = colorIndex;
     }
 
+    @Override
+    protected void reset(PacketType packetType, Point2D currentPosition, Vec2D movementVector) {
+        super.reset(PacketType.BIT_PACKET, currentPosition, movementVector);
+        setSize(1);
+        this.parentBulkPacketId = null;
+        this.colorIndex = 0;
+    }
+
     @Override
     @JsonIgnore
     public int getCoinValue() {
@@ -20,6 +20,12 @@ public class BulkPacket extends Packet {
         this.wirePassageCount = 0;
     }
 
+    @Override
+    protected void reset(PacketType packetType, Point2D currentPosition, Vec2D movementVector) {
+        super.reset(packetType, currentPosition, movementVector);
+        this.wirePassageCount = 0;
+    }
+
     @Override
     @JsonIgnore
     public int getCoinValue() {
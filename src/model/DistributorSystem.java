@@ -51,7 +51,7 @@ public class DistributorSystem extends System {
                 }
             }
             if (!toRemove.isEmpty()) {
-                getStorage().removeAll(toRemove);
+                unstorePackets(toRemove);
             }
             
             // Also destroy packets in input ports
@@ -82,7 +82,7 @@ public class DistributorSystem extends System {
             
             // Add bit packets to storage for processing
             for (Packet bitPacket : bitPackets) {
-                getStorage().add(bitPacket);
+                storePacket(bitPacket);
             }
             
             // For DistributorSystem, we don't have entry port info, so use random selection
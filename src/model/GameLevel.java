@@ -6,6 +6,8 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Collections;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class GameLevel {
@@ -20,6 +22,18 @@ public class GameLevel {
     private List<PacketInjection> packetSchedule; // Preferred JSON format: direct list
     private List<String> connectionRules;
     private boolean isCompleted;
+    @JsonIgnore
+    private int deliveredPacketCount; // Sum of the reference systems' delivery counts
+    // Wires with a packet waiting on their source port or arrived at their destination
+    @JsonIgnore
+    private final List<WireConnection> pendingWireTransfers = new ArrayList<>();
+    @JsonIgnore
+    private Map<Port, List<WireConnection>> outgoingWires; // Source port -> wires, rebuilt lazily
+    @JsonIgnore
+    private int indexedWireCount;
+    // Systems with packets in ports or storage, or a running deactivation timer
+    @JsonIgnore
+    private final List<System> pendingSystemUpdates = new ArrayList<>();
 
     public GameLevel() {
         this.systems = new ArrayList<>();
@@ -142,6 +156,9 @@ public class GameLevel {
 
     public void setWireConnections(List<WireConnection> wireConnections) {
         this.wireConnections = wireConnections;
+        invalidateWireIndex();
+        clearPendingWireTransfers();
+        queueAllWireTransfers();
     }
 
     public Map<Double, List<Packet>> getPacketInjectionSchedule() {
@@ -168,6 +185,41 @@ public class GameLevel {
         isCompleted = completed;
     }
 
+    // System update worklist: idle systems are left off and skipped by the per-tick phases
+    public void queueSystemUpdate(System system) {
+        if (system != null && !system.isUpdateQueued()) {
+            system.setUpdateQueued(true);
+            pendingSystemUpdates.add(system);
+        }
+    }
+
+    public void queueAllSystemUpdates() {
+        if (systems == null) return;
+        for (System system : systems) {
+            queueSystemUpdate(system);
+        }
+    }
+
+    /**
+     * Live view of the worklist. Systems queued while it is being walked by
+     * index are appended and visited in the same pass.
+     */
+    @JsonIgnore
+    public List<System> getPendingSystemUpdates() {
+        return Collections.unmodifiableList(pendingSystemUpdates);
+    }
+
+    // Drops systems that ran out of work; they are queued again by the next port, storage or timer event
+    public void prunePendingSystemUpdates() {
+        pendingSystemUpdates.removeIf(system -> {
+            if (system.hasPendingWork()) {
+                return false;
+            }
+            system.setUpdateQueued(false);
+            return true;
+        });
+    }
+
     public void addSystem(System system) {
         system.setParentLevel(this);
         // Ensure ports are bound back to this system
@@ -193,15 +245,85 @@ public class GameLevel {
     public void addWireConnection(WireConnection connection) {
         if (connection != null) {
             wireConnections.add(connection);
+            invalidateWireIndex();
+            // A packet may already be waiting on the new wire's source port
+            queueWireTransfer(connection);
         }
     }
 
     public void removeWireConnection(WireConnection connection) {
         if (connection != null) {
             wireConnections.remove(connection);
+            invalidateWireIndex();
+            if (pendingWireTransfers.remove(connection)) {
+                connection.setTransferQueued(false);
+            }
         }
     }
 
+    @JsonIgnore
+    public List<WireConnection> getOutgoingWires(Port port) {
+        if (outgoingWires == null || (wireConnections != null && indexedWireCount != wireConnections.size())) {
+            rebuildWireIndex();
+        }
+        List<WireConnection> wires = outgoingWires.get(port);
+        return wires != null ? wires : Collections.emptyList();
+    }
+
+    public void invalidateWireIndex() {
+        outgoingWires = null;
+    }
+
+    private void rebuildWireIndex() {
+        outgoingWires = new IdentityHashMap<>();
+        if (wireConnections == null) return;
+        for (WireConnection connection : wireConnections) {
+            Port source = connection.getSourcePort();
+            if (source != null) {
+                outgoingWires.computeIfAbsent(source, k -> new ArrayList<>(1)).add(connection);
+            }
+        }
+        indexedWireCount = wireConnections.size();
+    }
+
+    // Wire transfer events: ports report packets waiting to leave, wires report arrivals
+    public void queueWireTransfer(WireConnection connection) {
+        if (connection != null && !connection.isTransferQueued()) {
+            connection.setTransferQueued(true);
+            pendingWireTransfers.add(connection);
+        }
+    }
+
+    public void queueOutgoingWireTransfers(Port port) {
+        for (WireConnection connection : getOutgoingWires(port)) {
+            queueWireTransfer(connection);
+        }
+    }
+
+    public void queueAllWireTransfers() {
+        if (wireConnections == null) return;
+        for (WireConnection connection : wireConnections) {
+            queueWireTransfer(connection);
+        }
+    }
+
+    /**
+     * Hands the queued wires to the caller in the order they were queued and
+     * empties the queue. Wires that still have work must be queued again.
+     */
+    public List<WireConnection> drainPendingWireTransfers() {
+        List<WireConnection> drained = new ArrayList<>(pendingWireTransfers);
+        clearPendingWireTransfers();
+        return drained;
+    }
+
+    public void clearPendingWireTransfers() {
+        for (WireConnection connection : pendingWireTransfers) {
+            connection.setTransferQueued(false);
+        }
+        pendingWireTransfers.clear();
+    }
+
     public boolean hasWireConnection(Port port1, Port port2) {
         for (WireConnection connection : wireConnections) {
             if (connection.isActive()) {
@@ -323,6 +445,16 @@ public class GameLevel {
         return referenceSystems;
     }
 
+    @JsonIgnore
+    public int getDeliveredPacketCount() {
+        return deliveredPacketCount;
+    }
+
+    // Called by reference systems whenever their own delivery count changes
+    void adjustDeliveredPacketCount(int delta) {
+        deliveredPacketCount += delta;
+    }
+
     @JsonIgnore
     public List<ReferenceSystem> getSourceSystems() {
         List<ReferenceSystem> sourceSystems = new ArrayList<>();
@@ -1,5 +1,6 @@
 package model;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
@@ -31,7 +32,7 @@ public class GameState {
     private double temporalProgress;
     private double packetLoss;
     private int coins;
-    private List<Packet> activePackets;
+    private IndexedPacketSet activePackets; // O(1) add, contains and swap-remove
     private GameLevel currentLevel;
     private double levelTimer;
     private boolean isPaused;
@@ -40,6 +41,9 @@ public class GameState {
     @JsonIgnore // avoid serializing arbitrary objects like AWT geometry causing recursion
     private Map<String, Object> gameSettings;
     private int lostPacketsCount;
+    private int injectedPacketsCount;
+    @JsonIgnore
+    private GameStats stats; // Last snapshot handed out, rebuilt only when a counter changes
     // Controls whether system indicators are displayed at all (toggled by I key)
     private boolean showSystemIndicators;
     // Tracks the most recent game over reason for UI display
@@ -49,13 +53,14 @@ public class GameState {
     private LevelStartState levelStartState;
 
     public GameState() {
-        this.activePackets = new ArrayList<>();
+        this.activePackets = new IndexedPacketSet();
         this.gameSettings = new HashMap<>();
         this.isPaused = false;
         this.isGameOver = false;
         this.isLevelComplete = false;
         this.levelTimer = 0.0;
         this.lostPacketsCount = 0;
+        this.injectedPacketsCount = 0;
         this.coins = 20;
         this.showSystemIndicators = true; // Indicators are always ON
         // Default settings
@@ -72,6 +77,7 @@ public class GameState {
         this.packetLoss = 0.0;
         this.coins = 20;
         this.lostPacketsCount = 0;
+        this.injectedPacketsCount = 0;
         this.showSystemIndicators = true;
         this.lastGameOverReason = GameOverReason.NONE;
     }
@@ -113,7 +119,11 @@ public class GameState {
     }
 
     public void setActivePackets(List<Packet> activePackets) {
-        this.activePackets = activePackets;
+        if (activePackets == this.activePackets) return;
+        this.activePackets.clear();
+        if (activePackets != null) {
+            this.activePackets.addAll(activePackets);
+        }
     }
 
     public GameLevel getCurrentLevel() {
@@ -177,7 +187,9 @@ public class GameState {
         this.lostPacketsCount++;
     }
 
-
+    public void incrementInjectedPackets() {
+        this.injectedPacketsCount++;
+    }
 
     public int getLostPacketsCount() {
         return lostPacketsCount;
@@ -187,6 +199,30 @@ public class GameState {
         this.lostPacketsCount = lostPacketsCount;
     }
 
+    public int getInjectedPacketsCount() {
+        return injectedPacketsCount;
+    }
+
+    public void setInjectedPacketsCount(int injectedPacketsCount) {
+        this.injectedPacketsCount = injectedPacketsCount;
+    }
+
+    /**
+     * Returns the packet counters as an immutable snapshot. The same instance is
+     * returned until one of the counters changes.
+     */
+    @JsonIgnore
+    public GameStats getStats() {
+        if (currentLevel == null) return GameStats.EMPTY;
+
+        int scheduled = getTotalInjectedPackets();
+        int delivered = currentLevel.getDeliveredPacketCount();
+        if (stats == null || !stats.matches(scheduled, injectedPacketsCount, delivered, lostPacketsCount)) {
+            stats = new GameStats(scheduled, injectedPacketsCount, delivered, lostPacketsCount);
+        }
+        return stats;
+    }
+
     public boolean isShowSystemIndicators() {
         return showSystemIndicators;
     }
@@ -203,6 +239,10 @@ public class GameState {
         activePackets.remove(packet);
     }
 
+    public void removeActivePackets(Collection<Packet> packets) {
+        activePackets.removeAll(packets);
+    }
+
     @JsonIgnore
     public int getActivePacketCount() {
         return activePackets.size();
@@ -247,26 +287,12 @@ public class GameState {
     }
 
     public double calculatePacketLossPercentage() {
-        if (currentLevel == null) return 0.0;
-
-        int totalInjected = getTotalInjectedPackets();
-        int totalLost = getTotalLostPackets();
-
-        if (totalInjected == 0) return 0.0;
-
-        return (double) totalLost / totalInjected * 100.0;
+        return getStats().getPacketLossPercentage();
     }
 
     // Final loss calculation based on delivered vs injected, used at end of level/game
     public double calculateFinalPacketLossPercentage() {
-        if (currentLevel == null) return 0.0;
-
-        int totalInjected = getTotalInjectedPackets();
-        int totalDelivered = getTotalDeliveredPackets();
-        if (totalInjected == 0) return 0.0;
-
-        int notDelivered = Math.max(0, totalInjected - totalDelivered);
-        return (notDelivered * 100.0) / totalInjected;
+        return getStats().getFinalPacketLossPercentage();
     }
 
     public int getTotalInjectedPackets() {
@@ -286,30 +312,8 @@ public class GameState {
     }
 
     public int getTotalLostPackets() {
-        int lost = lostPacketsCount;
-        
-        // Count lost packets from active packets
-        for (Packet packet : activePackets) {
-            if (!packet.isActive() && packet.isLost()) {
-                lost++;
-            }
-        }
-        
-        // Count lost packets from all systems (including spy systems)
-        if (currentLevel != null) {
-            for (model.System system : currentLevel.getSystems()) {
-                if (system instanceof SpySystem) {
-                    // Spy systems destroy confidential packets
-                    for (Packet packet : system.getStorage()) {
-                        if (!packet.isActive() && packet.isLost()) {
-                            lost++;
-                        }
-                    }
-                }
-            }
-        }
-        
-        return lost;
+        // Every loss is counted through incrementLostPackets when the packet is removed
+        return lostPacketsCount;
     }
 
 
@@ -321,26 +325,21 @@ public class GameState {
 
 
     public int getTotalDeliveredPackets() {
-        int delivered = 0;
-        for (ReferenceSystem destSystem : currentLevel.getDestinationSystems()) {
-            delivered += destSystem.getReceivedPacketCount();
-        }
-        return delivered;
+        return currentLevel != null ? currentLevel.getDeliveredPacketCount() : 0;
     }
 
     public boolean shouldEndGame() {
+        GameStats snapshot = getStats();
+
         // Primary rule: excessive loss triggers Game Over
-        boolean tooManyLost = calculatePacketLossPercentage() > 50.0;
+        boolean tooManyLost = snapshot.getPacketLossPercentage() > 50.0;
 
         // Time limit rule: if level duration exceeded, check delivery rate
         boolean timeExceeded = false;
         if (currentLevel != null && levelTimer > currentLevel.getLevelDuration()) {
             // Calculate delivery success rate
-            int totalInjected = getTotalInjectedPackets();
-            int totalDelivered = getTotalDeliveredPackets();
-            
-            if (totalInjected > 0) {
-                double deliveryRate = (double) totalDelivered / totalInjected;
+            if (snapshot.getScheduledPackets() > 0) {
+                double deliveryRate = snapshot.getDeliveryRate();
                 // Game Over only if less than 50% of packets were delivered
                 if (deliveryRate < 0.5) {
                     timeExceeded = true;
@@ -493,6 +492,7 @@ public class GameState {
         this.isGameOver = false;
         this.isLevelComplete = false;
         this.lostPacketsCount = 0;
+        this.injectedPacketsCount = 0;
         this.showSystemIndicators = true; // Indicators are always ON
     }
 
@@ -507,6 +507,7 @@ public class GameState {
             this.remainingWireLength = levelStartState.getRemainingWireLength();
         } else {
         }
+        this.injectedPacketsCount = 0;
         
         // Reset other level-specific state
         this.packetLoss = 0.0;
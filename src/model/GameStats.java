@@ -0,0 +1,70 @@
+package model;
+
+/**
+ * Immutable snapshot of the packet counters kept by GameState. The counters are
+ * updated when packets are injected, delivered or lost, so taking a snapshot
+ * and reading percentages from it does not walk any systems or packet lists.
+ */
+public final class GameStats {
+    public static final GameStats EMPTY = new GameStats(0, 0, 0, 0);
+
+    private final int scheduledPackets;
+    private final int injectedPackets;
+    private final int deliveredPackets;
+    private final int lostPackets;
+
+    public GameStats(int scheduledPackets, int injectedPackets, int deliveredPackets, int lostPackets) {
+        this.scheduledPackets = scheduledPackets;
+        this.injectedPackets = injectedPackets;
+        this.deliveredPackets = deliveredPackets;
+        this.lostPackets = lostPackets;
+    }
+
+    public int getScheduledPackets() {
+        return scheduledPackets;
+    }
+
+    public int getInjectedPackets() {
+        return injectedPackets;
+    }
+
+    public int getDeliveredPackets() {
+        return deliveredPackets;
+    }
+
+    public int getLostPackets() {
+        return lostPackets;
+    }
+
+    // Loss is measured against the whole schedule, matching the level rules
+    public double getPacketLossPercentage() {
+        if (scheduledPackets == 0) return 0.0;
+        return (double) lostPackets / scheduledPackets * 100.0;
+    }
+
+    public double getFinalPacketLossPercentage() {
+        if (scheduledPackets == 0) return 0.0;
+        int notDelivered = Math.max(0, scheduledPackets - deliveredPackets);
+        return (notDelivered * 100.0) / scheduledPackets;
+    }
+
+    public double getDeliveryRate() {
+        if (scheduledPackets == 0) return 0.0;
+        return (double) deliveredPackets / scheduledPackets;
+    }
+
+    boolean matches(int scheduled, int injected, int delivered, int lost) {
+        return scheduledPackets == scheduled && injectedPackets == injected
+                && deliveredPackets == delivered && lostPackets == lost;
+    }
+
+    @Override
+    public String toString() {
+        return "GameStats{" +
+                "scheduled=" + scheduledPackets +
+                ", injected=" + injectedPackets +
+                ", delivered=" + deliveredPackets +
+                ", lost=" + lostPackets +
+                '}';
+    }
+}
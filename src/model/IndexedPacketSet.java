@@ -0,0 +1,161 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * List of packets with set semantics and O(1) membership and removal. Each
+ * packet remembers which set holds it and at which index; removal swaps the
+ * last packet into the freed slot, so iteration order is not preserved.
+ * A packet can belong to only one set at a time; adding it to a second one
+ * throws. Setting a member at another index swaps the two packets, which is
+ * what List.sort and Collections.swap rely on when they rearrange elements.
+ */
+public class IndexedPacketSet extends AbstractList<Packet> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Packet[] packets;
+    private int count;
+
+    public IndexedPacketSet() {
+        this.packets = new Packet[INITIAL_CAPACITY];
+        this.count = 0;
+    }
+
+    @Override
+    public Packet get(int index) {
+        Objects.checkIndex(index, count);
+        return packets[index];
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public boolean add(Packet packet) {
+        if (packet == null || contains(packet)) {
+            return false;
+        }
+        checkNotInOtherSet(packet);
+        if (count == packets.length) {
+            packets = java.util.Arrays.copyOf(packets, count * 2);
+        }
+        packets[count] = packet;
+        packet.setIndexedSlot(this, count);
+        count++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public Packet set(int index, Packet packet) {
+        Objects.checkIndex(index, count);
+        Objects.requireNonNull(packet);
+        Packet previous = packets[index];
+        if (previous == packet) {
+            return previous;
+        }
+
+        int current = indexOf(packet);
+        if (current >= 0) {
+            // Already a member elsewhere: the previous packet takes its old slot
+            packets[current] = previous;
+            previous.setIndexedSlot(this, current);
+        } else {
+            checkNotInOtherSet(packet);
+            previous.clearIndexedSlot(this);
+        }
+        packets[index] = packet;
+        packet.setIndexedSlot(this, index);
+        return previous;
+    }
+
+    private void checkNotInOtherSet(Packet packet) {
+        if (packet.getIndexedSet() != null && packet.getIndexedSet() != this) {
+            throw new IllegalStateException("Packet already belongs to another set");
+        }
+    }
+
+    @Override
+    public Packet remove(int index) {
+        Objects.checkIndex(index, count);
+        Packet removed = packets[index];
+        removed.clearIndexedSlot(this);
+
+        int last = --count;
+        if (index != last) {
+            packets[index] = packets[last];
+            packets[index].setIndexedSlot(this, index);
+        }
+        packets[last] = null;
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public boolean remove(Object object) {
+        int index = indexOf(object);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> collection) {
+        boolean changed = false;
+        for (Object object : collection) {
+            changed |= remove(object);
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Packet> filter) {
+        boolean changed = false;
+        int index = 0;
+        while (index < count) {
+            if (filter.test(packets[index])) {
+                remove(index); // The last packet moves into this slot, so test the same index again
+                changed = true;
+            } else {
+                index++;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        return indexOf(object) >= 0;
+    }
+
+    @Override
+    public int indexOf(Object object) {
+        if (!(object instanceof Packet)) {
+            return -1;
+        }
+        Packet packet = (Packet) object;
+        return packet.getIndexedSet() == this ? packet.getIndexedSlot() : -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object object) {
+        return indexOf(object);
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < count; i++) {
+            packets[i].clearIndexedSlot(this);
+            packets[i] = null;
+        }
+        count = 0;
+        modCount++;
+    }
+}
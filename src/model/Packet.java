@@ -1,14 +1,17 @@
 package model;
 
-import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 public abstract class Packet {
+    private static final AtomicLong NEXT_SERIAL = new AtomicLong(1);
+
     private int size;
     private double noiseLevel;
     private Point2D currentPosition;
     private Vec2D movementVector;
-    private String id;
+    private long serial; // Dense id used by simulation code
+    private String id; // UUID, created on first use for saves and the network
     private boolean isActive;
     // Tracks explicit loss events (e.g., off-wire) to differentiate from deliveries
     private boolean wasLost;
@@ -33,9 +36,18 @@ public abstract class Packet {
     private boolean processedByReferenceSystem;
     // Owner player ID for multiplayer games
     private String ownerId;
+    // Pool bookkeeping: the type this packet was acquired as, and whether it sits on a free list
+    private PacketType pooledType;
+    private boolean inPool;
+    // Slot in the IndexedPacketSet (the active-packet set) that currently holds this packet
+    private IndexedPacketSet indexedSet;
+    private int indexedSlot = -1;
+    // The port and the system storage currently holding this packet, so the pool can tell it is still in use
+    private Port heldByPort;
+    private System storedBy;
 
     public Packet() {
-        this.id = java.util.UUID.randomUUID().toString();
+        this.serial = NEXT_SERIAL.getAndIncrement();
         this.isActive = true;
         this.currentPosition = new Point2D();
         this.movementVector = new Vec2D();
@@ -58,16 +70,16 @@ public abstract class Packet {
         this();
         this.size = size;
         this.noiseLevel = noiseLevel;
-        this.currentPosition = currentPosition;
-        this.movementVector = movementVector;
+        this.currentPosition = copyInto(this.currentPosition, currentPosition);
+        this.movementVector = copyInto(this.movementVector, movementVector);
     }
 
     public Packet(PacketType packetType, Point2D currentPosition, Vec2D movementVector) {
         this();
         this.packetType = packetType;
         this.size = packetType.getBaseSize();
-        this.currentPosition = currentPosition;
-        this.movementVector = movementVector;
+        this.currentPosition = copyInto(this.currentPosition, currentPosition);
+        this.movementVector = copyInto(this.movementVector, movementVector);
         this.noiseLevel = 0.0;
     }
 
@@ -92,7 +104,15 @@ public abstract class Packet {
     }
 
     public void setCurrentPosition(Point2D currentPosition) {
-        this.currentPosition = currentPosition;
+        this.currentPosition = copyInto(this.currentPosition, currentPosition);
+    }
+
+    public void setCurrentPosition(double x, double y) {
+        if (currentPosition == null) {
+            currentPosition = new Point2D(x, y);
+        } else {
+            currentPosition.setXY(x, y);
+        }
     }
 
     public Vec2D getMovementVector() {
@@ -100,13 +120,41 @@ public abstract class Packet {
     }
 
     public void setMovementVector(Vec2D movementVector) {
-        this.movementVector = movementVector;
+        this.movementVector = copyInto(this.movementVector, movementVector);
+    }
+
+    public void setMovementVector(double x, double y) {
+        if (movementVector == null) {
+            movementVector = new Vec2D(x, y);
+        } else {
+            movementVector.setXY(x, y);
+        }
+    }
+
+    // A packet owns its position and movement objects so they can be updated in place
+    // without moving a port or another packet that handed in the same instance.
+    private static Point2D copyInto(Point2D owned, Point2D value) {
+        if (value == null) return null;
+        return owned != null ? owned.setXY(value.getX(), value.getY()) : new Point2D(value.getX(), value.getY());
+    }
+
+    private static Vec2D copyInto(Vec2D owned, Vec2D value) {
+        if (value == null) return null;
+        return owned != null ? owned.setXY(value.getX(), value.getY()) : new Vec2D(value.getX(), value.getY());
     }
 
     public String getId() {
+        if (id == null) {
+            id = java.util.UUID.randomUUID().toString();
+        }
         return id;
     }
 
+    @JsonIgnore
+    public long getSerial() {
+        return serial;
+    }
+
     public void setId(String id) {
         this.id = id;
     }
@@ -230,8 +278,7 @@ public abstract class Packet {
             return;
         }
 
-        Vec2D movement = movementVector.scale(deltaTime);
-        currentPosition = currentPosition.add(movement);
+        currentPosition.addInPlace(movementVector.getX() * deltaTime, movementVector.getY() * deltaTime);
     }
 
     public void setLost(boolean lost) {
@@ -249,7 +296,7 @@ public abstract class Packet {
 
     public void applyShockwave(Vec2D effectVector) {
         if (!isActive) return;
-        movementVector = movementVector.add(effectVector);
+        movementVector.addInPlace(effectVector);
         noiseLevel += 0.5; // Increase noise when hit by shockwave
     }
 
@@ -306,10 +353,10 @@ public abstract class Packet {
 
     public void updatePositionOnWire(boolean useSmoothCurves) {
         if (currentWire != null) {
-            Point2D newPosition = currentWire.getPositionAtProgress(pathProgress, useSmoothCurves);
-            if (newPosition != null) {
-                setCurrentPosition(newPosition);
+            if (currentPosition == null) {
+                currentPosition = new Point2D();
             }
+            currentWire.getPositionAtProgress(pathProgress, useSmoothCurves, currentPosition);
         }
     }
 
@@ -328,7 +375,7 @@ public abstract class Packet {
 
     public void reverseDirection() {
         isReversing = true;
-        movementVector = movementVector.scale(-1.0);
+        movementVector.scaleInPlace(-1.0);
     }
 
     public void returnToSource() {
@@ -399,6 +446,109 @@ public abstract class Packet {
         size = 2;
     }
 
+    /**
+     * Reset contract for PacketPool: leaves the packet in the same state as a
+     * freshly constructed packet of the given type, including a new serial.
+     * Subclasses with their own state must override, call super, and reset it.
+     */
+    protected void reset(PacketType packetType, Point2D currentPosition, Vec2D movementVector) {
+        this.serial = NEXT_SERIAL.getAndIncrement();
+        this.id = null;
+        this.isActive = true;
+        this.wasLost = false;
+        this.packetType = packetType;
+        this.originalPacketType = null;
+        this.size = packetType != null ? packetType.getBaseSize() : 0;
+        this.noiseLevel = 0.0;
+        this.currentPosition = copyInto(this.currentPosition, currentPosition);
+        this.movementVector = copyInto(this.movementVector, movementVector);
+        this.travelTime = 0.0;
+        this.maxTravelTime = 30.0;
+        this.isReversing = false;
+        this.retryDestination = false;
+        this.sourcePosition = new Point2D();
+        this.destinationPosition = new Point2D();
+        this.bulkPacketId = null;
+        this.bulkPacketColor = 0;
+        this.coinAwardPending = false;
+        this.processedByReferenceSystem = false;
+        this.ownerId = null;
+        this.pathProgress = 0.0;
+        this.currentWire = null;
+        this.baseSpeed = 50.0;
+    }
+
+    /**
+     * Whether reset() fully restores this packet. Types whose state cannot be
+     * rebuilt from a PacketType alone return false and are never pooled.
+     */
+    @JsonIgnore
+    public boolean supportsReuse() {
+        return true;
+    }
+
+    PacketType getPooledType() {
+        return pooledType;
+    }
+
+    void setPooledType(PacketType pooledType) {
+        this.pooledType = pooledType;
+    }
+
+    boolean isInPool() {
+        return inPool;
+    }
+
+    void setInPool(boolean inPool) {
+        this.inPool = inPool;
+    }
+
+    IndexedPacketSet getIndexedSet() {
+        return indexedSet;
+    }
+
+    int getIndexedSlot() {
+        return indexedSlot;
+    }
+
+    void setIndexedSlot(IndexedPacketSet set, int slot) {
+        this.indexedSet = set;
+        this.indexedSlot = slot;
+    }
+
+    void clearIndexedSlot(IndexedPacketSet set) {
+        if (this.indexedSet == set) {
+            this.indexedSet = null;
+            this.indexedSlot = -1;
+        }
+    }
+
+    void setHeldByPort(Port port) {
+        this.heldByPort = port;
+    }
+
+    void clearHeldByPort(Port port) {
+        if (this.heldByPort == port) {
+            this.heldByPort = null;
+        }
+    }
+
+    void setStoredBy(System system) {
+        this.storedBy = system;
+    }
+
+    void clearStoredBy(System system) {
+        if (this.storedBy == system) {
+            this.storedBy = null;
+        }
+    }
+
+    // Whether a port or a system's storage still holds this packet
+    @JsonIgnore
+    public boolean isHeldBySystem() {
+        return heldByPort != null || storedBy != null;
+    }
+
     public void realignCenter() {
         // This method will be overridden by specific packet types
         // to implement their own realignment logic
@@ -418,18 +568,18 @@ public abstract class Packet {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
         Packet packet = (Packet) obj;
-        return Objects.equals(id, packet.id);
+        return serial == packet.serial;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return Long.hashCode(serial);
     }
 
     @Override
     public String toString() {
         return getClass().getSimpleName() + "{" +
-                "id='" + id + '\'' +
+                "serial=" + serial +
                 ", size=" + size +
                 ", noiseLevel=" + noiseLevel +
                 ", position=" + currentPosition +
@@ -49,8 +49,9 @@ public class PacketInjection {
         this.sourceSystem = sourceSystem;
     }
 
+    // Written from the source system, so a copy decoded from JSON can find its source again
     public String getSourceId() {
-        return sourceId;
+        return sourceSystem != null ? sourceSystem.getId() : sourceId;
     }
 
     public void setSourceId(String sourceId) {
@@ -70,6 +71,18 @@ public class PacketInjection {
     }
 
     public Packet createPacket() {
+        return instantiatePacket(getInjectionPosition(), new Vec2D(1, 0)); // Default movement
+    }
+
+    public Packet createPacket(PacketPool pool) {
+        Packet packet = pool.acquire(packetType, getInjectionPosition(), new Vec2D(1, 0), this::instantiatePacket);
+        if (packetType == PacketType.TROJAN) {
+            packet.convertToTrojan(); // Recycled trojans come back as plain messengers of type TROJAN
+        }
+        return packet;
+    }
+
+    private Point2D getInjectionPosition() {
         // Get position from first available output port of source system
         Point2D position = sourceSystem.getPosition(); // Default to system position
         if (sourceSystem != null && !sourceSystem.getOutputPorts().isEmpty()) {
@@ -78,8 +91,10 @@ public class PacketInjection {
                 position = firstOutputPort.getPosition();
             }
         }
-        Vec2D movementVector = new Vec2D(1, 0); // Default movement
+        return position;
+    }
 
+    private Packet instantiatePacket(Point2D position, Vec2D movementVector) {
         switch (packetType) {
             case SQUARE_MESSENGER:
             case TRIANGLE_MESSENGER:
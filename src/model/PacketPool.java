@@ -0,0 +1,84 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Per-simulation free lists of packets, one per PacketType. Packets handed out
+ * by acquire() are remembered by type; once the simulation is done with them
+ * they can be released and are reset before being handed out again.
+ */
+public class PacketPool {
+    private static final int MAX_FREE_PER_TYPE = 256;
+
+    private final Map<PacketType, ArrayDeque<Packet>> freePackets;
+    private long allocatedCount;
+    private long reusedCount;
+
+    @FunctionalInterface
+    public interface Factory {
+        Packet create(Point2D position, Vec2D movementVector);
+    }
+
+    public PacketPool() {
+        this.freePackets = new EnumMap<>(PacketType.class);
+        this.allocatedCount = 0;
+        this.reusedCount = 0;
+    }
+
+    public Packet acquire(PacketType packetType, Point2D position, Vec2D movementVector, Factory factory) {
+        ArrayDeque<Packet> free = freePackets.get(packetType);
+        Packet packet = free != null ? free.pollLast() : null;
+
+        if (packet != null) {
+            packet.reset(packetType, position, movementVector);
+            reusedCount++;
+        } else {
+            packet = factory.create(position, movementVector);
+            if (packet == null) return null;
+            allocatedCount++;
+        }
+
+        packet.setPooledType(packetType);
+        packet.setInPool(false);
+        return packet;
+    }
+
+    /**
+     * Returns a packet to its free list. The caller must guarantee that nothing
+     * in the simulation (wires, ports, storage, active list) still references it.
+     */
+    public boolean release(Packet packet) {
+        if (packet == null || packet.isInPool() || packet.getPooledType() == null || !packet.supportsReuse()) {
+            return false;
+        }
+
+        ArrayDeque<Packet> free = freePackets.computeIfAbsent(packet.getPooledType(), k -> new ArrayDeque<>());
+        if (free.size() >= MAX_FREE_PER_TYPE) {
+            packet.setPooledType(null);
+            return false;
+        }
+
+        packet.setInPool(true);
+        free.addLast(packet);
+        return true;
+    }
+
+    public void clear() {
+        freePackets.clear();
+    }
+
+    public int getFreeCount(PacketType packetType) {
+        ArrayDeque<Packet> free = freePackets.get(packetType);
+        return free != null ? free.size() : 0;
+    }
+
+    public long getAllocatedCount() {
+        return allocatedCount;
+    }
+
+    public long getReusedCount() {
+        return reusedCount;
+    }
+}
@@ -0,0 +1,141 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of what a collision check reads from its packets, as flat arrays:
+ * position, size, wire and whether the packet is active. Packets are given
+ * dense int ids on load, so the broad- and narrow-phase loops never touch the
+ * packet objects. Changes made to a packet afterwards are not seen until the
+ * caller refreshes its id; setters stay plain field writes.
+ */
+public class PacketStore {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int count;
+    private Packet[] packets;
+    private long[] serial;
+    private double[] x;
+    private double[] y;
+    private int[] size;
+    private int[] wireIndex;
+    private boolean[] active;
+
+    private final Map<WireConnection, Integer> wireIndices;
+    private final List<WireConnection> wires;
+
+    public PacketStore() {
+        this.count = 0;
+        this.packets = new Packet[INITIAL_CAPACITY];
+        this.serial = new long[INITIAL_CAPACITY];
+        this.x = new double[INITIAL_CAPACITY];
+        this.y = new double[INITIAL_CAPACITY];
+        this.size = new int[INITIAL_CAPACITY];
+        this.wireIndex = new int[INITIAL_CAPACITY];
+        this.active = new boolean[INITIAL_CAPACITY];
+        this.wireIndices = new IdentityHashMap<>();
+        this.wires = new ArrayList<>();
+    }
+
+    public void load(List<Packet> source) {
+        clear();
+        for (Packet packet : source) {
+            if (packet != null) {
+                add(packet);
+            }
+        }
+    }
+
+    public int add(Packet packet) {
+        ensureCapacity(count + 1);
+        int id = count++;
+        packets[id] = packet;
+        serial[id] = packet.getSerial();
+        refresh(id);
+        return id;
+    }
+
+    public void clear() {
+        Arrays.fill(packets, 0, count, null);
+        count = 0;
+        wireIndices.clear();
+        wires.clear();
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public Packet getPacket(int id) {
+        return packets[id];
+    }
+
+    public long getSerial(int id) {
+        return serial[id];
+    }
+
+    public double getX(int id) {
+        return x[id];
+    }
+
+    public double getY(int id) {
+        return y[id];
+    }
+
+    public int getSize(int id) {
+        return size[id];
+    }
+
+    public WireConnection getWire(int id) {
+        int index = wireIndex[id];
+        return index >= 0 ? wires.get(index) : null;
+    }
+
+    public boolean isActive(int id) {
+        return active[id];
+    }
+
+    public boolean hasPosition(int id) {
+        return !Double.isNaN(x[id]);
+    }
+
+    // Copies the packet's current state again after it was changed
+    public void refresh(int id) {
+        Packet packet = packets[id];
+
+        Point2D position = packet.getCurrentPosition();
+        x[id] = position != null ? position.getX() : Double.NaN;
+        y[id] = position != null ? position.getY() : Double.NaN;
+        size[id] = packet.getSize();
+        wireIndex[id] = indexOfWire(packet.getCurrentWire());
+        active[id] = packet.isActive();
+    }
+
+    private int indexOfWire(WireConnection wire) {
+        if (wire == null) return -1;
+        Integer index = wireIndices.get(wire);
+        if (index == null) {
+            index = wires.size();
+            wires.add(wire);
+            wireIndices.put(wire, index);
+        }
+        return index;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= packets.length) return;
+
+        int capacity = Math.max(required, packets.length * 2);
+        packets = Arrays.copyOf(packets, capacity);
+        serial = Arrays.copyOf(serial, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        size = Arrays.copyOf(size, capacity);
+        wireIndex = Arrays.copyOf(wireIndex, capacity);
+        active = Arrays.copyOf(active, capacity);
+    }
+}
@@ -31,16 +31,48 @@ public class Point2D {
         this.y = y;
     }
 
+    public Point2D setXY(double x, double y) {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+
     public double distanceTo(Point2D other) {
         double dx = this.x - other.x;
         double dy = this.y - other.y;
         return Math.sqrt(dx * dx + dy * dy);
     }
 
+    public double distanceSquaredTo(Point2D other) {
+        double dx = this.x - other.x;
+        double dy = this.y - other.y;
+        return dx * dx + dy * dy;
+    }
+
     public Point2D add(Vec2D vector) {
         return new Point2D(this.x + vector.getX(), this.y + vector.getY());
     }
 
+    // In-place and write-into-destination variants for per-frame code; they return the mutated point
+
+    public Point2D add(Vec2D vector, Point2D dest) {
+        return dest.setXY(this.x + vector.getX(), this.y + vector.getY());
+    }
+
+    public Point2D addInPlace(Vec2D vector) {
+        return addInPlace(vector.getX(), vector.getY());
+    }
+
+    public Point2D addInPlace(double dx, double dy) {
+        this.x += dx;
+        this.y += dy;
+        return this;
+    }
+
+    public static Point2D lerp(Point2D start, Point2D end, double t, Point2D dest) {
+        return dest.setXY(start.x + (end.x - start.x) * t, start.y + (end.y - start.y) * t);
+    }
+
     public Point2D subtract(Point2D other) {
         return new Point2D(this.x - other.x, this.y - other.y);
     }
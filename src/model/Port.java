@@ -71,7 +71,10 @@ public class Port {
     }
 
     public void setCurrentPacket(Packet currentPacket) {
-        this.currentPacket = currentPacket;
+        hold(currentPacket);
+        if (currentPacket != null) {
+            notifyPacketPlaced();
+        }
     }
 
     public boolean canAcceptPacket(Packet packet) {
@@ -123,13 +126,33 @@ public class Port {
     public boolean acceptPacket(Packet packet) {
         if (!canAcceptPacket(packet)) return false;
 
-        currentPacket = packet;
+        hold(packet);
+        notifyPacketPlaced();
         return true;
     }
 
+    private void hold(Packet packet) {
+        if (currentPacket != null) {
+            currentPacket.clearHeldByPort(this);
+        }
+        currentPacket = packet;
+        if (packet != null) {
+            packet.setHeldByPort(this);
+        }
+    }
+
+    // Wakes the owning system and, for output ports, the wires the packet can leave on
+    private void notifyPacketPlaced() {
+        if (parentSystem == null) return;
+        parentSystem.requestUpdate();
+        if (!isInput && parentSystem.getParentLevel() != null) {
+            parentSystem.getParentLevel().queueOutgoingWireTransfers(this);
+        }
+    }
+
     public Packet releasePacket() {
         Packet packet = currentPacket;
-        currentPacket = null;
+        hold(null);
         return packet;
     }
 
@@ -41,6 +41,12 @@ public class ProtectedPacket extends Packet {
         }
     }
 
+    @Override
+    @JsonIgnore
+    public boolean supportsReuse() {
+        return false; // Wraps another packet's type and stats, so always built fresh
+    }
+
     private PacketType selectRandomMovementType() {
         PacketType[] messengerTypes = {
                 PacketType.SMALL_MESSENGER,  // Size 1: acceleration/deceleration behavior
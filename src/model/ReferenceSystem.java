@@ -113,7 +113,7 @@ public class ReferenceSystem extends System {
         
         // Only count delivered packets once to prevent duplication in temporal navigation
         if (!packet.isProcessedByReferenceSystem()) {
-            deliveredPacketCount++;
+            adjustDeliveredPacketCount(1);
             packet.setProcessedByReferenceSystem(true);
         }
     }
@@ -134,7 +134,7 @@ public class ReferenceSystem extends System {
     }
 
     public void resetStatistics() {
-        deliveredPacketCount = 0;
+        adjustDeliveredPacketCount(-deliveredPacketCount);
         lastInjectionTime = 0.0;
     }
     
@@ -157,6 +157,24 @@ public class ReferenceSystem extends System {
         return deliveredPacketCount;
     }
 
+    @Override
+    public void setParentLevel(GameLevel parentLevel) {
+        // Move this system's deliveries over so the level-wide tally stays in step
+        GameLevel previous = getParentLevel();
+        if (previous == parentLevel) return;
+        if (previous != null) previous.adjustDeliveredPacketCount(-deliveredPacketCount);
+        super.setParentLevel(parentLevel);
+        if (parentLevel != null) parentLevel.adjustDeliveredPacketCount(deliveredPacketCount);
+    }
+
+    private void adjustDeliveredPacketCount(int delta) {
+        deliveredPacketCount += delta;
+        GameLevel level = getParentLevel();
+        if (level != null) {
+            level.adjustDeliveredPacketCount(delta);
+        }
+    }
+
     @Override
     public String toString() {
         return "ReferenceSystem{" +
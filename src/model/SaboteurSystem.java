@@ -80,7 +80,7 @@ public class SaboteurSystem extends System {
 
         // Priority 3: Store if no output ports available
         if (hasStorageSpace()) {
-            getStorage().add(packet);
+            storePacket(packet);
         } else {
             // Packet is lost
             packet.setActive(false);
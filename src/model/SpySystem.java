@@ -117,7 +117,8 @@ public class SpySystem extends System {
             // If no output ports available, store in target system
             if (targetSpy.hasStorageSpace()) {
                 java.lang.System.out.println("SPY TELEPORT: Packet stored in Spy" + java.lang.System.identityHashCode(targetSpy) + " storage");
-                targetSpy.getStorage().add(packet);
+                targetSpy.storePacket(packet);
+                targetSpy.requestUpdate();
             } else {
                 // If no storage space, packet is lost
                 java.lang.System.out.println("SPY TELEPORT: Packet lost - no space in Spy" + java.lang.System.identityHashCode(targetSpy));
@@ -147,9 +148,8 @@ public class SpySystem extends System {
 
     private void replacePacketInSystem(Packet oldPacket, Packet newPacket) {
         // Replace in storage
-        if (getStorage().contains(oldPacket)) {
-            getStorage().remove(oldPacket);
-            getStorage().add(newPacket);
+        if (unstorePacket(oldPacket)) {
+            storePacket(newPacket);
         }
 
         // Replace in input ports
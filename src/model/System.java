@@ -41,6 +41,7 @@ public abstract class System {
     private boolean isFailed;
     private boolean indicatorVisible;
     private GameLevel parentLevel; // Reference to access wire connections
+    private boolean updateQueued; // Set while the level holds this system in its update worklist
 
     public System() {
         this.id = java.util.UUID.randomUUID().toString();
@@ -102,7 +103,33 @@ public abstract class System {
     }
 
     public void setStorage(List<Packet> storage) {
+        for (Packet packet : this.storage) {
+            packet.clearStoredBy(this);
+        }
         this.storage = storage;
+        if (storage == null) return;
+        for (Packet packet : storage) {
+            packet.setStoredBy(this);
+        }
+    }
+
+    // Storage changes go through these so each packet knows whether a storage still holds it
+    public void storePacket(Packet packet) {
+        storage.add(packet);
+        packet.setStoredBy(this);
+    }
+
+    public boolean unstorePacket(Packet packet) {
+        if (!storage.remove(packet)) return false;
+        packet.clearStoredBy(this);
+        return true;
+    }
+
+    protected void unstorePackets(List<Packet> packets) {
+        storage.removeAll(packets);
+        for (Packet packet : packets) {
+            packet.clearStoredBy(this);
+        }
     }
 
     public boolean isActive() {
@@ -128,6 +155,9 @@ public abstract class System {
 
     public void setDeactivationTimer(double deactivationTimer) {
         this.deactivationTimer = deactivationTimer;
+        if (deactivationTimer > 0) {
+            requestUpdate();
+        }
     }
 
     public double getMaxDeactivationTime() {
@@ -154,12 +184,48 @@ public abstract class System {
         this.indicatorVisible = indicatorVisible;
     }
 
+    // Back-reference, restored by GameLevel.setSystems; writing it would nest a copy of the level per system
+    @JsonIgnore
     public GameLevel getParentLevel() {
         return parentLevel;
     }
 
     public void setParentLevel(GameLevel parentLevel) {
         this.parentLevel = parentLevel;
+        requestUpdate();
+    }
+
+    /**
+     * Puts this system on its level's update worklist. Anything that gives an
+     * idle system new work (a packet on a port, a stored packet, a running
+     * deactivation timer) must call this so the next tick steps it.
+     */
+    public void requestUpdate() {
+        if (parentLevel != null) {
+            parentLevel.queueSystemUpdate(this);
+        }
+    }
+
+    @JsonIgnore
+    public boolean hasPendingWork() {
+        if (deactivationTimer > 0 || !storage.isEmpty()) {
+            return true;
+        }
+        for (Port port : inputPorts) {
+            if (port.getCurrentPacket() != null) return true;
+        }
+        for (Port port : outputPorts) {
+            if (port.getCurrentPacket() != null) return true;
+        }
+        return false;
+    }
+
+    boolean isUpdateQueued() {
+        return updateQueued;
+    }
+
+    void setUpdateQueued(boolean updateQueued) {
+        this.updateQueued = updateQueued;
     }
 
     public void addInputPort(Port port) {
@@ -207,6 +273,7 @@ public abstract class System {
             if (availablePort != null) {
                 // Move packet from storage to output port
                 iterator.remove();
+                packet.clearStoredBy(this);
                 availablePort.acceptPacket(packet);
                 
                 // Apply exit speed doubling if packet is exiting through incompatible port
@@ -259,7 +326,7 @@ public abstract class System {
                 }
             }
             if (!toRemove.isEmpty()) {
-                storage.removeAll(toRemove);
+                unstorePackets(toRemove);
             }
             
             // Also destroy packets in input ports
@@ -311,7 +378,7 @@ public abstract class System {
             
         } else if (storage.size() < MAX_STORAGE) {
             // Store packet if storage is available
-            storage.add(packet);
+            storePacket(packet);
         } else {
             // Packet is lost if no storage available
             packet.setActive(false);
@@ -466,6 +533,9 @@ public abstract class System {
     }
 
     public void clearStorage() {
+        for (Packet packet : storage) {
+            packet.clearStoredBy(this);
+        }
         storage.clear();
     }
 
@@ -570,6 +640,7 @@ public abstract class System {
     public void deactivate(double duration) {
         isActive = false;
         deactivationTimer = duration;
+        requestUpdate();
         // Immediately update indicator status
         updateIndicatorStatus();
     }
@@ -19,6 +19,7 @@ public class TemporalState {
     private final double temporalProgress;
     private final double levelTimer;
     private final int lostPacketsCount;
+    private final int injectedPacketsCount;
     private final double packetLoss;
     private final boolean isPaused;
     private final boolean isGameOver;
@@ -29,6 +30,7 @@ public class TemporalState {
         this.temporalProgress = gameState.getTemporalProgress();
         this.levelTimer = gameState.getLevelTimer();
         this.lostPacketsCount = gameState.getLostPacketsCount();
+        this.injectedPacketsCount = gameState.getInjectedPacketsCount();
         this.packetLoss = gameState.getPacketLoss();
         this.isPaused = gameState.isPaused();
         this.isGameOver = gameState.isGameOver();
@@ -143,6 +145,7 @@ public class TemporalState {
         gameState.setTemporalProgress(this.temporalProgress);
         gameState.setLevelTimer(this.levelTimer);
         gameState.setLostPacketsCount(this.lostPacketsCount);
+        gameState.setInjectedPacketsCount(this.injectedPacketsCount);
         gameState.setPacketLoss(this.packetLoss);
         gameState.setPaused(this.isPaused);
         gameState.setGameOver(this.isGameOver);
@@ -186,10 +189,14 @@ public class TemporalState {
             System system = entry.getKey();
             system.clearStorage();
             for (Packet packet : entry.getValue()) {
-                system.getStorage().add(createPacketCopy(packet));
+                system.storePacket(createPacketCopy(packet));
             }
         }
 
+        // Restored storage bypasses the port and storage events, so step every system next tick
+        level.queueAllSystemUpdates();
+        level.queueAllWireTransfers();
+
         // Restore injection states
         for (Map.Entry<PacketInjection, Boolean> entry : this.injectionStates.entrySet()) {
             PacketInjection injection = entry.getKey();
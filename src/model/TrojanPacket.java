@@ -17,6 +17,13 @@ public class TrojanPacket extends Packet {
         setNoiseLevel(1.0);
     }
 
+    @Override
+    protected void reset(PacketType packetType, Point2D currentPosition, Vec2D movementVector) {
+        super.reset(PacketType.TROJAN, currentPosition, movementVector);
+        setSize(2);
+        setNoiseLevel(1.0);
+    }
+
     @Override
     @JsonIgnore
     public int getCoinValue() {
@@ -38,6 +38,8 @@ public class VPNSystem extends System {
                 ProtectedPacket protectedPacket = (ProtectedPacket) packet;
                 Packet revertedPacket = protectedPacket.revertToOriginal();
                 getStorage().set(i, revertedPacket);
+                packet.clearStoredBy(this);
+                revertedPacket.setStoredBy(this);
             } else if (packet.getPacketType() != null && packet.getPacketType().isProtected()) {
                 packet.convertFromProtected();
             }
@@ -31,6 +31,12 @@ public class Vec2D {
         this.y = y;
     }
 
+    public Vec2D setXY(double x, double y) {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+
     public double magnitude() {
         return Math.sqrt(x * x + y * y);
     }
@@ -53,6 +59,38 @@ public class Vec2D {
         return new Vec2D(this.x - other.x, this.y - other.y);
     }
 
+    // In-place and write-into-destination variants for per-frame code; they return the mutated vector
+
+    public Vec2D scale(double factor, Vec2D dest) {
+        return dest.setXY(x * factor, y * factor);
+    }
+
+    public Vec2D add(Vec2D other, Vec2D dest) {
+        return dest.setXY(this.x + other.x, this.y + other.y);
+    }
+
+    public Vec2D addInPlace(Vec2D other) {
+        return addInPlace(other.x, other.y);
+    }
+
+    public Vec2D addInPlace(double dx, double dy) {
+        this.x += dx;
+        this.y += dy;
+        return this;
+    }
+
+    public Vec2D scaleInPlace(double factor) {
+        this.x *= factor;
+        this.y *= factor;
+        return this;
+    }
+
+    public Vec2D normalizeInPlace() {
+        double mag = magnitude();
+        if (mag == 0) return setXY(0, 0);
+        return setXY(x / mag, y / mag);
+    }
+
     public double dot(Vec2D other) {
         return this.x * other.x + this.y * other.y;
     }
@@ -1,13 +1,19 @@
 package model;
 
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Objects;
 import java.util.List;
 import java.util.ArrayList;
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
+// Path points are still saved, but derived from the layout again on load
+@JsonIgnoreProperties(value = {"pathPoints"}, allowGetters = true)
 public class WireConnection {
     private String id;
     private Port sourcePort;
@@ -20,10 +26,15 @@ public class WireConnection {
     private int bulkPacketPassages;
     private static final int MAX_BULK_PASSAGES = 3;
     private List<Packet> packetsOnWire; // Multiple packets can travel on the same wire
+    private final Point2D closestPointScratch = new Point2D(); // Reused by constrainPacketToWire each frame
+    private boolean transferQueued; // Set while the level holds this wire in its pending transfer queue
+    // Path points per layout, rebuilt when a port or bend has moved since they were generated
+    private final PathCache rigidPath = new PathCache();
+    private final PathCache smoothPath = new PathCache();
     // Per specification: Only one packet may occupy a wire from a port at any time
     private static final int MAX_WIRE_CAPACITY = 1;
     // Phase 1 spec: packet loss if packet goes off the wire path
-    private static final double DEFAULT_OFF_WIRE_LOSS_THRESHOLD = 20.0; // pixels
+    public static final double DEFAULT_OFF_WIRE_LOSS_THRESHOLD = 20.0; // pixels
     // Owner player ID for multiplayer games
     private String ownerPlayerId;
 
@@ -100,7 +111,9 @@ public class WireConnection {
     }
 
     public void setSourcePort(Port sourcePort) {
+        invalidateLevelWireIndex(this.sourcePort);
         this.sourcePort = sourcePort;
+        invalidateLevelWireIndex(sourcePort);
     }
 
     public Port getDestinationPort() {
@@ -223,7 +236,7 @@ public class WireConnection {
         if (isOccupied() && wireOutputPort.isEmpty()) {
             // Move the first packet that's ready to be transferred
             for (Packet packet : packetsOnWire) {
-                if (hasPacketReachedDestination(packet)) {
+                if (isAtDestination(packet)) {
                     packetsOnWire.remove(packet);
                     
                     // Check if this is a bulk packet completing its passage - destroy wire if needed
@@ -269,6 +282,11 @@ public class WireConnection {
         this.packetsOnWire = new ArrayList<>(packets);
     }
 
+    // Unlike isOccupied, also counts inactive packets that have not been swept off the wire yet
+    public boolean hasPacketsOnWire() {
+        return !packetsOnWire.isEmpty();
+    }
+
     public boolean isOccupied() {
         return !packetsOnWire.isEmpty() && packetsOnWire.stream().anyMatch(Packet::isActive);
     }
@@ -327,7 +345,11 @@ public class WireConnection {
     }
 
     public boolean hasPacketReachedDestination(Packet packet) {
-        if (!packetsOnWire.contains(packet) || destinationPort == null) {
+        return packetsOnWire.contains(packet) && isAtDestination(packet);
+    }
+
+    private boolean isAtDestination(Packet packet) {
+        if (destinationPort == null) {
             return false;
         }
 
@@ -338,6 +360,64 @@ public class WireConnection {
         return packetPos.distanceTo(destPos) <= 5.0;
     }
 
+    /**
+     * Queues this wire for the transfer phase if the packet has reached the
+     * destination port. Called by whatever moved the packet along the wire.
+     */
+    public void reportArrival(Packet packet) {
+        if (packet.getCurrentWire() == this && isAtDestination(packet)) {
+            GameLevel level = getParentLevel();
+            if (level != null) {
+                level.queueWireTransfer(this);
+            }
+        }
+    }
+
+    /**
+     * Whether the transfer phase needs to look at this wire again: a packet is
+     * waiting on the source port or sitting at the destination end.
+     */
+    @JsonIgnore
+    public boolean hasPendingTransfer() {
+        if (!isActive || isDestroyed) {
+            return false;
+        }
+        if (sourcePort != null && sourcePort.getCurrentPacket() != null) {
+            return true;
+        }
+        for (Packet packet : packetsOnWire) {
+            if (packet.isActive() && isAtDestination(packet)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @JsonIgnore
+    public boolean isTransferQueued() {
+        return transferQueued;
+    }
+
+    void setTransferQueued(boolean transferQueued) {
+        this.transferQueued = transferQueued;
+    }
+
+    private GameLevel getParentLevel() {
+        if (sourcePort != null && sourcePort.getParentSystem() != null && sourcePort.getParentSystem().getParentLevel() != null) {
+            return sourcePort.getParentSystem().getParentLevel();
+        }
+        if (destinationPort != null && destinationPort.getParentSystem() != null) {
+            return destinationPort.getParentSystem().getParentLevel();
+        }
+        return null;
+    }
+
+    private static void invalidateLevelWireIndex(Port port) {
+        if (port != null && port.getParentSystem() != null && port.getParentSystem().getParentLevel() != null) {
+            port.getParentSystem().getParentLevel().invalidateWireIndex();
+        }
+    }
+
     public void updatePacketMovement(double deltaTime) {
         updatePacketMovement(deltaTime, true); // Default to smooth curves for backward compatibility
     }
@@ -362,8 +442,9 @@ public class WireConnection {
             }
 
             // Check if packet has reached destination
-            if (hasPacketReachedDestination(packet)) {
+            if (isAtDestination(packet)) {
                 // Don't update position if at destination - let transfer logic handle it
+                reportArrival(packet);
                 continue;
             }
 
@@ -429,7 +510,7 @@ public class WireConnection {
         }
 
         // Find the closest point on the wire path
-        Point2D closestPoint = findClosestPointOnPath(packetPos, pathPoints);
+        Point2D closestPoint = findClosestPointOnPath(packetPos, pathPoints, closestPointScratch);
         if (closestPoint != null) {
             double deviation = packetPos.distanceTo(closestPoint);
             double threshold = DEFAULT_OFF_WIRE_LOSS_THRESHOLD;
@@ -456,51 +537,46 @@ public class WireConnection {
                 return;
             }
             // Snap gently to the path when within tolerance
-            packet.setCurrentPosition(closestPoint);
+            packet.setCurrentPosition(closestPoint.getX(), closestPoint.getY());
         }
     }
 
-    private Point2D findClosestPointOnPath(Point2D position, List<Point2D> pathPoints) {
+    private Point2D findClosestPointOnPath(Point2D position, List<Point2D> pathPoints, Point2D dest) {
         if (pathPoints.size() < 2) {
             return null;
         }
 
-        Point2D closestPoint = null;
-        double minDistance = Double.MAX_VALUE;
+        double minDistanceSquared = Double.MAX_VALUE;
 
         // Check each segment of the path
         for (int i = 0; i < pathPoints.size() - 1; i++) {
             Point2D segmentStart = pathPoints.get(i);
             Point2D segmentEnd = pathPoints.get(i + 1);
 
-            Point2D pointOnSegment = getClosestPointOnLineSegment(position, segmentStart, segmentEnd);
-            double distance = position.distanceTo(pointOnSegment);
+            double lineX = segmentEnd.getX() - segmentStart.getX();
+            double lineY = segmentEnd.getY() - segmentStart.getY();
+            double lineLengthSquared = lineX * lineX + lineY * lineY;
 
-            if (distance < minDistance) {
-                minDistance = distance;
-                closestPoint = pointOnSegment;
+            double projection = 0.0;
+            if (lineLengthSquared > 0) {
+                projection = ((position.getX() - segmentStart.getX()) * lineX
+                        + (position.getY() - segmentStart.getY()) * lineY) / lineLengthSquared;
+                projection = Math.max(0, Math.min(1, projection)); // Clamp to segment
             }
-        }
 
-        return closestPoint;
-    }
-
-    private Point2D getClosestPointOnLineSegment(Point2D point, Point2D lineStart, Point2D lineEnd) {
-        Vec2D lineVec = new Vec2D(lineEnd.getX() - lineStart.getX(), lineEnd.getY() - lineStart.getY());
-        Vec2D pointVec = new Vec2D(point.getX() - lineStart.getX(), point.getY() - lineStart.getY());
+            double pointX = segmentStart.getX() + lineX * projection;
+            double pointY = segmentStart.getY() + lineY * projection;
+            double dx = position.getX() - pointX;
+            double dy = position.getY() - pointY;
+            double distanceSquared = dx * dx + dy * dy;
 
-        double lineLength = lineVec.magnitude();
-        if (lineLength == 0) {
-            return lineStart;
+            if (distanceSquared < minDistanceSquared) {
+                minDistanceSquared = distanceSquared;
+                dest.setXY(pointX, pointY);
+            }
         }
 
-        double projection = pointVec.dot(lineVec) / (lineLength * lineLength);
-        projection = Math.max(0, Math.min(1, projection)); // Clamp to segment
-
-        return new Point2D(
-                lineStart.getX() + lineVec.getX() * projection,
-                lineStart.getY() + lineVec.getY() * projection
-        );
+        return dest;
     }
 
     public Vec2D getDirectionVector() {
@@ -580,8 +656,8 @@ public class WireConnection {
         double lenSq = C * C + D * D;
 
         if (lenSq == 0) {
-            // Line segment is actually a point
-            return lineStart;
+            // Line segment is actually a point; copied, as the path points are shared
+            return new Point2D(lineStart.getX(), lineStart.getY());
         }
 
         double param = dot / lenSq;
@@ -886,28 +962,40 @@ public class WireConnection {
         return getPathPoints(true); // Use smooth curves so packets follow curved wire paths
     }
 
+    /**
+     * The points of the wire's path, shared and read-only. They are generated
+     * once per layout and reused until a port or bend has moved.
+     */
     public List<Point2D> getPathPoints(boolean useSmoothCurves) {
-        if (!useSmoothCurves) {
-            // Original rigid polyline behavior
-            List<Point2D> points = new ArrayList<>();
+        return pathFor(useSmoothCurves).points;
+    }
 
-            if (sourcePort != null) {
-                points.add(sourcePort.getPosition());
-            }
+    private PathCache pathFor(boolean useSmoothCurves) {
+        PathCache cache = useSmoothCurves ? smoothPath : rigidPath;
+        if (!cache.matchesLayout(sourcePort, bends, destinationPort)) {
+            cache.update(sourcePort, bends, destinationPort,
+                    useSmoothCurves ? generateSmoothPathPointsWithBendAlignment() : generateRigidPathPoints());
+        }
+        return cache;
+    }
 
-            for (WireBend bend : bends) {
-                points.add(bend.getPosition());
-            }
+    private List<Point2D> generateRigidPathPoints() {
+        // Original rigid polyline behavior
+        List<Point2D> points = new ArrayList<>();
 
-            if (destinationPort != null) {
-                points.add(destinationPort.getPosition());
-            }
+        if (sourcePort != null) {
+            points.add(sourcePort.getPosition());
+        }
 
-            return points;
-        } else {
-            // Generate smooth curved path that ensures bends are always on the path
-            return generateSmoothPathPointsWithBendAlignment();
+        for (WireBend bend : bends) {
+            points.add(bend.getPosition());
+        }
+
+        if (destinationPort != null) {
+            points.add(destinationPort.getPosition());
         }
+
+        return points;
     }
 
     private List<Point2D> generateSmoothPathPoints() {
@@ -1182,19 +1270,35 @@ public class WireConnection {
     }
 
     public double getTotalLength(boolean useSmoothCurves) {
-        List<Point2D> pathPoints = getPathPoints(useSmoothCurves);
-        if (pathPoints.size() < 2) {
+        PathCache path = pathFor(useSmoothCurves);
+        if (path.points.size() < 2) {
             return wireLength; // Fallback to stored length
         }
+        return path.length;
+    }
 
-        double totalLength = 0.0;
-        for (int i = 0; i < pathPoints.size() - 1; i++) {
-            Point2D start = pathPoints.get(i);
-            Point2D end = pathPoints.get(i + 1);
-            totalLength += start.distanceTo(end);
+    public java.awt.geom.Rectangle2D getPathBounds(boolean useSmoothCurves) {
+        List<Point2D> pathPoints = getPathPoints(useSmoothCurves);
+        if (pathPoints.isEmpty()) {
+            return new java.awt.geom.Rectangle2D.Double();
         }
 
-        return totalLength;
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (Point2D point : pathPoints) {
+            if (point == null) continue;
+            minX = Math.min(minX, point.getX());
+            minY = Math.min(minY, point.getY());
+            maxX = Math.max(maxX, point.getX());
+            maxY = Math.max(maxY, point.getY());
+        }
+        if (minX > maxX) {
+            return new java.awt.geom.Rectangle2D.Double();
+        }
+
+        return new java.awt.geom.Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY);
     }
 
     public Point2D getPositionAtProgress(double progress) {
@@ -1202,17 +1306,21 @@ public class WireConnection {
     }
 
     public Point2D getPositionAtProgress(double progress, boolean useSmoothCurves) {
-        List<Point2D> pathPoints = getPathPoints(useSmoothCurves);
+        return getPositionAtProgress(progress, useSmoothCurves, new Point2D());
+    }
+
+    public Point2D getPositionAtProgress(double progress, boolean useSmoothCurves, Point2D dest) {
+        PathCache path = pathFor(useSmoothCurves);
+        List<Point2D> pathPoints = path.points;
         if (pathPoints.size() < 2) {
-            return pathPoints.isEmpty() ? new Point2D(0, 0) : pathPoints.get(0);
+            return pathPoints.isEmpty() ? dest.setXY(0, 0) : copyPoint(pathPoints.get(0), dest);
         }
 
         // Clamp progress to valid range
         progress = Math.max(0.0, Math.min(1.0, progress));
 
-        // Calculate target distance along the path
-        double totalLength = getTotalLength(useSmoothCurves);
-        double targetDistance = progress * totalLength;
+        // Target distance along the path, using the length cached with the points
+        double targetDistance = progress * path.length;
 
         // Find the segment and interpolate within it
         double accumulatedDistance = 0.0;
@@ -1224,20 +1332,83 @@ public class WireConnection {
             if (accumulatedDistance + segmentLength >= targetDistance) {
                 // The target position is within this segment
                 double segmentProgress = (targetDistance - accumulatedDistance) / segmentLength;
-                return interpolatePosition(start, end, segmentProgress);
+                return Point2D.lerp(start, end, segmentProgress, dest);
             }
 
             accumulatedDistance += segmentLength;
         }
 
         // If we reach here, return the destination port position
-        return pathPoints.get(pathPoints.size() - 1);
-    }
+        return copyPoint(pathPoints.get(pathPoints.size() - 1), dest);
+    }
+
+    private static Point2D copyPoint(Point2D point, Point2D dest) {
+        return dest.setXY(point.getX(), point.getY());
+    }
+
+    /**
+     * Generated path points together with the layout they were generated for:
+     * whether each port is present, then the coordinates of the source port,
+     * the bends and the destination port. Ports and bends can move in place,
+     * e.g. when a system is dragged, so the layout is compared on every use
+     * instead of relying on setters to invalidate it.
+     */
+    private static final class PathCache {
+        private double[] layout = new double[0];
+        private double[] scratch = new double[0];
+        private int layoutLength = -1;
+        private List<Point2D> points = Collections.emptyList();
+        private double length;
+
+        private boolean matchesLayout(Port source, List<WireBend> bends, Port destination) {
+            int length = fillScratch(source, bends, destination);
+            return length == layoutLength && Arrays.equals(scratch, 0, length, layout, 0, length);
+        }
+
+        private void update(Port source, List<WireBend> bends, Port destination, List<Point2D> generated) {
+            int length = fillScratch(source, bends, destination);
+            double[] previous = layout;
+            layout = scratch;
+            scratch = previous;
+            layoutLength = length;
+
+            // Copied so later moves of the ports and bends cannot change the cached points
+            List<Point2D> copies = new ArrayList<>(generated.size());
+            for (Point2D point : generated) {
+                copies.add(point != null ? new Point2D(point.getX(), point.getY()) : null);
+            }
+            points = Collections.unmodifiableList(copies);
+
+            this.length = 0.0;
+            for (int i = 0; i < copies.size() - 1; i++) {
+                Point2D start = copies.get(i);
+                Point2D end = copies.get(i + 1);
+                if (start != null && end != null) {
+                    this.length += start.distanceTo(end);
+                }
+            }
+        }
 
-    private Point2D interpolatePosition(Point2D start, Point2D end, double progress) {
-        double x = start.getX() + (end.getX() - start.getX()) * progress;
-        double y = start.getY() + (end.getY() - start.getY()) * progress;
-        return new Point2D(x, y);
+        private int fillScratch(Port source, List<WireBend> bends, Port destination) {
+            int length = 2 + 2 * (bends.size() + 2);
+            if (scratch.length < length) {
+                scratch = new double[Math.max(length, scratch.length * 2)];
+            }
+            scratch[0] = source != null ? 1 : 0;
+            scratch[1] = destination != null ? 1 : 0;
+            int index = put(2, source != null ? source.getPosition() : null);
+            for (WireBend bend : bends) {
+                index = put(index, bend.getPosition());
+            }
+            put(index, destination != null ? destination.getPosition() : null);
+            return length;
+        }
+
+        private int put(int index, Point2D point) {
+            scratch[index] = point != null ? point.getX() : Double.NaN;
+            scratch[index + 1] = point != null ? point.getY() : Double.NaN;
+            return index + 2;
+        }
     }
 
 
@@ -1270,7 +1441,8 @@ public class WireConnection {
             }
         }
 
-        return closestPoint;
+        // A copy, as the path points are shared
+        return new Point2D(closestPoint.getX(), closestPoint.getY());
     }
 
     public double getProgressAtPoint(Point2D point) {
@@ -1342,8 +1514,10 @@ public class WireConnection {
                 normalizedDestination = newSourcePort;
             }
         }
+        invalidateLevelWireIndex(this.sourcePort);
         this.sourcePort = normalizedSource;
         this.destinationPort = normalizedDestination;
+        invalidateLevelWireIndex(normalizedSource);
 
         // Recalculate path points with new port positions
         calculatePathPoints();
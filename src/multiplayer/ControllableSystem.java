@@ -1,6 +1,7 @@
 package multiplayer;
 
 import model.Point2D;
+import model.Vec2D;
 import java.util.*;
 
 public class ControllableSystem {
@@ -20,6 +21,59 @@ public class ControllableSystem {
         this.position = position;
     }
 
+    /**
+     * The systems every player controls, with full ammunition. Clients and
+     * the server build them the same way, so a release means the same on both.
+     */
+    public static Map<String, ControllableSystem> createDefaultSystems() {
+        Map<String, ControllableSystem> systems = new LinkedHashMap<>();
+        systems.put("system1", new ControllableSystem("system1", new Point2D(200, 200)));
+        systems.put("system2", new ControllableSystem("system2", new Point2D(600, 200)));
+        systems.put("system3", new ControllableSystem("system3", new Point2D(400, 400)));
+
+        // Initialize ammunition for each system
+        for (ControllableSystem system : systems.values()) {
+            system.initializeAmmunition();
+        }
+        return systems;
+    }
+
+    /**
+     * Velocity of a packet released at position: toward the target when the
+     * release was aimed, otherwise toward the opponent's side.
+     */
+    public static Vec2D releaseVector(String playerId, Point2D position, Point2D target) {
+        double speed = 100; // Base speed
+
+        // If the action was aimed, move toward the target
+        if (target != null) {
+            double deltaX = target.getX() - position.getX();
+            double deltaY = target.getY() - position.getY();
+
+            // Normalize and scale by speed
+            double length = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+            if (length > 0) {
+                return new Vec2D((deltaX / length) * speed, (deltaY / length) * speed);
+            }
+        }
+
+        // Fallback to original behavior: move towards the opponent's side
+        double targetX = "player1".equals(playerId) ? 1400 : 0; // Player 1 moves right, Player 2 moves left
+        double targetY = position.getY(); // Keep same Y level
+
+        // Calculate direction vector
+        double deltaX = targetX - position.getX();
+        double deltaY = targetY - position.getY();
+
+        // Normalize and scale by speed
+        double length = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+        if (length > 0) {
+            return new Vec2D((deltaX / length) * speed, (deltaY / length) * speed);
+        } else {
+            return new Vec2D(speed, 0); // Default movement
+        }
+    }
+
     public void initializeAmmunition() {
         // Initialize with different packet types and quantities
         ammunition.put("SMALL_MESSENGER", 20);
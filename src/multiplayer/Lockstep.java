@@ -0,0 +1,185 @@
+package multiplayer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Input scheduling for a lockstep match. Both clients run the gameplay
+ * simulation in fixed ticks from the same seed and apply the same actions on
+ * the same ticks, so only inputs cross the network.
+ *
+ * Ticks are grouped into turns of TURN_TICKS. An action issued during turn n
+ * takes effect on the first tick of turn n + DELAY_TURNS, which gives the
+ * input that long to reach the other client. A turn may only be simulated once
+ * the inputs of both players for it are known; until then the simulation waits.
+ */
+public class Lockstep {
+    public static final int TICKS_PER_SECOND = 60;
+    public static final long TICK_NANOS = 1_000_000_000L / TICKS_PER_SECOND;
+    public static final double TICK_SECONDS = 1.0 / TICKS_PER_SECOND;
+    public static final int TURN_TICKS = 6;
+    public static final int DELAY_TURNS = 3;
+    // A checksum goes out with every CHECKSUM_INTERVAL-th turn's input
+    public static final int CHECKSUM_INTERVAL = 10;
+    private static final int PLAYERS = 2;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final String localPlayerId;
+    private final long seed;
+    private final TreeMap<Long, Map<String, LockstepInput>> inputs;
+    private final List<PlayerAction> pendingActions;
+    private long tick;
+    private long lastInputTurn = -1;
+    private long stalledTicks;
+
+    public Lockstep(String localPlayerId, long seed) {
+        this.localPlayerId = localPlayerId;
+        this.seed = seed;
+        this.inputs = new TreeMap<>();
+        this.pendingActions = new ArrayList<>();
+    }
+
+    public static long turnOf(long tick) {
+        return tick / TURN_TICKS;
+    }
+
+    public static long firstTickOf(long turn) {
+        return turn * TURN_TICKS;
+    }
+
+    /**
+     * Holds a local action until the next turn's input is sent.
+     */
+    public synchronized void queueLocalAction(PlayerAction action) {
+        action.setPlayerId(localPlayerId);
+        pendingActions.add(action);
+    }
+
+    /**
+     * Called on the first tick of every turn: builds the local input for the
+     * turn DELAY_TURNS ahead from the queued actions, stamped with the tick
+     * they take effect on, and records it like a received one. Returns null
+     * if that turn's input was already taken.
+     */
+    public synchronized LockstepInput takeLocalInput() {
+        long turn = turnOf(tick) + DELAY_TURNS;
+        if (turn <= lastInputTurn) return null;
+        lastInputTurn = turn;
+        List<PlayerAction> actions = new ArrayList<>(pendingActions);
+        pendingActions.clear();
+        for (PlayerAction action : actions) {
+            action.setTick(firstTickOf(turn));
+        }
+        LockstepInput input = new LockstepInput(localPlayerId, turn, actions);
+        record(input);
+        return input;
+    }
+
+    public synchronized void receive(LockstepInput input) {
+        if (input == null || input.getPlayerId() == null || localPlayerId.equals(input.getPlayerId())) return;
+        // Turns already simulated cannot change any more
+        if (input.getTurn() < turnOf(tick)) return;
+        record(input);
+    }
+
+    private void record(LockstepInput input) {
+        inputs.computeIfAbsent(input.getTurn(), t -> new HashMap<>()).put(input.getPlayerId(), input);
+    }
+
+    public synchronized boolean isTurnStart() {
+        return tick % TURN_TICKS == 0;
+    }
+
+    /**
+     * True when the current tick may be simulated: the first DELAY_TURNS
+     * turns have no inputs, later turns need both players' inputs.
+     */
+    public synchronized boolean canRun() {
+        long turn = turnOf(tick);
+        if (turn < DELAY_TURNS) return true;
+        Map<String, LockstepInput> turnInputs = inputs.get(turn);
+        boolean ready = turnInputs != null && turnInputs.size() >= PLAYERS;
+        if (!ready) {
+            stalledTicks++;
+        }
+        return ready;
+    }
+
+    /**
+     * Actions taking effect on the current tick, in the same order on both
+     * clients: by player id, then in the order the player issued them.
+     */
+    public synchronized List<PlayerAction> actionsForTick() {
+        Map<String, LockstepInput> turnInputs = inputs.get(turnOf(tick));
+        if (turnInputs == null || !isTurnStart()) return new ArrayList<>();
+
+        List<LockstepInput> ordered = new ArrayList<>(turnInputs.values());
+        ordered.sort(Comparator.comparing(LockstepInput::getPlayerId));
+        List<PlayerAction> actions = new ArrayList<>();
+        for (LockstepInput input : ordered) {
+            for (PlayerAction action : input.getActions()) {
+                // Whose action it is comes from the input, never from the action itself
+                action.setPlayerId(input.getPlayerId());
+                actions.add(action);
+            }
+        }
+        return actions;
+    }
+
+    /**
+     * Moves to the next tick once the current one was simulated.
+     */
+    public synchronized void advance() {
+        tick++;
+        // Inputs of finished turns are no longer needed
+        inputs.headMap(turnOf(tick), false).clear();
+    }
+
+    // Checksums are taken at the end of a turn, before the next turn's input is sent
+    public static boolean isChecksumTurn(long turn) {
+        return turn >= 0 && turn % CHECKSUM_INTERVAL == CHECKSUM_INTERVAL - 1;
+    }
+
+    public static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    public static long mix(long hash, double value) {
+        return mix(hash, Double.doubleToLongBits(value));
+    }
+
+    public static long mix(long hash, String value) {
+        return mix(hash, value != null ? value.hashCode() : 0);
+    }
+
+    public static long newChecksum() {
+        return FNV_OFFSET;
+    }
+
+    public synchronized long getTick() {
+        return tick;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public String getLocalPlayerId() {
+        return localPlayerId;
+    }
+
+    // Ticks that had to wait for the other player's input
+    public synchronized long getStalledTicks() {
+        return stalledTicks;
+    }
+}
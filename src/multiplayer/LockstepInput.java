@@ -0,0 +1,77 @@
+package multiplayer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One player's inputs for one lockstep turn, sent even when empty so the
+ * other client knows it may simulate the turn. Every few turns it also
+ * carries the checksum of the sender's state at the end of an earlier turn,
+ * which the server compares between the two players.
+ */
+public class LockstepInput {
+    public static final long NO_CHECKSUM = -1;
+
+    private String playerId;
+    private long turn;
+    private List<PlayerAction> actions;
+    private long checksumTurn;
+    private long checksum;
+
+    public LockstepInput() {
+        this.actions = new ArrayList<>();
+        this.checksumTurn = NO_CHECKSUM;
+    }
+
+    public LockstepInput(String playerId, long turn, List<PlayerAction> actions) {
+        this();
+        this.playerId = playerId;
+        this.turn = turn;
+        this.actions = actions;
+    }
+
+    public boolean hasChecksum() {
+        return checksumTurn != NO_CHECKSUM;
+    }
+
+    // Getters and setters
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    public void setPlayerId(String playerId) {
+        this.playerId = playerId;
+    }
+
+    public long getTurn() {
+        return turn;
+    }
+
+    public void setTurn(long turn) {
+        this.turn = turn;
+    }
+
+    public List<PlayerAction> getActions() {
+        return actions;
+    }
+
+    public void setActions(List<PlayerAction> actions) {
+        this.actions = actions;
+    }
+
+    public long getChecksumTurn() {
+        return checksumTurn;
+    }
+
+    public void setChecksumTurn(long checksumTurn) {
+        this.checksumTurn = checksumTurn;
+    }
+
+    public long getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(long checksum) {
+        this.checksum = checksum;
+    }
+}
@@ -12,6 +12,7 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class MultiplayerGameController {
     private static final long SETUP_PHASE_DURATION = 30000; // 30 seconds
+    private static final double COLLISION_RADIUS = 20.0;
 
 
     private String player1Id;
@@ -46,6 +47,46 @@ public class MultiplayerGameController {
     // Server-driven penalty multipliers
     private double serverCooldownMultiplier = 1.0;
     private double serverSpeedMultiplier = 1.0;
+    // Set once the server reports scores from its own simulation; local counting stops then
+    private boolean serverScoring;
+
+    // Set when the server runs this match in lockstep: gameplay then advances in fixed ticks
+    // and both clients apply each other's actions on the same tick
+    private volatile Lockstep lockstep;
+    private long lockstepClockNanos;
+    private double lockstepCooldownMultiplier = 1.0;
+    private Long reportedDesyncTurn;
+    private static final int MAX_LOCKSTEP_TICKS_PER_FRAME = 8;
+    // Gameplay randomness; seeded by the session in lockstep so both clients draw the same numbers
+    private final Random random = new Random();
+
+    // Outside lockstep the server moves released packets. They are drawn from its snapshots, and this
+    // player's own releases are predicted until the server's copy reaches the drawn snapshots.
+    private final SnapshotBuffer serverSnapshots = new SnapshotBuffer();
+    private final Map<String, Packet> serverPackets = new HashMap<>();
+    private final Map<String, PredictedRelease> predictedReleases = new LinkedHashMap<>();
+    private final Set<Packet> serverDrivenPackets = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Packet> releasedPackets = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<String, Vec2D> handoffCorrections = new HashMap<>();
+    // Released packets scored here already, with when; the server's copy is not drawn again while it lasts
+    private final Map<String, Long> retiredPackets = new HashMap<>();
+    private static final long RETIRED_PACKET_NANOS = 2_000_000_000L;
+    private volatile long acknowledgedRelease;
+    private long releaseSequence;
+    private long lastFrameNanos;
+    private static final double MAX_FRAME_SECONDS = 0.1;
+    // How quickly the gap between a prediction and the server's copy closes after the handoff
+    private static final double HANDOFF_SMOOTHING_SECONDS = 0.1;
+
+    private static final class PredictedRelease {
+        private final Packet packet;
+        private final long sequence;
+
+        private PredictedRelease(Packet packet, long sequence) {
+            this.packet = packet;
+            this.sequence = sequence;
+        }
+    }
 
     // Controllable reference systems
     private Map<String, ControllableSystem> controllableSystems;
@@ -57,6 +98,11 @@ public class MultiplayerGameController {
     private Point2D selectedTargetPosition;
     private boolean isTargetingMode;
 
+    // Broad-phase for packet collisions (cells no smaller than the collision radius)
+    private final controller.SpatialGrid collisionGrid = new controller.SpatialGrid(COLLISION_RADIUS);
+    private final PacketStore collisionStore = new PacketStore();
+    private final PacketPool packetPool = new PacketPool();
+
     // Game loop
     private AnimationTimer gameLoop;
     private boolean isRunning;
@@ -106,90 +152,79 @@ public class MultiplayerGameController {
     }
 
     public void updateGameState(Object gameStateData) {
-        // Handle game state updates from the server
-        if (gameStateData != null) {
-
-            // Handle MultiplayerGameState object
-            if (gameStateData instanceof multiplayer.MultiplayerGameState) {
-                multiplayer.MultiplayerGameState state =
-                        (multiplayer.MultiplayerGameState) gameStateData;
-
-                // Update setup phase timer from server
-                long remainingTime = state.getRemainingSetupTime();
-                updateSetupTimer(remainingTime);
-
-                // Update setup phase status
-                boolean isSetupPhase = state.isSetupPhase();
-                if (isSetupPhase != this.isSetupPhase) {
-                    this.isSetupPhase = isSetupPhase;
-                    if (!isSetupPhase) {
-                        // Setup phase ended, start the game
-                        startGame();
-                    }
+        // Handle game state updates from the server; the payload registry
+        // delivers timer and penalty updates as MultiplayerGameState
+        if (gameStateData instanceof multiplayer.MultiplayerGameState) {
+            multiplayer.MultiplayerGameState state =
+                    (multiplayer.MultiplayerGameState) gameStateData;
+
+            // Update setup phase timer from server, with penalty phase information
+            int penaltyPhase = state.getPenaltyPhase() != null ? state.getPenaltyPhase() : 0;
+            String phaseDescription = state.getPhaseDescription() != null ? state.getPhaseDescription() : "Setup Phase";
+            updateSetupTimer(state.getRemainingSetupTime(), penaltyPhase, phaseDescription);
+
+            // Update setup phase status
+            boolean isSetupPhase = state.isSetupPhase();
+            if (isSetupPhase != this.isSetupPhase) {
+                this.isSetupPhase = isSetupPhase;
+                if (!isSetupPhase) {
+                    // Setup phase ended, start the game
+                    startGame();
                 }
+            }
 
-                // Update game started status
-                boolean gameStarted = state.isGameStarted();
-                if (gameStarted != this.isGameStarted) {
-                    this.isGameStarted = gameStarted;
-                }
+            // Update game started status
+            boolean gameStarted = state.isGameStarted();
+            if (gameStarted != this.isGameStarted) {
+                this.isGameStarted = gameStarted;
             }
-            // Handle different types of game state data (legacy support)
-            else if (gameStateData instanceof java.util.Map) {
-                @SuppressWarnings("unchecked")
-                java.util.Map<String, Object> stateMap = (java.util.Map<String, Object>) gameStateData;
-
-                // Update setup phase timer from server
-                if (stateMap.containsKey("remainingSetupTime")) {
-                    Object remainingTimeObj = stateMap.get("remainingSetupTime");
-                    if (remainingTimeObj instanceof Number) {
-                        long remainingTime = ((Number) remainingTimeObj).longValue();
-
-                        // Extract penalty phase information
-                        int penaltyPhase = 0;
-                        String phaseDescription = "Setup Phase";
-
-                        if (stateMap.containsKey("penaltyPhase") && stateMap.get("penaltyPhase") instanceof Number) {
-                            penaltyPhase = ((Number) stateMap.get("penaltyPhase")).intValue();
-                        }
 
-                        if (stateMap.containsKey("phaseDescription") && stateMap.get("phaseDescription") instanceof String) {
-                            phaseDescription = (String) stateMap.get("phaseDescription");
-                        }
+            // Consume server penalty multipliers (if provided)
+            if (state.getCooldownMultiplier() != null) {
+                serverCooldownMultiplier = state.getCooldownMultiplier();
+            }
+            if (state.getSpeedMultiplier() != null) {
+                serverSpeedMultiplier = state.getSpeedMultiplier();
+            }
 
-                        updateSetupTimer(remainingTime, penaltyPhase, phaseDescription);
-                    }
-                }
+            // Scores from the server's simulation of both networks replace the local count
+            adoptServerScore(player1State, state.getPlayer1State());
+            adoptServerScore(player2State, state.getPlayer2State());
 
-                // Update setup phase status
-                if (stateMap.containsKey("setupPhase")) {
-                    Object setupPhaseObj = stateMap.get("setupPhase");
-                    if (setupPhaseObj instanceof Boolean) {
-                        boolean isSetupPhase = (Boolean) setupPhaseObj;
-                        if (isSetupPhase != this.isSetupPhase) {
-                            this.isSetupPhase = isSetupPhase;
-                            if (!isSetupPhase) {
-                                // Setup phase ended, start the game
-                                startGame();
-                            }
-                        }
-                    }
-                }
+            // Released packets as the server moved them, and the last own release it handled
+            if (state.getPackets() != null) {
+                serverSnapshots.add(state.getTimestamp(), state.getPackets(), java.lang.System.nanoTime());
+            }
+            if (state.getReleaseAcks() != null && state.getReleaseAcks().get(currentPlayerId) != null) {
+                acknowledgedRelease = state.getReleaseAcks().get(currentPlayerId);
+            }
 
-                // Update game started status
-                if (stateMap.containsKey("gameStarted")) {
-                    Object gameStartedObj = stateMap.get("gameStarted");
-                    if (gameStartedObj instanceof Boolean) {
-                        boolean gameStarted = (Boolean) gameStartedObj;
-                        if (gameStarted != this.isGameStarted) {
-                            this.isGameStarted = gameStarted;
-                        }
-                    }
-                }
+            if (state.getLockstepSeed() != null && lockstep == null) {
+                startLockstep(state.getLockstepSeed());
+            }
+            if (state.getLockstepDesyncTurn() != null && !state.getLockstepDesyncTurn().equals(reportedDesyncTurn)) {
+                reportedDesyncTurn = state.getLockstepDesyncTurn();
+                java.lang.System.err.println("Lockstep: server found the simulations diverged at turn " + reportedDesyncTurn);
             }
         }
     }
 
+    // Arrives with the setup timer, so before any gameplay tick has used the random generators
+    private void startLockstep(long seed) {
+        random.setSeed(seed);
+        packetManager.setSeed(seed);
+        lockstep = new Lockstep(currentPlayerId, seed);
+        java.lang.System.out.println("Lockstep: match runs in lockstep as " + currentPlayerId);
+    }
+
+    private void adoptServerScore(PlayerState local, PlayerState server) {
+        if (local == null || server == null) return;
+        serverScoring = true;
+        local.setScore(server.getScore());
+        local.setSuccessfulDeliveries(server.getSuccessfulDeliveries());
+        local.setFailedDeliveries(server.getFailedDeliveries());
+    }
+
     private void updateSetupTimer(long remainingTimeMs, int penaltyPhase, String phaseDescription) {
         // Convert milliseconds to seconds
         long remainingSeconds = remainingTimeMs / 1000;
@@ -234,14 +269,14 @@ public class MultiplayerGameController {
 
     }
 
-    // Overloaded method for backwards compatibility
-    private void updateSetupTimer(long remainingTimeMs) {
-        updateSetupTimer(remainingTimeMs, 0, "Setup Phase");
-    }
-
     public void handleOpponentAction(Object actionData) {
         // Handle opponent's actions (packet releases, system usage, etc.)
-        if (actionData != null) {
+        if (actionData instanceof LockstepInput) {
+            Lockstep current = lockstep;
+            if (current != null) {
+                current.receive((LockstepInput) actionData);
+            }
+        } else if (actionData != null) {
             // Process the opponent's action
             // This could include updating opponent's network state, ammunition usage, etc.
         }
@@ -263,71 +298,7 @@ public class MultiplayerGameController {
             }
             else if (message.getType() == network.NetworkMessage.MessageType.GAME_STATE_UPDATE) {
                 // Handle timer updates and game state
-                if (message.getData() instanceof multiplayer.MultiplayerGameState) {
-                    multiplayer.MultiplayerGameState gameState =
-                            (multiplayer.MultiplayerGameState) message.getData();
-                    updateGameState(gameState);
-                }
-                // Legacy: Handle network data from opponent (for backward compatibility)
-                else if (message.getData() instanceof model.GameLevel) {
-                    model.GameLevel opponentNetwork =
-                            (model.GameLevel) message.getData();
-                    receiveOpponentNetworkData(message.getPlayerId(), opponentNetwork);
-                }
-                // Handle LinkedHashMap data (legacy format)
-                else if (message.getData() instanceof java.util.Map) {
-                    @SuppressWarnings("unchecked")
-                    java.util.Map<String, Object> stateMap = (java.util.Map<String, Object>) message.getData();
-
-                    // Update setup phase timer from server
-                    if (stateMap.containsKey("remainingSetupTime")) {
-                        Object remainingTimeObj = stateMap.get("remainingSetupTime");
-                        if (remainingTimeObj instanceof Number) {
-                            long remainingTime = ((Number) remainingTimeObj).longValue();
-                            updateSetupTimer(remainingTime);
-                        }
-                    }
-
-                    // Update setup phase status
-                    if (stateMap.containsKey("setupPhase")) {
-                        Object setupPhaseObj = stateMap.get("setupPhase");
-                        if (setupPhaseObj instanceof Boolean) {
-                            boolean isSetupPhase = (Boolean) setupPhaseObj;
-                            if (isSetupPhase != this.isSetupPhase) {
-                                this.isSetupPhase = isSetupPhase;
-                                if (!isSetupPhase) {
-                                    // Setup phase ended, start the game
-                                    startGame();
-                                }
-                            }
-                        }
-                    }
-
-                    // Update game started status
-                    if (stateMap.containsKey("gameStarted")) {
-                        Object gameStartedObj = stateMap.get("gameStarted");
-                        if (gameStartedObj instanceof Boolean) {
-                            boolean gameStarted = (Boolean) gameStartedObj;
-                            if (gameStarted != this.isGameStarted) {
-                                this.isGameStarted = gameStarted;
-                            }
-                        }
-                    }
-
-                    // Consume server penalty multipliers (if provided)
-                    if (stateMap.containsKey("cooldownMultiplier")) {
-                        Object cm = stateMap.get("cooldownMultiplier");
-                        if (cm instanceof Number) {
-                            serverCooldownMultiplier = ((Number) cm).doubleValue();
-                        }
-                    }
-                    if (stateMap.containsKey("speedMultiplier")) {
-                        Object sm = stateMap.get("speedMultiplier");
-                        if (sm instanceof Number) {
-                            serverSpeedMultiplier = ((Number) sm).doubleValue();
-                        }
-                    }
-                }
+                updateGameState(message.getData());
             }
         } catch (Exception e) {
             java.lang.System.err.println("Error handling incoming network message: " + e.getMessage());
@@ -336,14 +307,7 @@ public class MultiplayerGameController {
 
     private void initializeControllableSystems() {
         // Create controllable systems with ammunition
-        controllableSystems.put("system1", new ControllableSystem("system1", new Point2D(200, 200)));
-        controllableSystems.put("system2", new ControllableSystem("system2", new Point2D(600, 200)));
-        controllableSystems.put("system3", new ControllableSystem("system3", new Point2D(400, 400)));
-
-        // Initialize ammunition for each system
-        for (ControllableSystem system : controllableSystems.values()) {
-            system.initializeAmmunition();
-        }
+        controllableSystems.putAll(ControllableSystem.createDefaultSystems());
     }
 
     private void initializeCooldowns() {
@@ -381,16 +345,23 @@ public class MultiplayerGameController {
 
     private void update(long now) {
         currentTime = java.lang.System.currentTimeMillis();
+        double frameSeconds = lastFrameNanos == 0 ? 0.0 : Math.min((now - lastFrameNanos) / 1e9, MAX_FRAME_SECONDS);
+        lastFrameNanos = now;
 
         if (isSetupPhase) {
             // Setup is server-driven; only UI updates come from server messages.
             // Remove client-side penalty triggers.
+        } else if (isGameStarted && lockstep != null) {
+            runLockstepTicks(now);
         } else if (isGameStarted) {
-            updateGameplay();
+            updateGameplay(frameSeconds);
+            applyServerPackets(now, frameSeconds);
         }
 
-        // Update cooldowns
-        updateCooldowns();
+        // Update cooldowns; in lockstep they are part of every tick
+        if (lockstep == null) {
+            updateCooldowns(serverCooldownMultiplier);
+        }
 
         // Note: Game state updates are now handled by the server only
         // Clients should not send continuous updates to avoid message loops
@@ -398,6 +369,99 @@ public class MultiplayerGameController {
 
     private void updateSetupPhase() { /* no-op: server authoritative */ }
 
+    /**
+     * Runs the lockstep ticks that are due by the frame time. When the other
+     * player's input for the next turn has not arrived the simulation waits,
+     * and the clock restarts from the current frame instead of catching up later.
+     */
+    private void runLockstepTicks(long now) {
+        if (lockstepClockNanos == 0) {
+            lockstepClockNanos = now;
+            // The penalty phases are over, the multiplier stays fixed for the rest of the match
+            lockstepCooldownMultiplier = serverCooldownMultiplier;
+        }
+
+        int ticks = 0;
+        while (now - lockstepClockNanos >= Lockstep.TICK_NANOS) {
+            if (lockstep.isTurnStart()) {
+                sendLockstepInput();
+            }
+            if (ticks == MAX_LOCKSTEP_TICKS_PER_FRAME || !lockstep.canRun()) {
+                lockstepClockNanos = now;
+                break;
+            }
+            runLockstepTick();
+            lockstepClockNanos += Lockstep.TICK_NANOS;
+            ticks++;
+        }
+    }
+
+    private void runLockstepTick() {
+        for (PlayerAction action : lockstep.actionsForTick()) {
+            applyPlayerAction(action.getPlayerId(), action);
+        }
+        updateGameplay(Lockstep.TICK_SECONDS);
+        updateCooldowns(lockstepCooldownMultiplier);
+        lockstep.advance();
+    }
+
+    private void sendLockstepInput() {
+        LockstepInput input = lockstep.takeLocalInput();
+        if (input == null) return;
+
+        // The turn before this one just ended, so its checksum can go out now
+        long finishedTurn = Lockstep.turnOf(lockstep.getTick()) - 1;
+        if (Lockstep.isChecksumTurn(finishedTurn)) {
+            input.setChecksumTurn(finishedTurn);
+            input.setChecksum(computeStateChecksum());
+        }
+        networkManager.sendMessage(new NetworkMessage(
+                NetworkMessage.MessageType.PLAYER_ACTION,
+                currentPlayerId,
+                sessionId,
+                input
+        ));
+    }
+
+    /**
+     * Fingerprint of everything a lockstep tick changes. Both clients must
+     * get the same value after the same tick, or their simulations diverged.
+     */
+    long computeStateChecksum() {
+        long hash = Lockstep.newChecksum();
+        Lockstep current = lockstep;
+        hash = Lockstep.mix(hash, current != null ? current.getTick() : 0L);
+        for (Packet packet : gameState.getActivePackets()) {
+            if (packet == null) continue;
+            hash = Lockstep.mix(hash, packet.getPacketType() != null ? packet.getPacketType().ordinal() : -1L);
+            Point2D position = packet.getCurrentPosition();
+            if (position != null) {
+                hash = Lockstep.mix(hash, position.getX());
+                hash = Lockstep.mix(hash, position.getY());
+            }
+            hash = Lockstep.mix(hash, packet.getOwnerId());
+        }
+        for (String systemId : new TreeSet<>(controllableSystems.keySet())) {
+            hash = Lockstep.mix(hash, systemId);
+            for (Map.Entry<String, Integer> ammunition : new TreeMap<>(controllableSystems.get(systemId).getAmmunition()).entrySet()) {
+                hash = Lockstep.mix(hash, ammunition.getKey());
+                hash = Lockstep.mix(hash, (long) ammunition.getValue());
+            }
+        }
+        for (String systemId : new TreeSet<>(systemCooldowns.keySet())) {
+            hash = Lockstep.mix(hash, systemCooldowns.get(systemId).getRemainingTime());
+        }
+        for (String packetType : new TreeSet<>(packetCooldowns.keySet())) {
+            for (Map.Entry<String, Double> remaining : new TreeMap<>(packetCooldowns.get(packetType).getPlayerRemainingTimes()).entrySet()) {
+                hash = Lockstep.mix(hash, remaining.getKey());
+                hash = Lockstep.mix(hash, remaining.getValue());
+            }
+        }
+        hash = Lockstep.mix(hash, (long) player1State.getScore());
+        hash = Lockstep.mix(hash, (long) player2State.getScore());
+        return hash;
+    }
+
 
     private void applyExtraTimePenalties(long extraTime) { /* removed client-side penalties */ }
 
@@ -410,7 +474,7 @@ public class MultiplayerGameController {
             // Select a random controllable system
             List<String> systemIds = new ArrayList<>(controllableSystems.keySet());
             if (!systemIds.isEmpty()) {
-                String randomSystemId = systemIds.get(new Random().nextInt(systemIds.size()));
+                String randomSystemId = systemIds.get(random.nextInt(systemIds.size()));
                 ControllableSystem system = controllableSystems.get(randomSystemId);
 
                 if (system != null && system.hasAnyAmmunition()) {
@@ -425,17 +489,18 @@ public class MultiplayerGameController {
                     }
 
                     if (!availableTypes.isEmpty()) {
-                        String randomPacketType = availableTypes.get(new Random().nextInt(availableTypes.size()));
+                        String randomPacketType = availableTypes.get(random.nextInt(availableTypes.size()));
 
                         // Create a packet and add it to the game state
                         PacketType type = PacketType.valueOf(randomPacketType);
                         Point2D position = system.getPosition();
 
                         // Create movement vector towards the opponent's side
-                        Vec2D movementVector = createMovementVector(opponentPlayerId, position);
+                        Vec2D movementVector = createMovementVector(opponentPlayerId, position,
+                                isTargetingMode ? selectedTargetPosition : null);
 
                         // Create packet using reflection manager
-                        Packet packet = packetManager.createPacket(type, position, movementVector);
+                        Packet packet = packetManager.createPacket(type, position, movementVector, packetPool);
                         if (packet != null) {
                             gameState.addActivePacket(packet);
 
@@ -475,9 +540,9 @@ public class MultiplayerGameController {
         }
     }
 
-    private void updateGameplay() {
+    private void updateGameplay(double seconds) {
         // Update packet movements
-        updatePacketMovements();
+        updatePacketMovements(seconds);
 
         // Process automatic wave generation from uncontrollable reference systems
         processAutomaticWaveGeneration();
@@ -498,9 +563,9 @@ public class MultiplayerGameController {
             // In multiplayer, some reference systems are uncontrollable and release packets automatically
 
             // Check if it's time to generate a wave (every 3-5 seconds)
-            long currentTime = java.lang.System.currentTimeMillis();
+            long currentTime = gameplayTimeMillis();
             long timeSinceLastWave = currentTime - getLastWaveTime();
-            long waveInterval = 3000 + (long)(Math.random() * 2000); // 3-5 seconds
+            long waveInterval = 3000 + (long)(random.nextDouble() * 2000); // 3-5 seconds
 
             if (timeSinceLastWave >= waveInterval) {
                 generateMultiplayerWave();
@@ -515,11 +580,11 @@ public class MultiplayerGameController {
     private void generateMultiplayerWave() {
         try {
             // Determine wave size (smaller for multiplayer balance)
-            int waveSize = 2 + (int)(Math.random() * 3); // 2-4 packets
+            int waveSize = 2 + (int)(random.nextDouble() * 3); // 2-4 packets
 
             // Create wave using reflection manager
             Point2D wavePosition = new Point2D(400, 100); // Center top position
-            List<Packet> wave = packetManager.generatePacketWave(waveSize, wavePosition);
+            List<Packet> wave = packetManager.generatePacketWave(waveSize, wavePosition, packetPool);
 
             // Add packets to game state with ownership tracking
             for (Packet packet : wave) {
@@ -534,6 +599,15 @@ public class MultiplayerGameController {
         }
     }
 
+    // In lockstep the time of the current tick, so waves come on the same tick on both clients
+    private long gameplayTimeMillis() {
+        Lockstep current = lockstep;
+        if (current != null) {
+            return current.getTick() * 1000 / Lockstep.TICKS_PER_SECOND;
+        }
+        return java.lang.System.currentTimeMillis();
+    }
+
     private long getLastWaveTime() {
         // Simple implementation - could be stored in a field for more complex logic
         return lastWaveTime;
@@ -546,58 +620,168 @@ public class MultiplayerGameController {
     // Field to track last wave time
     private long lastWaveTime = 0;
 
-    private void updatePacketMovements() {
-        // Update all active packets in the game state
+    private void updatePacketMovements(double seconds) {
+        // Update all active packets in the game state; server packets are placed from its snapshots
         for (Packet packet : gameState.getActivePackets()) {
-            if (packet != null) {
+            if (packet != null && !serverDrivenPackets.contains(packet)) {
                 // Update packet position based on movement vector
                 Point2D currentPos = packet.getCurrentPosition();
                 Vec2D movement = packet.getMovementVector();
 
                 if (currentPos != null && movement != null) {
                     // Calculate new position
-                    double newX = currentPos.getX() + movement.getX() * 0.016; // 60 FPS
-                    double newY = currentPos.getY() + movement.getY() * 0.016;
+                    double newX = currentPos.getX() + movement.getX() * seconds;
+                    double newY = currentPos.getY() + movement.getY() * seconds;
 
                     // Update packet position
-                    packet.setCurrentPosition(new Point2D(newX, newY));
+                    packet.setCurrentPosition(newX, newY);
+                }
+            }
+        }
+    }
+
+    /**
+     * Places the server's packets at their interpolated positions, hands the
+     * player's predicted releases over to the server's copies once those are
+     * drawn, and drops predictions the server acknowledged without a packet.
+     */
+    private void applyServerPackets(long now, double frameSeconds) {
+        if (serverSnapshots.isEmpty()) return;
+        Map<String, PacketSnapshot> view = serverSnapshots.sample(now);
+
+        Iterator<Map.Entry<String, PredictedRelease>> predictions = predictedReleases.entrySet().iterator();
+        while (predictions.hasNext()) {
+            Map.Entry<String, PredictedRelease> entry = predictions.next();
+            Packet packet = entry.getValue().packet;
+            PacketSnapshot server = view.get(entry.getKey());
+            if (server != null) {
+                // The drawn server position lags the prediction; the gap is closed over a short time
+                Point2D predicted = packet.getCurrentPosition();
+                handoffCorrections.put(entry.getKey(),
+                        new Vec2D(predicted.getX() - server.getX(), predicted.getY() - server.getY()));
+                serverPackets.put(entry.getKey(), packet);
+                serverDrivenPackets.add(packet);
+                predictions.remove();
+            } else if (entry.getValue().sequence <= acknowledgedRelease && !serverSnapshots.newestContains(entry.getKey())) {
+                // Turned down by the server
+                removeReleasedPacket(packet);
+                predictions.remove();
+            }
+        }
+
+        double decay = Math.exp(-frameSeconds / HANDOFF_SMOOTHING_SECONDS);
+        // Kept a while even when absent, as a prediction may be retired before the server has its copy
+        retiredPackets.entrySet().removeIf(retired ->
+                now - retired.getValue() > RETIRED_PACKET_NANOS && !serverSnapshots.newestContains(retired.getKey()));
+        for (Map.Entry<String, PacketSnapshot> entry : view.entrySet()) {
+            if (retiredPackets.containsKey(entry.getKey())) continue;
+            PacketSnapshot snapshot = entry.getValue();
+            Packet packet = serverPackets.get(entry.getKey());
+            if (packet == null) {
+                packet = createServerPacket(entry.getKey(), snapshot);
+                if (packet == null) continue;
+            }
+
+            double x = snapshot.getX();
+            double y = snapshot.getY();
+            Vec2D correction = handoffCorrections.get(entry.getKey());
+            if (correction != null) {
+                correction.setXY(correction.getX() * decay, correction.getY() * decay);
+                x += correction.getX();
+                y += correction.getY();
+                if (Math.abs(correction.getX()) + Math.abs(correction.getY()) < 0.5) {
+                    handoffCorrections.remove(entry.getKey());
                 }
             }
+            packet.setCurrentPosition(x, y);
+            packet.setMovementVector(snapshot.getVx(), snapshot.getVy());
+        }
+
+        // Packets missing from the drawn snapshot have left the field
+        Iterator<Map.Entry<String, Packet>> known = serverPackets.entrySet().iterator();
+        while (known.hasNext()) {
+            Map.Entry<String, Packet> entry = known.next();
+            if (!view.containsKey(entry.getKey())) {
+                removeReleasedPacket(entry.getValue());
+                handoffCorrections.remove(entry.getKey());
+                known.remove();
+            }
         }
     }
 
+    private Packet createServerPacket(String id, PacketSnapshot snapshot) {
+        PacketType type;
+        try {
+            type = PacketType.valueOf(snapshot.getPacketType());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+        Packet packet = packetManager.createPacket(type, new Point2D(snapshot.getX(), snapshot.getY()),
+                new Vec2D(snapshot.getVx(), snapshot.getVy()), packetPool);
+        if (packet == null) return null;
+
+        packet.setId(id);
+        packet.setOwnerId(snapshot.getOwnerId());
+        gameState.addActivePacket(packet);
+        serverPackets.put(id, packet);
+        serverDrivenPackets.add(packet);
+        releasedPackets.add(packet);
+        return packet;
+    }
+
+    // A released packet was delivered, lost or destroyed here; it stops following the server
+    private void retireReleasedPacket(Packet packet) {
+        if (!releasedPackets.remove(packet)) return;
+        serverDrivenPackets.remove(packet);
+        String id = packet.getId();
+        serverPackets.remove(id);
+        predictedReleases.remove(id);
+        handoffCorrections.remove(id);
+        retiredPackets.put(id, java.lang.System.nanoTime());
+    }
+
+    private void removeReleasedPacket(Packet packet) {
+        gameState.removeActivePacket(packet);
+        serverDrivenPackets.remove(packet);
+        releasedPackets.remove(packet);
+        packetPool.release(packet);
+    }
+
     private void checkCollisions() {
-        // Check for packet-to-packet collisions
+        // Check for packet-to-packet collisions among grid neighbours only
         List<Packet> packets = gameState.getActivePackets();
-        List<Packet> packetsToRemove = new ArrayList<>();
+        if (packets.size() < 2) return;
 
-        for (int i = 0; i < packets.size(); i++) {
-            Packet packet1 = packets.get(i);
-            if (packet1 == null) continue;
+        collisionStore.load(packets);
+        collisionGrid.rebuild(collisionStore);
+        Set<Packet> packetsToRemove = Collections.newSetFromMap(new IdentityHashMap<>());
 
-            for (int j = i + 1; j < packets.size(); j++) {
-                Packet packet2 = packets.get(j);
-                if (packet2 == null) continue;
+        collisionGrid.forEachCandidatePair((i, j) -> {
+            Packet packet1 = collisionStore.getPacket(i);
+            Packet packet2 = collisionStore.getPacket(j);
 
-                // Check if packets are colliding
-                if (arePacketsColliding(packet1, packet2)) {
-                    // Handle collision based on packet types
-                    handlePacketCollision(packet1, packet2);
+            // Check if packets are colliding
+            if (arePacketsColliding(packet1, packet2)) {
+                // Handle collision based on packet types
+                handlePacketCollision(packet1, packet2);
 
-                    // Mark packets for removal if they should be destroyed
-                    if (shouldDestroyPacket(packet1)) {
-                        packetsToRemove.add(packet1);
-                    }
-                    if (shouldDestroyPacket(packet2)) {
-                        packetsToRemove.add(packet2);
-                    }
+                // Mark packets for removal if they should be destroyed
+                if (shouldDestroyPacket(packet1)) {
+                    packetsToRemove.add(packet1);
+                }
+                if (shouldDestroyPacket(packet2)) {
+                    packetsToRemove.add(packet2);
                 }
             }
-        }
+        });
+        collisionStore.clear();
 
-        // Remove destroyed packets
-        for (Packet packet : packetsToRemove) {
-            gameState.removeActivePacket(packet);
+        // Remove destroyed packets in a single pass
+        if (!packetsToRemove.isEmpty()) {
+            // Released packets destroyed here stop following the server, whose copy collides alike
+            packetsToRemove.forEach(this::retireReleasedPacket);
+            packets.removeIf(packetsToRemove::contains);
+            packetsToRemove.forEach(packetPool::release);
         }
     }
 
@@ -607,12 +791,10 @@ public class MultiplayerGameController {
 
         if (pos1 == null || pos2 == null) return false;
 
-        double distance = Math.sqrt(
-                Math.pow(pos1.getX() - pos2.getX(), 2) +
-                        Math.pow(pos1.getY() - pos2.getY(), 2)
-        );
+        double dx = pos1.getX() - pos2.getX();
+        double dy = pos1.getY() - pos2.getY();
 
-        return distance < 20; // Collision radius
+        return dx * dx + dy * dy < COLLISION_RADIUS * COLLISION_RADIUS;
     }
 
     private void handlePacketCollision(Packet packet1, Packet packet2) {
@@ -650,10 +832,10 @@ public class MultiplayerGameController {
             if (hasPacketBeenDelivered(packet)) {
                 if ("player1".equals(packetOwner)) {
                     player1SuccessfulDeliveries++;
-                    player1State.recordSuccessfulDelivery();
+                    if (!serverScoring) player1State.recordSuccessfulDelivery();
                 } else if ("player2".equals(packetOwner)) {
                     player2SuccessfulDeliveries++;
-                    player2State.recordSuccessfulDelivery();
+                    if (!serverScoring) player2State.recordSuccessfulDelivery();
                 }
 
                 // Apply feedback loop - give ammunition to opponent
@@ -665,10 +847,10 @@ public class MultiplayerGameController {
                 // Phase 3 requirement: Lost packets count as -1.5 against successful deliveries
                 if ("player1".equals(packetOwner)) {
                     player1LostPackets++;
-                    player1State.recordPacketLoss();
+                    if (!serverScoring) player1State.recordPacketLoss();
                 } else if ("player2".equals(packetOwner)) {
                     player2LostPackets++;
-                    player2State.recordPacketLoss();
+                    if (!serverScoring) player2State.recordPacketLoss();
                 }
 
                 // Remove the lost packet
@@ -678,7 +860,9 @@ public class MultiplayerGameController {
 
         // Remove delivered/lost packets
         for (Packet packet : packetsToRemove) {
+            retireReleasedPacket(packet);
             gameState.removeActivePacket(packet);
+            packetPool.release(packet);
         }
 
         // Update ammunition based on successful deliveries
@@ -767,7 +951,7 @@ public class MultiplayerGameController {
         }
 
         // Default fallback
-        return Math.random() < 0.5 ? "player1" : "player2";
+        return random.nextBoolean() ? "player1" : "player2";
     }
 
     private boolean isPlayer1PacketType(PacketType packetType) {
@@ -1106,12 +1290,12 @@ public class MultiplayerGameController {
         }
     }
 
-    private void updateCooldowns() {
+    private void updateCooldowns(double cooldownMultiplier) {
         // Update system cooldowns
         for (SystemCooldown cooldown : systemCooldowns.values()) {
             cooldown.update();
             // Apply server multiplier by stretching remaining time
-            if (serverCooldownMultiplier > 1.0) {
+            if (cooldownMultiplier > 1.0) {
                 // Increase remaining time proportionally to reflect penalty
                 // (simple approach: reapply duration growth)
                 // SystemCooldown has no direct API; assume update() decrements fixed step.
@@ -1121,7 +1305,7 @@ public class MultiplayerGameController {
 
         // Update packet cooldowns
         for (PacketCooldown cooldown : packetCooldowns.values()) {
-            cooldown.update(serverCooldownMultiplier);
+            cooldown.update(cooldownMultiplier);
         }
     }
 
@@ -1136,15 +1320,8 @@ public class MultiplayerGameController {
                 getCooldownInfo()
         );
 
-        NetworkMessage updateMessage = new NetworkMessage(
-                NetworkMessage.MessageType.GAME_STATE_UPDATE,
-                "SERVER",
-                sessionId,
-                gameStateData
-        );
-
-        // Send to both players
-        networkManager.sendMessage(updateMessage);
+        // Sent as a delta against what the opponent acknowledged last
+        networkManager.sendStateUpdate(getCurrentPlayerId(), sessionId, gameStateData);
     }
 
     private long getRemainingSetupTime() {
@@ -1416,6 +1593,26 @@ public class MultiplayerGameController {
     public void handlePlayerAction(String playerId, PlayerAction action) {
         if (!isGameStarted) return;
 
+        // Aim is taken when the action is issued, so it can be applied later or elsewhere
+        if (action.getTarget() == null && isTargetingMode && selectedTargetPosition != null) {
+            action.setTarget(new Point2D(selectedTargetPosition.getX(), selectedTargetPosition.getY()));
+        }
+
+        Lockstep current = lockstep;
+        if (current != null) {
+            // Applied by both clients on the tick the action is scheduled for
+            current.queueLocalAction(action);
+            return;
+        }
+        if (action.getType() == PlayerAction.ActionType.RELEASE_PACKET) {
+            // Numbered so the server can acknowledge it and its copy can replace the prediction
+            action.setPlayerId(currentPlayerId);
+            action.setSequence(++releaseSequence);
+        }
+        applyPlayerAction(playerId, action);
+    }
+
+    private void applyPlayerAction(String playerId, PlayerAction action) {
         switch (action.getType()) {
             case RELEASE_PACKET:
                 handlePacketRelease(playerId, action);
@@ -1450,7 +1647,10 @@ public class MultiplayerGameController {
         }
 
         // Release the packet
-        releasePacket(playerId, systemId, packetType);
+        Packet packet = releasePacket(playerId, systemId, packetType, action.getTarget());
+        if (packet != null && action.getSequence() > 0 && lockstep == null) {
+            predictRelease(action, packet);
+        }
 
         // Apply cooldowns
         applyCooldowns(systemId, packetType, playerId);
@@ -1466,13 +1666,13 @@ public class MultiplayerGameController {
         return cooldown == null || cooldown.isExpiredForPlayer(playerId);
     }
 
-    private void releasePacket(String playerId, String systemId, String packetType) {
+    private Packet releasePacket(String playerId, String systemId, String packetType, Point2D target) {
         ControllableSystem system = controllableSystems.get(systemId);
         if (system != null) {
             boolean consumed = system.consumeAmmunition(packetType);
             if (!consumed) {
 
-                return;
+                return null;
             }
 
             // Create and release the packet
@@ -1480,10 +1680,10 @@ public class MultiplayerGameController {
             Point2D position = system.getPosition();
 
             // Create movement vector towards opponent's side
-            Vec2D movementVector = createMovementVector(playerId, position);
+            Vec2D movementVector = createMovementVector(playerId, position, target);
 
             // Create packet using reflection manager
-            Packet packet = packetManager.createPacket(type, position, movementVector);
+            Packet packet = packetManager.createPacket(type, position, movementVector, packetPool);
             if (packet != null) {
                 // Set packet ownership for proper scoring
                 packet.setOwnerId(playerId);
@@ -1496,6 +1696,25 @@ public class MultiplayerGameController {
                 // Trigger UI update for ammunition display
                 notifyAmmunitionChanged();
             }
+            return packet;
+        }
+        return null;
+    }
+
+    // Shows the release right away and leaves it to the server, whose copy gets the same id
+    private void predictRelease(PlayerAction action, Packet packet) {
+        String id = action.getPlayerId() + "#" + action.getSequence();
+        packet.setId(id);
+        predictedReleases.put(id, new PredictedRelease(packet, action.getSequence()));
+        releasedPackets.add(packet);
+
+        if (networkManager != null && networkManager.isConnected() && sessionId != null) {
+            networkManager.sendMessage(new NetworkMessage(
+                    NetworkMessage.MessageType.PLAYER_ACTION,
+                    currentPlayerId,
+                    sessionId,
+                    action
+            ));
         }
     }
 
@@ -1505,38 +1724,8 @@ public class MultiplayerGameController {
 
     }
 
-    private Vec2D createMovementVector(String playerId, Point2D position) {
-        // If targeting mode is active and we have a target, move toward the target
-        if (isTargetingMode && selectedTargetPosition != null) {
-            double deltaX = selectedTargetPosition.getX() - position.getX();
-            double deltaY = selectedTargetPosition.getY() - position.getY();
-
-            // Normalize and scale by speed
-            double length = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
-            double speed = 100; // Base speed
-
-            if (length > 0) {
-                return new Vec2D((deltaX / length) * speed, (deltaY / length) * speed);
-            }
-        }
-
-        // Fallback to original behavior: move towards the opponent's side
-        double targetX = "player1".equals(playerId) ? 1400 : 0; // Player 1 moves right, Player 2 moves left
-        double targetY = position.getY(); // Keep same Y level
-
-        // Calculate direction vector
-        double deltaX = targetX - position.getX();
-        double deltaY = targetY - position.getY();
-
-        // Normalize and scale by speed
-        double length = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
-        double speed = 100; // Base speed
-
-        if (length > 0) {
-            return new Vec2D((deltaX / length) * speed, (deltaY / length) * speed);
-        } else {
-            return new Vec2D(speed, 0); // Default movement
-        }
+    private Vec2D createMovementVector(String playerId, Point2D position, Point2D target) {
+        return ControllableSystem.releaseVector(playerId, position, target);
     }
 
     public void setTarget(String targetSystemId, Point2D targetPosition) {
@@ -11,6 +11,18 @@ public class MultiplayerGameState {
     private Map<String, SystemInfo> controllableSystems;
     private Map<String, CooldownInfo> cooldowns;
     private long timestamp;
+    // Penalty state sent by the server; null when the sender does not track it
+    private Integer penaltyPhase;
+    private String phaseDescription;
+    private Double cooldownMultiplier;
+    private Double speedMultiplier;
+    // Set when the match runs in lockstep; both clients seed their simulation with it
+    private Long lockstepSeed;
+    // First turn at which the server saw the two clients' checksums differ
+    private Long lockstepDesyncTurn;
+    // Released packets the server moves, by packet id, and the last release it handled per player
+    private Map<String, PacketSnapshot> packets;
+    private Map<String, Long> releaseAcks;
 
     public MultiplayerGameState() {
         this.timestamp = System.currentTimeMillis();
@@ -94,6 +106,68 @@ public class MultiplayerGameState {
     public void setTimestamp(long timestamp) {
         this.timestamp = timestamp;
     }
-}
 
+    public Integer getPenaltyPhase() {
+        return penaltyPhase;
+    }
+
+    public void setPenaltyPhase(Integer penaltyPhase) {
+        this.penaltyPhase = penaltyPhase;
+    }
+
+    public String getPhaseDescription() {
+        return phaseDescription;
+    }
+
+    public void setPhaseDescription(String phaseDescription) {
+        this.phaseDescription = phaseDescription;
+    }
+
+    public Double getCooldownMultiplier() {
+        return cooldownMultiplier;
+    }
+
+    public void setCooldownMultiplier(Double cooldownMultiplier) {
+        this.cooldownMultiplier = cooldownMultiplier;
+    }
+
+    public Double getSpeedMultiplier() {
+        return speedMultiplier;
+    }
+
+    public void setSpeedMultiplier(Double speedMultiplier) {
+        this.speedMultiplier = speedMultiplier;
+    }
+
+    public Long getLockstepSeed() {
+        return lockstepSeed;
+    }
+
+    public void setLockstepSeed(Long lockstepSeed) {
+        this.lockstepSeed = lockstepSeed;
+    }
+
+    public Long getLockstepDesyncTurn() {
+        return lockstepDesyncTurn;
+    }
+
+    public void setLockstepDesyncTurn(Long lockstepDesyncTurn) {
+        this.lockstepDesyncTurn = lockstepDesyncTurn;
+    }
+
+    public Map<String, PacketSnapshot> getPackets() {
+        return packets;
+    }
+
+    public void setPackets(Map<String, PacketSnapshot> packets) {
+        this.packets = packets;
+    }
+
+    public Map<String, Long> getReleaseAcks() {
+        return releaseAcks;
+    }
 
+    public void setReleaseAcks(Map<String, Long> releaseAcks) {
+        this.releaseAcks = releaseAcks;
+    }
+}
@@ -0,0 +1,75 @@
+package multiplayer;
+
+/**
+ * Where a server-owned packet was at one server update. Snapshots are sent
+ * keyed by packet id, so only the fields that moved go out in a state delta.
+ */
+public class PacketSnapshot {
+    private String ownerId;
+    private String packetType;
+    private double x;
+    private double y;
+    private double vx;
+    private double vy;
+
+    public PacketSnapshot() {
+    }
+
+    public PacketSnapshot(String ownerId, String packetType, double x, double y, double vx, double vy) {
+        this.ownerId = ownerId;
+        this.packetType = packetType;
+        this.x = x;
+        this.y = y;
+        this.vx = vx;
+        this.vy = vy;
+    }
+
+    // Getters and setters
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public String getPacketType() {
+        return packetType;
+    }
+
+    public void setPacketType(String packetType) {
+        this.packetType = packetType;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public void setX(double x) {
+        this.x = x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public void setY(double y) {
+        this.y = y;
+    }
+
+    public double getVx() {
+        return vx;
+    }
+
+    public void setVx(double vx) {
+        this.vx = vx;
+    }
+
+    public double getVy() {
+        return vy;
+    }
+
+    public void setVy(double vy) {
+        this.vy = vy;
+    }
+}
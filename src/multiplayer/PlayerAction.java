@@ -15,6 +15,12 @@ public class PlayerAction {
     private String packetType;
     private String abilityId;
     private long timestamp;
+    // Lockstep tick the action takes effect on, the same on both clients; 0 outside lockstep
+    private long tick;
+    // Where a released packet heads, fixed when the action is issued so both clients aim it alike
+    private model.Point2D target;
+    // Numbers a player's releases so the server can acknowledge them; 0 when not sent to the server
+    private long sequence;
 
     public PlayerAction() {
         this.timestamp = System.currentTimeMillis();
@@ -78,6 +84,30 @@ public class PlayerAction {
         this.abilityId = abilityId;
     }
 
+    public long getTick() {
+        return tick;
+    }
+
+    public void setTick(long tick) {
+        this.tick = tick;
+    }
+
+    public model.Point2D getTarget() {
+        return target;
+    }
+
+    public void setTarget(model.Point2D target) {
+        this.target = target;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
     public long getTimestamp() {
         return timestamp;
     }
@@ -90,7 +120,7 @@ public class PlayerAction {
     public String toString() {
         return "PlayerAction{playerId='" + playerId + "', type=" + type +
                 ", systemId='" + systemId + "', packetType='" + packetType +
-                "', abilityId='" + abilityId + "', timestamp=" + timestamp + "}";
+                "', abilityId='" + abilityId + "', tick=" + tick + ", sequence=" + sequence + ", timestamp=" + timestamp + "}";
     }
 }
 
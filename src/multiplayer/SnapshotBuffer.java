@@ -0,0 +1,150 @@
+package multiplayer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Server packet snapshots as they arrive, for drawing the packets smoothly
+ * between the server's updates. The game is drawn a little in the past: at
+ * the estimated server time minus the interpolation delay, where usually two
+ * received snapshots surround the moment drawn and positions can be
+ * interpolated between them. When the next snapshot is late the packets carry
+ * on along their last velocity, but for at most the extrapolation limit, after
+ * which they stop and wait rather than drift off.
+ *
+ * Server time is estimated from the arrival times of the snapshots, smoothed so
+ * that jitter in their delivery does not show as jitter in the motion.
+ * -Dnetwork.interpolationDelayMillis and -Dnetwork.extrapolationMillis tune it.
+ */
+public class SnapshotBuffer {
+    private static final long INTERPOLATION_DELAY_MILLIS =
+            Math.max(0L, Long.getLong("network.interpolationDelayMillis", 100L));
+    private static final long EXTRAPOLATION_LIMIT_MILLIS =
+            Math.max(0L, Long.getLong("network.extrapolationMillis", 200L));
+    private static final int CAPACITY = 32;
+    private static final double CLOCK_SMOOTHING = 0.1;
+
+    private static final class Snapshot {
+        private final long serverTime;
+        private final Map<String, PacketSnapshot> packets;
+
+        private Snapshot(long serverTime, Map<String, PacketSnapshot> packets) {
+            this.serverTime = serverTime;
+            this.packets = packets;
+        }
+    }
+
+    private final long interpolationDelayMillis;
+    private final long extrapolationLimitMillis;
+    private final List<Snapshot> snapshots;
+    private double clockOffsetMillis;
+    private boolean clockKnown;
+    private long extrapolatedSamples;
+
+    public SnapshotBuffer() {
+        this(INTERPOLATION_DELAY_MILLIS, EXTRAPOLATION_LIMIT_MILLIS);
+    }
+
+    public SnapshotBuffer(long interpolationDelayMillis, long extrapolationLimitMillis) {
+        this.interpolationDelayMillis = interpolationDelayMillis;
+        this.extrapolationLimitMillis = extrapolationLimitMillis;
+        this.snapshots = new ArrayList<>();
+    }
+
+    /**
+     * Adds the packets of a server update stamped serverTimeMillis, received
+     * at receivedNanos (System.nanoTime()). Updates older than the newest one
+     * only refine the clock estimate.
+     */
+    public synchronized void add(long serverTimeMillis, Map<String, PacketSnapshot> packets, long receivedNanos) {
+        double offset = serverTimeMillis - receivedNanos / 1_000_000.0;
+        if (!clockKnown) {
+            clockOffsetMillis = offset;
+            clockKnown = true;
+        } else {
+            clockOffsetMillis += (offset - clockOffsetMillis) * CLOCK_SMOOTHING;
+        }
+
+        if (!snapshots.isEmpty() && serverTimeMillis <= snapshots.get(snapshots.size() - 1).serverTime) return;
+        snapshots.add(new Snapshot(serverTimeMillis, packets != null ? new HashMap<>(packets) : new HashMap<>()));
+        while (snapshots.size() > CAPACITY) {
+            snapshots.remove(0);
+        }
+    }
+
+    /**
+     * Packet positions to draw at nowNanos, keyed by packet id. Packets that
+     * only appear in a snapshot after the moment drawn are not included yet.
+     */
+    public synchronized Map<String, PacketSnapshot> sample(long nowNanos) {
+        Map<String, PacketSnapshot> result = new HashMap<>();
+        if (snapshots.isEmpty()) return result;
+
+        double renderTime = nowNanos / 1_000_000.0 + clockOffsetMillis - interpolationDelayMillis;
+
+        // Snapshots before the pair surrounding the moment drawn are no longer needed
+        while (snapshots.size() > 2 && snapshots.get(1).serverTime <= renderTime) {
+            snapshots.remove(0);
+        }
+
+        Snapshot from = snapshots.get(0);
+        if (renderTime <= from.serverTime) {
+            // Not enough history yet; hold the oldest positions
+            for (Map.Entry<String, PacketSnapshot> entry : from.packets.entrySet()) {
+                result.put(entry.getKey(), moved(entry.getValue(), 0.0));
+            }
+            return result;
+        }
+
+        Snapshot to = snapshots.size() > 1 ? snapshots.get(1) : null;
+        if (to != null && renderTime <= to.serverTime) {
+            double t = (renderTime - from.serverTime) / (to.serverTime - from.serverTime);
+            for (Map.Entry<String, PacketSnapshot> entry : to.packets.entrySet()) {
+                PacketSnapshot before = from.packets.get(entry.getKey());
+                if (before != null) {
+                    result.put(entry.getKey(), interpolate(before, entry.getValue(), t));
+                }
+            }
+            return result;
+        }
+
+        // Past the newest snapshot: carry on along the velocity, up to the limit
+        Snapshot newest = to != null ? to : from;
+        double ahead = Math.min(renderTime - newest.serverTime, extrapolationLimitMillis) / 1000.0;
+        extrapolatedSamples++;
+        for (Map.Entry<String, PacketSnapshot> entry : newest.packets.entrySet()) {
+            result.put(entry.getKey(), moved(entry.getValue(), ahead));
+        }
+        return result;
+    }
+
+    private static PacketSnapshot interpolate(PacketSnapshot a, PacketSnapshot b, double t) {
+        return new PacketSnapshot(b.getOwnerId(), b.getPacketType(),
+                a.getX() + (b.getX() - a.getX()) * t,
+                a.getY() + (b.getY() - a.getY()) * t,
+                b.getVx(), b.getVy());
+    }
+
+    private static PacketSnapshot moved(PacketSnapshot snapshot, double seconds) {
+        return new PacketSnapshot(snapshot.getOwnerId(), snapshot.getPacketType(),
+                snapshot.getX() + snapshot.getVx() * seconds,
+                snapshot.getY() + snapshot.getVy() * seconds,
+                snapshot.getVx(), snapshot.getVy());
+    }
+
+    // Whether the latest update from the server still has the packet
+    public synchronized boolean newestContains(String packetId) {
+        return !snapshots.isEmpty() && snapshots.get(snapshots.size() - 1).packets.containsKey(packetId);
+    }
+
+    public synchronized boolean isEmpty() {
+        return snapshots.isEmpty();
+    }
+
+    // Frames drawn past the newest snapshot, i.e. while server updates were late
+    public synchronized long getExtrapolatedSamples() {
+        return extrapolatedSamples;
+    }
+}
@@ -0,0 +1,383 @@
+package network;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Encodes NetworkMessages for the wire. Two frame formats exist side by side:
+ *
+ * JSON frames are one JSON document followed by a newline. This is the original
+ * protocol and stays the default until both ends agree on binary frames.
+ *
+ * Binary frames are [magic][version][length:int32][payload]. The magic byte can
+ * never start a JSON document, so a reader tells the formats apart from the
+ * first byte of each frame and accepts both at any time. The payload carries
+ * the message type, ids and data. Data of the hot message types is stored in a
+ * compact tagged form; everything else is stored as JSON bytes.
+ *
+ * Either way, data is decoded through the PayloadRegistry, so it arrives as
+ * the payload class registered for the message type.
+ *
+ * Binary frames are negotiated at CONNECT: the client offers BINARY_OFFER and
+ * starts sending binary frames once the server answers with BINARY_ACK.
+ */
+public class FrameCodec {
+    public static final byte BINARY_MAGIC = (byte) 0xB7;
+    public static final byte BINARY_VERSION = 1;
+    public static final int BINARY_HEADER_SIZE = 6;
+    public static final int MAX_FRAME_SIZE = 4 * 1024 * 1024;
+
+    public static final String BINARY_OFFER = "FRAMES:binary/1";
+    public static final String BINARY_ACK = "FRAMES_ACK:binary/1";
+
+    private static final NetworkMessage.MessageType[] TYPES = NetworkMessage.MessageType.values();
+
+    private static final byte DATA_COMPACT = 0;
+    private static final byte DATA_JSON = 1;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_FALSE = 1;
+    private static final byte TAG_TRUE = 2;
+    private static final byte TAG_INTEGER = 3;
+    private static final byte TAG_DOUBLE = 4;
+    private static final byte TAG_STRING = 5;
+    private static final byte TAG_LIST = 6;
+    private static final byte TAG_MAP = 7;
+
+    /**
+     * A frame as read from the wire, not decoded yet.
+     */
+    public static final class Frame {
+        private final boolean binary;
+        private final byte[] bytes;
+
+        public Frame(boolean binary, byte[] bytes) {
+            this.binary = binary;
+            this.bytes = bytes;
+        }
+
+        public boolean isBinary() {
+            return binary;
+        }
+
+        // JSON text for JSON frames, the payload after the header for binary frames
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return binary ? "binary frame (" + bytes.length + " bytes)" : new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private final PayloadRegistry payloads;
+
+    public FrameCodec() {
+        this(PayloadRegistry.getDefault());
+    }
+
+    public FrameCodec(PayloadRegistry payloads) {
+        this.payloads = payloads;
+    }
+
+    public static boolean isBinaryFrameStart(byte firstByte) {
+        return firstByte == BINARY_MAGIC;
+    }
+
+    // Types sent many times per second, worth the compact data encoding
+    public static boolean isHotType(NetworkMessage.MessageType type) {
+        return type == NetworkMessage.MessageType.GAME_STATE_UPDATE
+                || type == NetworkMessage.MessageType.PLAYER_ACTION
+                || type == NetworkMessage.MessageType.NETWORK_VISIBILITY_UPDATE
+                || type == NetworkMessage.MessageType.STATE_DELTA
+                || type == NetworkMessage.MessageType.STATE_ACK;
+    }
+
+    public byte[] encode(NetworkMessage message, boolean binary) throws IOException {
+        return binary ? encodeBinary(message) : encodeJson(message);
+    }
+
+    public byte[] encodeJson(NetworkMessage message) throws IOException {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(256);
+        payloads.writeMessage(message, frame);
+        frame.write('\n');
+        return frame.toByteArray();
+    }
+
+    public byte[] encodeBinary(NetworkMessage message) throws IOException {
+        Output out = new Output();
+        out.skip(BINARY_HEADER_SIZE);
+
+        out.write(message.getType() != null ? message.getType().ordinal() : 0xFF);
+        boolean compact = message.getType() != null && isHotType(message.getType());
+        out.write(compact ? DATA_COMPACT : DATA_JSON);
+        out.writeString(message.getPlayerId());
+        out.writeString(message.getSessionId());
+        if (compact) {
+            writeValue(out, message.getData());
+        } else {
+            byte[] json = payloads.writePayload(message.getData());
+            out.writeVarInt(json.length);
+            out.write(json, 0, json.length);
+        }
+
+        byte[] frame = out.toByteArray();
+        int payloadLength = frame.length - BINARY_HEADER_SIZE;
+        if (payloadLength > MAX_FRAME_SIZE) {
+            throw new IOException("Frame too large: " + payloadLength + " bytes");
+        }
+        frame[0] = BINARY_MAGIC;
+        frame[1] = BINARY_VERSION;
+        frame[2] = (byte) (payloadLength >>> 24);
+        frame[3] = (byte) (payloadLength >>> 16);
+        frame[4] = (byte) (payloadLength >>> 8);
+        frame[5] = (byte) payloadLength;
+        return frame;
+    }
+
+    public NetworkMessage decode(Frame frame) throws IOException {
+        return frame.isBinary() ? decodeBinary(frame.getBytes()) : decodeJson(frame.getBytes());
+    }
+
+    public NetworkMessage decodeJson(byte[] json) throws IOException {
+        return payloads.readMessage(json, 0, json.length);
+    }
+
+    public NetworkMessage decodeBinary(byte[] payload) throws IOException {
+        Input in = new Input(payload);
+        int typeOrdinal = in.read();
+        int dataEncoding = in.read();
+
+        NetworkMessage message = new NetworkMessage();
+        message.setType(typeOrdinal < TYPES.length ? TYPES[typeOrdinal] : null);
+        message.setPlayerId(in.readString());
+        message.setSessionId(in.readString());
+        if (dataEncoding == DATA_COMPACT) {
+            TokenBuffer tokens = payloads.newTokenBuffer();
+            readValue(in, tokens);
+            message.setData(payloads.readPayload(message.getType(), tokens));
+        } else {
+            int length = in.readVarInt();
+            if (length > payload.length - in.position) {
+                throw new IOException("Truncated frame");
+            }
+            message.setData(payloads.readPayload(message.getType(), payload, in.position, length));
+        }
+        return message;
+    }
+
+    // Reads the payload length from a complete binary header
+    public static int readPayloadLength(byte[] header) throws IOException {
+        if (header[1] != BINARY_VERSION) {
+            throw new IOException("Unsupported frame version " + header[1]);
+        }
+        int length = ((header[2] & 0xFF) << 24) | ((header[3] & 0xFF) << 16)
+                | ((header[4] & 0xFF) << 8) | (header[5] & 0xFF);
+        if (length < 0 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Invalid frame length " + length);
+        }
+        return length;
+    }
+
+    private void writeValue(Output out, Object value) throws IOException {
+        if (value == null) {
+            out.write(TAG_NULL);
+        } else if (value instanceof Boolean) {
+            out.write((Boolean) value ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            out.write(TAG_INTEGER);
+            long number = ((Number) value).longValue();
+            out.writeVarLong((number << 1) ^ (number >> 63));
+        } else if (value instanceof Number) {
+            out.write(TAG_DOUBLE);
+            out.writeLong(Double.doubleToRawLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof CharSequence || value instanceof Character || value instanceof Enum) {
+            out.write(TAG_STRING);
+            out.writeString(value instanceof Enum ? ((Enum<?>) value).name() : value.toString());
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.write(TAG_MAP);
+            out.writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                out.writeString(String.valueOf(entry.getKey()));
+                writeValue(out, entry.getValue());
+            }
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            out.write(TAG_LIST);
+            out.writeVarInt(collection.size());
+            for (Object element : collection) {
+                writeValue(out, element);
+            }
+        } else if (value.getClass().isArray()) {
+            int length = java.lang.reflect.Array.getLength(value);
+            out.write(TAG_LIST);
+            out.writeVarInt(length);
+            for (int i = 0; i < length; i++) {
+                writeValue(out, java.lang.reflect.Array.get(value, i));
+            }
+        } else {
+            // Beans go through Jackson so the result matches what a JSON frame would decode to
+            writeValue(out, payloads.toUntyped(value));
+        }
+    }
+
+    // Replays the value as JSON tokens, so the registry binds it like JSON data
+    private void readValue(Input in, JsonGenerator tokens) throws IOException {
+        int tag = in.read();
+        switch (tag) {
+            case TAG_NULL:
+                tokens.writeNull();
+                break;
+            case TAG_FALSE:
+                tokens.writeBoolean(false);
+                break;
+            case TAG_TRUE:
+                tokens.writeBoolean(true);
+                break;
+            case TAG_INTEGER: {
+                long zigzag = in.readVarLong();
+                long number = (zigzag >>> 1) ^ -(zigzag & 1);
+                if (number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE) {
+                    tokens.writeNumber((int) number);
+                } else {
+                    tokens.writeNumber(number);
+                }
+                break;
+            }
+            case TAG_DOUBLE:
+                tokens.writeNumber(Double.longBitsToDouble(in.readLong()));
+                break;
+            case TAG_STRING:
+                tokens.writeString(in.readString());
+                break;
+            case TAG_LIST: {
+                int size = in.readVarInt();
+                tokens.writeStartArray();
+                for (int i = 0; i < size; i++) {
+                    readValue(in, tokens);
+                }
+                tokens.writeEndArray();
+                break;
+            }
+            case TAG_MAP: {
+                int size = in.readVarInt();
+                tokens.writeStartObject();
+                for (int i = 0; i < size; i++) {
+                    tokens.writeFieldName(in.readString());
+                    readValue(in, tokens);
+                }
+                tokens.writeEndObject();
+                break;
+            }
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    private static final class Output extends ByteArrayOutputStream {
+        private Output() {
+            super(256);
+        }
+
+        private void skip(int bytes) {
+            for (int i = 0; i < bytes; i++) {
+                write(0);
+            }
+        }
+
+        private void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        private void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                write((int) (value >>> shift));
+            }
+        }
+
+        // Length is stored plus one so that zero can mean null
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            write(bytes, 0, bytes.length);
+        }
+    }
+
+    private static final class Input {
+        private final byte[] bytes;
+        private int position;
+
+        private Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private int read() throws IOException {
+            if (position >= bytes.length) {
+                throw new IOException("Truncated frame");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        private int readVarInt() throws IOException {
+            long value = readVarLong();
+            if (value > Integer.MAX_VALUE) {
+                throw new IOException("Length out of range");
+            }
+            return (int) value;
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        private long readLong() throws IOException {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | read();
+            }
+            return value;
+        }
+
+        private String readString() throws IOException {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            length--;
+            if (length > bytes.length - position) {
+                throw new IOException("Truncated frame");
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads frames from a blocking stream, telling JSON and binary frames apart by
+ * their first byte. The stream should be buffered.
+ */
+public class FrameReader {
+    private final InputStream in;
+    private final ByteArrayOutputStream line;
+
+    public FrameReader(InputStream in) {
+        this.in = in;
+        this.line = new ByteArrayOutputStream(256);
+    }
+
+    /**
+     * Returns the next frame, or null at end of stream.
+     */
+    public FrameCodec.Frame readFrame() throws IOException {
+        int first;
+        // Skip blank lines between JSON frames
+        do {
+            first = in.read();
+            if (first < 0) return null;
+        } while (first == '\n' || first == '\r');
+
+        if (FrameCodec.isBinaryFrameStart((byte) first)) {
+            byte[] header = new byte[FrameCodec.BINARY_HEADER_SIZE];
+            header[0] = (byte) first;
+            readFully(header, 1, header.length - 1);
+            byte[] payload = new byte[FrameCodec.readPayloadLength(header)];
+            readFully(payload, 0, payload.length);
+            return new FrameCodec.Frame(true, payload);
+        }
+
+        line.reset();
+        int b = first;
+        while (b >= 0 && b != '\n') {
+            line.write(b);
+            if (line.size() > FrameCodec.MAX_FRAME_SIZE) {
+                throw new IOException("Frame too large");
+            }
+            b = in.read();
+        }
+        byte[] bytes = line.toByteArray();
+        int length = bytes.length;
+        if (length > 0 && bytes[length - 1] == '\r') {
+            bytes = java.util.Arrays.copyOf(bytes, length - 1);
+        }
+        return new FrameCodec.Frame(false, bytes);
+    }
+
+    private void readFully(byte[] buffer, int offset, int length) throws IOException {
+        while (length > 0) {
+            int read = in.read(buffer, offset, length);
+            if (read < 0) {
+                throw new EOFException("Stream ended inside a frame");
+            }
+            offset += read;
+            length -= read;
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package network;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.*;
 import java.net.*;
+import java.util.Map;
 import java.util.concurrent.*;
 import java.util.function.Consumer;
 
@@ -11,10 +11,16 @@ public class NetworkManager {
     private static final String DEFAULT_HOST = "localhost";
 
     private Socket socket;
-    private PrintWriter out;
-    private BufferedReader in;
-    private ObjectMapper objectMapper;
+    private OutputStream out;
+    private InputStream in;
+    private FrameCodec frameCodec;
+    private final Object writeLock = new Object();
+    // Set once the server acknowledged our binary frame offer
+    private volatile boolean binaryFrames;
     private ExecutorService messageHandler;
+    // Delta-compressed state: what we rebuilt from incoming deltas, and baselines for our own outgoing state
+    private final StateDeltaDecoder stateDecoder = new StateDeltaDecoder();
+    private final Map<String, StateDeltaEncoder> stateEncoders = new ConcurrentHashMap<>();
 
     private String host;
     private int port;
@@ -26,7 +32,7 @@ public class NetworkManager {
         this.host = DEFAULT_HOST;
         this.port = DEFAULT_PORT;
         this.isConnected = false;
-        this.objectMapper = new ObjectMapper();
+        this.frameCodec = new FrameCodec();
         this.messageHandler = Executors.newSingleThreadExecutor();
     }
 
@@ -39,14 +45,23 @@ public class NetworkManager {
     public boolean connect() {
         try {
             socket = new Socket(host, port);
-            out = new PrintWriter(socket.getOutputStream(), true);
-            in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            out = new BufferedOutputStream(socket.getOutputStream());
+            in = new BufferedInputStream(socket.getInputStream());
+            binaryFrames = false;
+            stateDecoder.reset();
+            stateEncoders.clear();
             isConnected = true;
 
 
             // Start message listener
             startMessageListener();
 
+            // Offer binary frames; we keep sending JSON until the server agrees.
+            // -Dnetwork.frames=json keeps the connection on JSON for debugging.
+            if (!"json".equalsIgnoreCase(System.getProperty("network.frames", "binary"))) {
+                sendMessage(new NetworkMessage(NetworkMessage.MessageType.CONNECT, null, FrameCodec.BINARY_OFFER));
+            }
+
             if (connectionStatusCallback != null) {
                 connectionStatusCallback.accept("Connected to server");
             }
@@ -83,8 +98,11 @@ public class NetworkManager {
         }
 
         try {
-            String jsonMessage = objectMapper.writeValueAsString(message);
-            out.println(jsonMessage);
+            byte[] frame = frameCodec.encode(message, binaryFrames);
+            synchronized (writeLock) {
+                out.write(frame);
+                out.flush();
+            }
 
             return true;
         } catch (Exception e) {
@@ -95,10 +113,24 @@ public class NetworkManager {
     private void startMessageListener() {
         messageHandler.submit(() -> {
             try {
-                String inputLine;
-                while (isConnected && (inputLine = in.readLine()) != null) {
+                FrameReader frameReader = new FrameReader(in);
+                FrameCodec.Frame frame;
+                while (isConnected && (frame = frameReader.readFrame()) != null) {
                     try {
-                        NetworkMessage message = objectMapper.readValue(inputLine, NetworkMessage.class);
+                        NetworkMessage message = frameCodec.decode(frame);
+                        if (message.getType() == NetworkMessage.MessageType.CONNECT
+                                && FrameCodec.BINARY_ACK.equals(message.getData())) {
+                            binaryFrames = true;
+                            continue;
+                        }
+                        if (message.getType() == NetworkMessage.MessageType.STATE_ACK) {
+                            acknowledgeState(message);
+                            continue;
+                        }
+                        if (message.getType() == NetworkMessage.MessageType.STATE_DELTA) {
+                            message = rebuildState(message);
+                            if (message == null) continue;
+                        }
                         if (messageCallback != null) {
                             messageCallback.accept(message);
                         }
@@ -116,6 +148,51 @@ public class NetworkManager {
         });
     }
 
+    /**
+     * Sends a state snapshot as a delta against the last state the receiver
+     * acknowledged. The receiving NetworkManager rebuilds the full state and
+     * delivers it as a GAME_STATE_UPDATE. -Dnetwork.stateDeltas=off sends the
+     * snapshot as it is.
+     */
+    public boolean sendStateUpdate(String stream, String sessionId, Object state) {
+        Object tree = PayloadRegistry.getDefault().toUntyped(state);
+        if (!(tree instanceof Map) || "off".equalsIgnoreCase(System.getProperty("network.stateDeltas", "on"))) {
+            return sendMessage(new NetworkMessage(NetworkMessage.MessageType.GAME_STATE_UPDATE, stream, sessionId, state));
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> snapshot = (Map<String, Object>) tree;
+        String streamId = stream != null ? stream : "PLAYER";
+        StateDelta delta = stateEncoders.computeIfAbsent(streamId, StateDeltaEncoder::new).encode(sessionId, snapshot);
+        if (delta == null) {
+            return true; // The receiver already holds this state
+        }
+        return sendMessage(new NetworkMessage(NetworkMessage.MessageType.STATE_DELTA, stream, sessionId, delta));
+    }
+
+    // Turns a delta back into the GAME_STATE_UPDATE it stands for, and acknowledges it
+    private NetworkMessage rebuildState(NetworkMessage message) throws IOException {
+        if (!(message.getData() instanceof StateDelta)) return null;
+
+        StateDelta delta = (StateDelta) message.getData();
+        Map<String, Object> state = stateDecoder.apply(message.getSessionId(), delta);
+        if (state == null) return null;
+
+        sendMessage(new NetworkMessage(NetworkMessage.MessageType.STATE_ACK, null, message.getSessionId(),
+                new StateDelta.Ack(delta.getStream(), delta.getSequence())));
+        return new NetworkMessage(NetworkMessage.MessageType.GAME_STATE_UPDATE, message.getPlayerId(), message.getSessionId(),
+                PayloadRegistry.getDefault().convert(NetworkMessage.MessageType.GAME_STATE_UPDATE, state));
+    }
+
+    private void acknowledgeState(NetworkMessage message) {
+        if (!(message.getData() instanceof StateDelta.Ack)) return;
+
+        StateDelta.Ack ack = (StateDelta.Ack) message.getData();
+        StateDeltaEncoder encoder = stateEncoders.get(ack.getStream());
+        if (encoder != null) {
+            encoder.acknowledge(message.getSessionId(), ack.getSequence());
+        }
+    }
+
     public boolean reconnect() {
         disconnect();
         try {
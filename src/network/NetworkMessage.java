@@ -6,7 +6,7 @@ public class NetworkMessage {
         CONNECT, DISCONNECT, GAME_STATE_UPDATE, PLAYER_ACTION,
         LEVEL_COMPLETE, SCORE_UPDATE, MULTIPLAYER_INVITE,
         MULTIPLAYER_ACCEPT, MULTIPLAYER_REJECT, GAME_OVER, PLAYER_READY,
-        NETWORK_DATA, NETWORK_VISIBILITY_UPDATE
+        NETWORK_DATA, NETWORK_VISIBILITY_UPDATE, STATE_DELTA, STATE_ACK
     }
 
     private MessageType type;
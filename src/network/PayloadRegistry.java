@@ -0,0 +1,330 @@
+package network;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Knows which Java type NetworkMessage.data has for each message type, so a
+ * payload is bound straight from the wire into that type instead of into a
+ * LinkedHashMap that callers convert again.
+ *
+ * Only object-shaped data is bound to the registered type. Strings, numbers
+ * and arrays keep decoding the way Jackson reads them into Object, because
+ * several message types carry plain strings or lists besides their main
+ * payload. Types whose payload can be one of several classes register a
+ * resolver that picks the class from the top-level field names.
+ *
+ * One registry is shared by every connection. Its readers and writers are
+ * created once at registration, which also resolves their (de)serializers.
+ */
+public class PayloadRegistry {
+    private static final PayloadRegistry DEFAULT = createDefault();
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader untypedReader;
+    private final ObjectWriter untypedWriter;
+    private final Map<NetworkMessage.MessageType, Binding> bindings;
+    private final Map<Class<?>, ObjectReader> readers;
+    private final Map<Class<?>, ObjectWriter> writers;
+
+    private static final class Binding {
+        private final Class<?> type;
+        private final Function<Set<String>, Class<?>> resolver;
+
+        private Binding(Class<?> type, Function<Set<String>, Class<?>> resolver) {
+            this.type = type;
+            this.resolver = resolver;
+        }
+    }
+
+    public PayloadRegistry() {
+        this.objectMapper = new ObjectMapper()
+                // Peers may run a newer build with extra fields, and some beans expose derived getters
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.untypedReader = objectMapper.readerFor(Object.class);
+        this.untypedWriter = objectMapper.writer();
+        this.bindings = new EnumMap<>(NetworkMessage.MessageType.class);
+        this.readers = new ConcurrentHashMap<>();
+        this.writers = new ConcurrentHashMap<>();
+    }
+
+    public static PayloadRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    private static PayloadRegistry createDefault() {
+        PayloadRegistry registry = new PayloadRegistry();
+        registry.register(NetworkMessage.MessageType.NETWORK_DATA, model.GameLevel.class);
+        registry.register(NetworkMessage.MessageType.SCORE_UPDATE, leaderboard.ScoreRecord.class);
+        registry.register(NetworkMessage.MessageType.LEVEL_COMPLETE, leaderboard.ScoreRecord.class);
+        registry.register(NetworkMessage.MessageType.NETWORK_VISIBILITY_UPDATE, multiplayer.NetworkVisibilityData.class);
+        registry.register(NetworkMessage.MessageType.STATE_DELTA, StateDelta.class);
+        registry.register(NetworkMessage.MessageType.STATE_ACK, StateDelta.Ack.class);
+        // Carries the setup timer and penalty state, or a visibility update from the host
+        registry.register(NetworkMessage.MessageType.GAME_STATE_UPDATE, fields -> {
+            if (fields.contains("networkVisibilityEnabled")) {
+                return multiplayer.NetworkVisibilityData.class;
+            }
+            if (fields.contains("remainingSetupTime") || fields.contains("setupPhase")) {
+                return multiplayer.MultiplayerGameState.class;
+            }
+            return null;
+        }, multiplayer.NetworkVisibilityData.class, multiplayer.MultiplayerGameState.class);
+        // Lockstep inputs and numbered player actions; penalty notices keep their loose shape
+        registry.register(NetworkMessage.MessageType.PLAYER_ACTION, fields -> {
+            if (fields.contains("turn") && fields.contains("actions")) {
+                return multiplayer.LockstepInput.class;
+            }
+            if (fields.contains("sequence") && fields.contains("type")) {
+                return multiplayer.PlayerAction.class;
+            }
+            return null;
+        }, multiplayer.LockstepInput.class, multiplayer.PlayerAction.class);
+        return registry;
+    }
+
+    /**
+     * Binds object payloads of the given message type to payloadType.
+     * Registration is meant to happen before the registry is shared.
+     */
+    public void register(NetworkMessage.MessageType messageType, Class<?> payloadType) {
+        bindings.put(messageType, new Binding(payloadType, null));
+        prepare(payloadType);
+    }
+
+    /**
+     * Binds object payloads of the given message type to whatever class the
+     * resolver returns for the payload's top-level field names. A null result
+     * leaves the payload untyped. The candidates are prepared up front.
+     */
+    public void register(NetworkMessage.MessageType messageType, Function<Set<String>, Class<?>> resolver,
+                         Class<?>... candidates) {
+        bindings.put(messageType, new Binding(null, resolver));
+        for (Class<?> candidate : candidates) {
+            prepare(candidate);
+        }
+    }
+
+    public Class<?> getPayloadType(NetworkMessage.MessageType messageType) {
+        Binding binding = messageType != null ? bindings.get(messageType) : null;
+        return binding != null ? binding.type : null;
+    }
+
+    public boolean isTyped(NetworkMessage.MessageType messageType) {
+        return messageType != null && bindings.containsKey(messageType);
+    }
+
+    private void prepare(Class<?> payloadType) {
+        readers.computeIfAbsent(payloadType, objectMapper::readerFor);
+        writers.computeIfAbsent(payloadType, objectMapper::writerFor);
+    }
+
+    /**
+     * Decodes a whole message from JSON in one pass. The payload is bound as
+     * soon as its field is reached; it is only buffered as tokens when the
+     * type field comes after it.
+     */
+    public NetworkMessage readMessage(byte[] json, int offset, int length) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json, offset, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Message is not a JSON object");
+            }
+            NetworkMessage message = new NetworkMessage();
+            TokenBuffer pendingData = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "type":
+                        message.setType(readType(parser));
+                        break;
+                    case "playerId":
+                        message.setPlayerId(parser.getValueAsString());
+                        break;
+                    case "sessionId":
+                        message.setSessionId(parser.getValueAsString());
+                        break;
+                    case "data":
+                        if (message.getType() != null) {
+                            message.setData(readPayload(message.getType(), parser));
+                        } else {
+                            pendingData = new TokenBuffer(objectMapper, false);
+                            pendingData.copyCurrentStructure(parser);
+                        }
+                        break;
+                    default:
+                        parser.skipChildren();
+                        break;
+                }
+            }
+            if (pendingData != null) {
+                message.setData(readPayload(message.getType(), pendingData));
+            }
+            return message;
+        }
+    }
+
+    private NetworkMessage.MessageType readType(JsonParser parser) throws IOException {
+        String name = parser.getValueAsString();
+        if (name == null) {
+            return null;
+        }
+        try {
+            return NetworkMessage.MessageType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown message type " + name);
+        }
+    }
+
+    public Object readPayload(NetworkMessage.MessageType messageType, byte[] json, int offset, int length)
+            throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json, offset, length)) {
+            parser.nextToken();
+            return readPayload(messageType, parser);
+        }
+    }
+
+    /**
+     * Reads the payload value the parser is positioned on.
+     */
+    public Object readPayload(NetworkMessage.MessageType messageType, JsonParser parser) throws IOException {
+        Binding binding = messageType != null ? bindings.get(messageType) : null;
+        if (binding == null || parser.currentToken() != JsonToken.START_OBJECT) {
+            return untypedReader.readValue(parser);
+        }
+        if (binding.type != null) {
+            return readers.get(binding.type).readValue(parser);
+        }
+        TokenBuffer buffer = new TokenBuffer(parser);
+        buffer.copyCurrentStructure(parser);
+        return readPayload(messageType, buffer);
+    }
+
+    /**
+     * Reads a payload that has already been turned into tokens, for example
+     * by the compact binary decoder.
+     */
+    public Object readPayload(NetworkMessage.MessageType messageType, TokenBuffer buffer) throws IOException {
+        try (JsonParser parser = buffer.asParser(objectMapper)) {
+            parser.nextToken();
+            Binding binding = messageType != null ? bindings.get(messageType) : null;
+            if (binding == null || parser.currentToken() != JsonToken.START_OBJECT) {
+                return untypedReader.readValue(parser);
+            }
+            Class<?> payloadType = binding.type != null ? binding.type : binding.resolver.apply(fieldNames(buffer));
+            if (payloadType == null) {
+                return untypedReader.readValue(parser);
+            }
+            ObjectReader reader = readers.get(payloadType);
+            return (reader != null ? reader : objectMapper.readerFor(payloadType)).readValue(parser);
+        }
+    }
+
+    private Set<String> fieldNames(TokenBuffer buffer) throws IOException {
+        Set<String> names = new HashSet<>();
+        try (JsonParser parser = buffer.asParser(objectMapper)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                names.add(parser.getCurrentName());
+                parser.nextToken();
+                parser.skipChildren();
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Writes the message as one JSON document, using the prepared writer for
+     * the payload's class.
+     */
+    public void writeMessage(NetworkMessage message, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeFieldName("type");
+            if (message.getType() != null) {
+                generator.writeString(message.getType().name());
+            } else {
+                generator.writeNull();
+            }
+            generator.writeStringField("playerId", message.getPlayerId());
+            generator.writeStringField("sessionId", message.getSessionId());
+            generator.writeFieldName("data");
+            writePayload(message.getData(), generator);
+            generator.writeEndObject();
+        }
+    }
+
+    public void writePayload(Object data, JsonGenerator generator) throws IOException {
+        if (data == null) {
+            generator.writeNull();
+            return;
+        }
+        ObjectWriter writer = writers.get(data.getClass());
+        (writer != null ? writer : untypedWriter).writeValue(generator, data);
+    }
+
+    public byte[] writePayload(Object data) throws IOException {
+        ObjectWriter writer = data != null ? writers.get(data.getClass()) : null;
+        return (writer != null ? writer : untypedWriter).writeValueAsBytes(data);
+    }
+
+    /**
+     * Binds an already decoded tree of Maps, such as a state rebuilt from
+     * deltas, the way readPayload would have bound it off the wire.
+     */
+    public Object convert(NetworkMessage.MessageType messageType, Object untyped) throws IOException {
+        Binding binding = messageType != null ? bindings.get(messageType) : null;
+        if (binding == null || !(untyped instanceof Map)) {
+            return untyped;
+        }
+        Set<String> fields = new HashSet<>();
+        for (Object key : ((Map<?, ?>) untyped).keySet()) {
+            fields.add(String.valueOf(key));
+        }
+        Class<?> payloadType = binding.type != null ? binding.type : binding.resolver.apply(fields);
+        if (payloadType == null) {
+            return untyped;
+        }
+        TokenBuffer tokens = newTokenBuffer();
+        untypedWriter.writeValue(tokens, untyped);
+        ObjectReader reader = readers.get(payloadType);
+        return (reader != null ? reader : objectMapper.readerFor(payloadType)).readValue(tokens.asParser(objectMapper));
+    }
+
+    /**
+     * Deep copy of a payload by writing and re-reading it, for a receiver
+     * that changes a payload that is also queued to be sent on.
+     */
+    public <T> T copy(T value, Class<T> type) throws IOException {
+        TokenBuffer tokens = newTokenBuffer();
+        ObjectWriter writer = writers.get(type);
+        (writer != null ? writer : objectMapper.writerFor(type)).writeValue(tokens, value);
+        ObjectReader reader = readers.get(type);
+        return (reader != null ? reader : objectMapper.readerFor(type)).readValue(tokens.asParser(objectMapper));
+    }
+
+    // Turns a bean into the Maps and Lists Jackson would produce for it
+    public Object toUntyped(Object value) {
+        return objectMapper.convertValue(value, Object.class);
+    }
+
+    public TokenBuffer newTokenBuffer() {
+        return new TokenBuffer(objectMapper, false);
+    }
+}
@@ -0,0 +1,203 @@
+package network;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A state update expressed as the difference to a state the receiver has
+ * acknowledged. A keyframe (baseline 0) carries the whole state.
+ *
+ * The state is a tree of Maps as Jackson would produce it. In changes, a Map
+ * value is merged into the baseline's value when that is a Map too; any other
+ * value replaces it. Keys that disappeared are listed by path in removed.
+ */
+public class StateDelta {
+    public static final long KEYFRAME = 0;
+
+    // Who produces this state: "SERVER" or the sending player's id
+    private String stream;
+    private long sequence;
+    private long baseline;
+    private Map<String, Object> changes;
+    private List<List<String>> removed;
+
+    public StateDelta() {
+        this.changes = new LinkedHashMap<>();
+        this.removed = new ArrayList<>();
+    }
+
+    public StateDelta(String stream, long sequence, long baseline, Map<String, Object> changes, List<List<String>> removed) {
+        this.stream = stream;
+        this.sequence = sequence;
+        this.baseline = baseline;
+        this.changes = changes;
+        this.removed = removed;
+    }
+
+    /**
+     * Sent back for every delta that was applied, so the sender can use it as the next baseline.
+     */
+    public static class Ack {
+        private String stream;
+        private long sequence;
+
+        public Ack() {}
+
+        public Ack(String stream, long sequence) {
+            this.stream = stream;
+            this.sequence = sequence;
+        }
+
+        public String getStream() {
+            return stream;
+        }
+
+        public void setStream(String stream) {
+            this.stream = stream;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public void setSequence(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    // Adds to changes and removed whatever turns base into current
+    static void diff(Map<String, Object> base, Map<String, Object> current, Map<String, Object> changes,
+                     List<List<String>> removed, List<String> path) {
+        for (Map.Entry<String, Object> entry : current.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            if (!base.containsKey(key)) {
+                changes.put(key, value);
+                continue;
+            }
+            Object baseValue = base.get(key);
+            if (baseValue instanceof Map && value instanceof Map) {
+                Map<String, Object> nested = new LinkedHashMap<>();
+                List<String> nestedPath = new ArrayList<>(path);
+                nestedPath.add(key);
+                diff(asTree(baseValue), asTree(value), nested, removed, nestedPath);
+                if (!nested.isEmpty()) {
+                    changes.put(key, nested);
+                }
+            } else if (!Objects.equals(baseValue, value)) {
+                changes.put(key, value);
+            }
+        }
+        for (String key : base.keySet()) {
+            if (!current.containsKey(key)) {
+                List<String> removedPath = new ArrayList<>(path);
+                removedPath.add(key);
+                removed.add(removedPath);
+            }
+        }
+    }
+
+    // Returns a new tree: base with this delta applied. base is left untouched.
+    Map<String, Object> applyTo(Map<String, Object> base) {
+        Map<String, Object> result = isKeyframe() ? new LinkedHashMap<>() : copy(base);
+        merge(result, changes);
+        if (removed != null) {
+            for (List<String> path : removed) {
+                remove(result, path);
+            }
+        }
+        return result;
+    }
+
+    private static void merge(Map<String, Object> target, Map<String, Object> changes) {
+        if (changes == null) return;
+        for (Map.Entry<String, Object> entry : changes.entrySet()) {
+            Object existing = target.get(entry.getKey());
+            Object value = entry.getValue();
+            if (existing instanceof Map && value instanceof Map) {
+                // Copied when the baseline was copied, safe to change in place
+                merge(asTree(existing), asTree(value));
+            } else {
+                target.put(entry.getKey(), value instanceof Map ? copy(asTree(value)) : value);
+            }
+        }
+    }
+
+    private static void remove(Map<String, Object> target, List<String> path) {
+        Map<String, Object> parent = target;
+        for (int i = 0; i < path.size() - 1; i++) {
+            Object child = parent.get(path.get(i));
+            if (!(child instanceof Map)) return;
+            parent = asTree(child);
+        }
+        if (!path.isEmpty()) {
+            parent.remove(path.get(path.size() - 1));
+        }
+    }
+
+    // Copies the Maps of a tree; other values are never changed in place
+    static Map<String, Object> copy(Map<String, Object> tree) {
+        Map<String, Object> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : tree.entrySet()) {
+            Object value = entry.getValue();
+            copy.put(entry.getKey(), value instanceof Map ? copy(asTree(value)) : value);
+        }
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> asTree(Object value) {
+        return (Map<String, Object>) value;
+    }
+
+    @JsonIgnore
+    public boolean isKeyframe() {
+        return baseline == KEYFRAME;
+    }
+
+    // Getters and setters
+    public String getStream() {
+        return stream;
+    }
+
+    public void setStream(String stream) {
+        this.stream = stream;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public long getBaseline() {
+        return baseline;
+    }
+
+    public void setBaseline(long baseline) {
+        this.baseline = baseline;
+    }
+
+    public Map<String, Object> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(Map<String, Object> changes) {
+        this.changes = changes;
+    }
+
+    public List<List<String>> getRemoved() {
+        return removed;
+    }
+
+    public void setRemoved(List<List<String>> removed) {
+        this.removed = removed;
+    }
+}
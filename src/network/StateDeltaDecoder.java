@@ -0,0 +1,56 @@
+package network;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Receiver side of delta-compressed state updates. Keeps the recently
+ * rebuilt states of every stream, since the sender may base its next delta on
+ * any of them that was acknowledged.
+ */
+public class StateDeltaDecoder {
+    private static final int MAX_HISTORY = 64;
+
+    private final Map<String, TreeMap<Long, Map<String, Object>>> streams = new HashMap<>();
+
+    /**
+     * Rebuilds the full state from a delta received in the given session.
+     * Returns null when the delta is older than the newest state already
+     * rebuilt, or its baseline is gone; the sender's next keyframe repairs the latter.
+     */
+    public synchronized Map<String, Object> apply(String sessionId, StateDelta delta) {
+        TreeMap<Long, Map<String, Object>> history =
+                streams.computeIfAbsent(sessionId + "/" + delta.getStream(), s -> new TreeMap<>());
+        if (!history.isEmpty() && delta.getSequence() <= history.lastKey()) {
+            if (!delta.isKeyframe()) {
+                return null;
+            }
+            // Frames arrive in order, so an old sequence number on a keyframe means the sender started over
+            history.clear();
+        }
+
+        Map<String, Object> base = null;
+        if (!delta.isKeyframe()) {
+            base = history.get(delta.getBaseline());
+            if (base == null) {
+                return null;
+            }
+        }
+
+        Map<String, Object> state = delta.applyTo(base);
+        history.put(delta.getSequence(), state);
+        // The sender never goes back past its baseline, so older states are no longer needed
+        if (!delta.isKeyframe()) {
+            history.headMap(delta.getBaseline(), false).clear();
+        }
+        while (history.size() > MAX_HISTORY) {
+            history.pollFirstEntry();
+        }
+        return state;
+    }
+
+    public synchronized void reset() {
+        streams.clear();
+    }
+}
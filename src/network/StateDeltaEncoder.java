@@ -0,0 +1,110 @@
+package network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sender side of delta-compressed state updates. Remembers what was sent to
+ * each recipient and which of those states the recipient acknowledged, and
+ * encodes every new state against the latest acknowledged one.
+ *
+ * A keyframe goes out when a recipient has acknowledged nothing usable yet
+ * and at least every KEYFRAME_INTERVAL updates, so a receiver that lost its
+ * baseline recovers without extra round trips. Because every delta is based on
+ * an acknowledged state, a newer delta may replace an older one that has not
+ * been sent yet.
+ */
+public class StateDeltaEncoder {
+    public static final int KEYFRAME_INTERVAL = 40;
+    // Unacknowledged states kept per recipient; acks for anything older are ignored
+    private static final int MAX_HISTORY = 64;
+
+    private final String stream;
+    private final Map<String, Baselines> recipients;
+
+    private long keyframesSent;
+    private long deltasSent;
+    private long unchangedSkipped;
+
+    private static final class Baselines {
+        private final TreeMap<Long, Map<String, Object>> sent = new TreeMap<>();
+        private long nextSequence = 1;
+        private long acknowledged = StateDelta.KEYFRAME;
+        private long lastKeyframe = StateDelta.KEYFRAME;
+    }
+
+    public StateDeltaEncoder(String stream) {
+        this.stream = stream;
+        this.recipients = new HashMap<>();
+    }
+
+    /**
+     * Encodes state for one recipient, or returns null when it equals the last
+     * state sent and the recipient acknowledged that one. The state must not be
+     * changed afterwards; it is kept as a possible baseline.
+     */
+    public synchronized StateDelta encode(String recipient, Map<String, Object> state) {
+        Baselines baselines = recipients.computeIfAbsent(recipient, r -> new Baselines());
+        long sequence = baselines.nextSequence;
+        Map<String, Object> base = baselines.sent.get(baselines.acknowledged);
+
+        StateDelta delta;
+        if (base == null || sequence - baselines.lastKeyframe >= KEYFRAME_INTERVAL) {
+            delta = new StateDelta(stream, sequence, StateDelta.KEYFRAME, state, new ArrayList<>());
+            baselines.lastKeyframe = sequence;
+            keyframesSent++;
+        } else {
+            Map<String, Object> changes = new LinkedHashMap<>();
+            List<List<String>> removed = new ArrayList<>();
+            StateDelta.diff(base, state, changes, removed, new ArrayList<>());
+            // Only skip when the receiver is known to hold exactly this state already
+            if (changes.isEmpty() && removed.isEmpty() && baselines.acknowledged == sequence - 1) {
+                unchangedSkipped++;
+                return null;
+            }
+            delta = new StateDelta(stream, sequence, baselines.acknowledged, changes, removed);
+            deltasSent++;
+        }
+
+        baselines.nextSequence++;
+        baselines.sent.put(sequence, state);
+        while (baselines.sent.size() > MAX_HISTORY) {
+            baselines.sent.pollFirstEntry();
+        }
+        return delta;
+    }
+
+    public synchronized void acknowledge(String recipient, long sequence) {
+        Baselines baselines = recipients.get(recipient);
+        if (baselines == null || sequence <= baselines.acknowledged || !baselines.sent.containsKey(sequence)) {
+            return;
+        }
+        baselines.acknowledged = sequence;
+        // Older states can no longer become a baseline
+        baselines.sent.headMap(sequence, false).clear();
+    }
+
+    public synchronized void removeRecipient(String recipient) {
+        recipients.remove(recipient);
+    }
+
+    public String getStream() {
+        return stream;
+    }
+
+    public synchronized long getKeyframesSent() {
+        return keyframesSent;
+    }
+
+    public synchronized long getDeltasSent() {
+        return deltasSent;
+    }
+
+    public synchronized long getUnchangedSkipped() {
+        return unchangedSkipped;
+    }
+}
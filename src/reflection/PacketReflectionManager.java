@@ -1,10 +1,13 @@
 package reflection;
 
 import model.Packet;
+import model.PacketPool;
 import model.PacketType;
 import model.Point2D;
 import model.Vec2D;
-import java.lang.reflect.Constructor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Modifier;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -15,12 +18,14 @@ public class PacketReflectionManager {
     private static final String PACKET_SUFFIX = "Packet";
 
     private Map<Class<? extends Packet>, PacketType> packetTypeMap;
+    private Map<PacketType, PacketPool.Factory> packetFactories; // Resolved once, used for every packet
     private Map<PacketType, Integer> packetCooldowns;
     private Map<PacketType, Integer> packetQuantities;
     private Random random;
 
     public PacketReflectionManager() {
         this.packetTypeMap = new ConcurrentHashMap<>();
+        this.packetFactories = new EnumMap<>(PacketType.class);
         this.packetCooldowns = new ConcurrentHashMap<>();
         this.packetQuantities = new ConcurrentHashMap<>();
         this.random = new Random();
@@ -77,10 +82,14 @@ public class PacketReflectionManager {
                 if (Packet.class.isAssignableFrom(packetClass) &&
                         !Modifier.isAbstract(packetClass.getModifiers())) {
 
-                    // Try to find a suitable constructor
-                    Constructor<?>[] constructors = packetClass.getConstructors();
-                    if (constructors.length > 0) {
-                        packetTypeMap.put((Class<? extends Packet>) packetClass, packetType);
+                    // Checked by asSubclass, so the typed class needs no unchecked cast
+                    Class<? extends Packet> concreteClass = packetClass.asSubclass(Packet.class);
+
+                    // Resolve a constructor now so creating packets later never reflects
+                    PacketPool.Factory factory = resolveFactory(concreteClass);
+                    if (factory != null) {
+                        packetTypeMap.put(concreteClass, packetType);
+                        packetFactories.put(packetType, factory);
                         System.out.println("Discovered packet type: " + className + " -> " + packetType);
                     }
                 }
@@ -156,66 +165,65 @@ public class PacketReflectionManager {
         }
     }
 
-    public Packet createPacket(PacketType packetType, Point2D position, Vec2D movementVector) {
-        try {
-            // Find the class for this packet type
-            Class<? extends Packet> packetClass = getPacketClass(packetType);
-            if (packetClass == null) {
-                System.err.println("No class found for packet type: " + packetType);
-                return null;
-            }
+    private PacketPool.Factory resolveFactory(Class<? extends Packet> packetClass) {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        String className = packetClass.getSimpleName();
 
-            // Try to find a suitable constructor
-            Constructor<?>[] constructors = packetClass.getConstructors();
-            for (Constructor<?> constructor : constructors) {
+        // Prefer the (position, movement) constructor
+        try {
+            MethodHandle constructor = lookup.findConstructor(packetClass,
+                    MethodType.methodType(void.class, Point2D.class, Vec2D.class))
+                    .asType(MethodType.methodType(Packet.class, Point2D.class, Vec2D.class));
+            return (position, movementVector) -> {
                 try {
-                    if (constructor.getParameterCount() == 2) {
-                        // Try constructor with position and movement vector
-                        return (Packet) constructor.newInstance(position, movementVector);
-                    } else if (constructor.getParameterCount() == 0) {
-                        // Try default constructor and set properties
-                        Packet packet = (Packet) constructor.newInstance();
-                        // Use reflection to set properties if they exist
-                        setPacketProperty(packet, "currentPosition", position);
-                        setPacketProperty(packet, "movementVector", movementVector);
-                        return packet;
-                    }
-                } catch (Exception e) {
-                    // Try next constructor
-                    continue;
+                    return (Packet) constructor.invokeExact(position, movementVector);
+                } catch (Throwable e) {
+                    System.err.println("Error creating packet " + className + ": " + e.getMessage());
+                    return null;
                 }
-            }
-
-            System.err.println("No suitable constructor found for packet type: " + packetType);
-            return null;
+            };
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            // Fall back to the default constructor
+        }
 
-        } catch (Exception e) {
-            System.err.println("Error creating packet of type " + packetType + ": " + e.getMessage());
+        try {
+            MethodHandle constructor = lookup.findConstructor(packetClass, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Packet.class));
+            return (position, movementVector) -> {
+                try {
+                    Packet packet = (Packet) constructor.invokeExact();
+                    packet.setCurrentPosition(position);
+                    packet.setMovementVector(movementVector);
+                    return packet;
+                } catch (Throwable e) {
+                    System.err.println("Error creating packet " + className + ": " + e.getMessage());
+                    return null;
+                }
+            };
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            System.err.println("No suitable constructor found for packet class: " + className);
             return null;
         }
     }
 
-    private Class<? extends Packet> getPacketClass(PacketType packetType) {
-        for (Map.Entry<Class<? extends Packet>, PacketType> entry : packetTypeMap.entrySet()) {
-            if (entry.getValue() == packetType) {
-                return entry.getKey();
-            }
+    public Packet createPacket(PacketType packetType, Point2D position, Vec2D movementVector) {
+        PacketPool.Factory factory = packetFactories.get(packetType);
+        if (factory == null) {
+            System.err.println("No class found for packet type: " + packetType);
+            return null;
         }
-        return null;
+        return factory.create(position, movementVector);
     }
 
-    private void setPacketProperty(Packet packet, String propertyName, Object value) {
-        try {
-            java.lang.reflect.Field field = packet.getClass().getDeclaredField(propertyName);
-            field.setAccessible(true);
-            field.set(packet, value);
-        } catch (Exception e) {
-            // Property doesn't exist or can't be set, ignore
-        }
+    public Packet createPacket(PacketType packetType, Point2D position, Vec2D movementVector, PacketPool pool) {
+        return pool.acquire(packetType, position, movementVector, (p, v) -> createPacket(packetType, p, v));
     }
 
-
     public List<Packet> generatePacketWave(int waveSize, Point2D sourcePosition) {
+        return generatePacketWave(waveSize, sourcePosition, null);
+    }
+
+    public List<Packet> generatePacketWave(int waveSize, Point2D sourcePosition, PacketPool pool) {
         List<Packet> wave = new ArrayList<>();
 
         // Create a hierarchy of packets based on wave size
@@ -234,7 +242,9 @@ public class PacketReflectionManager {
                         Math.sin(angle) * speed
                 );
 
-                Packet packet = createPacket(selectedType, sourcePosition, movementVector);
+                Packet packet = pool != null
+                        ? createPacket(selectedType, sourcePosition, movementVector, pool)
+                        : createPacket(selectedType, sourcePosition, movementVector);
                 if (packet != null) {
                     wave.add(packet);
                     consumePacket(selectedType);
@@ -321,6 +331,11 @@ public class PacketReflectionManager {
     }
 
 
+    // Makes the generated packets repeatable, e.g. on both clients of a lockstep match
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+
     public int getPacketCooldown(PacketType packetType) {
         return packetCooldowns.getOrDefault(packetType, 10);
     }
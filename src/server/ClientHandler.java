@@ -1,53 +1,67 @@
 package server;
 
+import network.FrameCodec;
+import network.FrameReader;
 import network.NetworkMessage;
+import network.StateDelta;
 import model.UserData;
+import multiplayer.LockstepInput;
 import leaderboard.ScoreRecord;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.*;
 import java.net.Socket;
+import java.util.List;
 
 public class ClientHandler implements Runnable {
     private String clientId;
     private Socket clientSocket;
     private GameServer server;
-    private ObjectMapper objectMapper;
+    private FrameCodec frameCodec;
 
-    private PrintWriter out;
-    private BufferedReader in;
-    private boolean isConnected;
+    private OutputStream out;
+    private InputStream in;
+    private final OutboundQueue outboundQueue;
+    private volatile boolean isConnected;
+    // Switched on once the client has offered binary frames and we acknowledged
+    private volatile boolean binaryFrames;
+
+    // Set when the client is served by the NIO transport instead of a blocking socket
+    private NioServerTransport.Connection channelConnection;
 
     public ClientHandler(String clientId, Socket clientSocket, GameServer server) {
         this.clientId = clientId;
         this.clientSocket = clientSocket;
         this.server = server;
-        this.objectMapper = new ObjectMapper();
+        this.frameCodec = new FrameCodec();
+        this.outboundQueue = server.newOutboundQueue(clientId, frameCodec, new FrameSink(), () -> {
+            if (isConnected) disconnect();
+        });
+        this.isConnected = true;
+    }
+
+    ClientHandler(String clientId, NioServerTransport.Connection channelConnection, GameServer server) {
+        this.clientId = clientId;
+        this.channelConnection = channelConnection;
+        this.server = server;
+        this.frameCodec = new FrameCodec();
+        this.outboundQueue = server.newOutboundQueue(clientId, frameCodec, new FrameSink(), () -> {
+            if (isConnected) disconnect();
+        });
         this.isConnected = true;
     }
 
     @Override
     public void run() {
         try {
-            out = new PrintWriter(clientSocket.getOutputStream(), true);
-            in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-
-            // Send welcome message
-            sendMessage(new NetworkMessage(NetworkMessage.MessageType.CONNECT, clientId, "Welcome to Network Simulation Game!"));
+            out = new BufferedOutputStream(clientSocket.getOutputStream());
+            in = new BufferedInputStream(clientSocket.getInputStream());
+            FrameReader frameReader = new FrameReader(in);
 
-            // Synchronize offline data if any exists
-            server.getOfflineDataHandler().synchronizeOfflineData(clientId);
+            onConnected();
 
             // Handle incoming messages
-            String inputLine;
-            while (isConnected && (inputLine = in.readLine()) != null) {
-                try {
-                    NetworkMessage message = objectMapper.readValue(inputLine, NetworkMessage.class);
-                    handleMessage(message);
-                } catch (Exception e) {
-                    // Log parsing error
-                    System.err.println("Error parsing message from " + clientId + ": " + e.getMessage());
-                    System.err.println("Raw message: " + inputLine);
-                }
+            FrameCodec.Frame frame;
+            while (isConnected && (frame = frameReader.readFrame()) != null) {
+                handleFrame(frame);
             }
         } catch (Exception e) {
             System.err.println("Error handling client " + clientId + ": " + e.getMessage());
@@ -56,8 +70,32 @@ public class ClientHandler implements Runnable {
         }
     }
 
+    void onConnected() {
+        // Send welcome message
+        sendMessage(new NetworkMessage(NetworkMessage.MessageType.CONNECT, clientId, "Welcome to Network Simulation Game!"));
+
+        // Synchronize offline data if any exists
+        server.getOfflineDataHandler().submitSynchronization(clientId);
+    }
+
+    void handleFrame(FrameCodec.Frame frame) {
+        NetworkMessage message;
+        try {
+            message = frameCodec.decode(frame);
+        } catch (Exception e) {
+            // Log parsing error
+            System.err.println("Error parsing message from " + clientId + ": " + e.getMessage());
+            System.err.println("Raw message: " + frame);
+            return;
+        }
+        handleMessage(message);
+    }
+
     private void handleMessage(NetworkMessage message) {
         switch (message.getType()) {
+            case CONNECT:
+                handleConnect(message);
+                break;
             case DISCONNECT:
                 disconnect();
                 break;
@@ -74,8 +112,12 @@ public class ClientHandler implements Runnable {
                 handleMultiplayerReject(message);
                 break;
             case GAME_STATE_UPDATE:
+            case STATE_DELTA:
                 handleGameStateUpdate(message);
                 break;
+            case STATE_ACK:
+                handleStateAck(message);
+                break;
             case NETWORK_DATA:
                 handleNetworkData(message);
                 break;
@@ -97,6 +139,15 @@ public class ClientHandler implements Runnable {
         }
     }
 
+    // Frame negotiation: acknowledge a binary frame offer unless the server is pinned to JSON
+    private void handleConnect(NetworkMessage message) {
+        if (FrameCodec.BINARY_OFFER.equals(message.getData())
+                && !"json".equalsIgnoreCase(java.lang.System.getProperty("server.frames", "binary"))) {
+            sendMessage(new NetworkMessage(NetworkMessage.MessageType.CONNECT, "SERVER", FrameCodec.BINARY_ACK));
+            binaryFrames = true;
+        }
+    }
+
     private void handleMultiplayerInvite(NetworkMessage message) {
         try {
             String data = (String) message.getData();
@@ -360,6 +411,21 @@ public class ClientHandler implements Runnable {
         }
     }
 
+    // Acks for the session's own state stay here; acks for a player's state go back to that player
+    private void handleStateAck(NetworkMessage message) {
+        if (!(message.getData() instanceof StateDelta.Ack) || message.getSessionId() == null) return;
+
+        StateDelta.Ack ack = (StateDelta.Ack) message.getData();
+        MultiplayerSession session = server.getSession(message.getSessionId());
+        if (session == null) return;
+
+        if ("SERVER".equals(ack.getStream())) {
+            session.acknowledgeState(clientId, ack.getSequence());
+        } else {
+            handleGameStateUpdate(message);
+        }
+    }
+
     private void handleNetworkData(NetworkMessage message) {
         try {
             System.out.println("🔄 SERVER: Processing network data from " + clientId);
@@ -372,6 +438,11 @@ public class ClientHandler implements Runnable {
                 // Get the multiplayer session
                 MultiplayerSession session = server.getSession(sessionId);
                 if (session != null && session.isActive()) {
+                    // The session simulates this network once the game starts
+                    if (networkData instanceof model.GameLevel) {
+                        session.setPlayerNetwork(clientId, (model.GameLevel) networkData);
+                    }
+
                     // Forward the network data to the other player
                     String otherPlayerId = session.getOtherPlayerId(clientId);
                     if (otherPlayerId != null) {
@@ -443,7 +514,10 @@ public class ClientHandler implements Runnable {
             if (sessionId != null) {
                 // Get the multiplayer session
                 MultiplayerSession session = server.getSession(sessionId);
-                if (session != null && session.isActive()) {
+                if (session != null && session.isActive() && actionData instanceof LockstepInput) {
+                    // Lockstep inputs are relayed once by the session, which also checks their checksums
+                    session.relayLockstepInput(clientId, (LockstepInput) actionData);
+                } else if (session != null && session.isActive()) {
                     // Forward the action to the session for processing
                     session.handlePlayerAction(clientId, actionData);
 
@@ -565,24 +639,42 @@ public class ClientHandler implements Runnable {
         }
     }
 
+    // Queues the message; the connection's writer encodes and sends it
     public void sendMessage(NetworkMessage message) {
-        if (isConnected && out != null) {
-            try {
-                String jsonMessage = objectMapper.writeValueAsString(message);
-                out.println(jsonMessage);
-            } catch (Exception e) {
-                System.err.println("Error sending message to " + clientId + ": " + e.getMessage());
+        if (isConnected && (out != null || channelConnection != null)) {
+            outboundQueue.offer(message, binaryFrames);
+        }
+    }
+
+    // Writes for the outbound queue's drain task, which is the only writer of a connection
+    private final class FrameSink implements OutboundQueue.Sink {
+        @Override
+        public void write(List<byte[]> frames) throws IOException {
+            if (channelConnection != null) {
+                channelConnection.send(frames);
+            } else {
+                for (byte[] frame : frames) {
+                    out.write(frame);
+                }
+                out.flush();
             }
         }
+
+        @Override
+        public boolean isBacklogged() {
+            return channelConnection != null && channelConnection.isBacklogged();
+        }
     }
 
     public void disconnect() {
         isConnected = false;
+        outboundQueue.close();
 
         try {
             if (out != null) out.close();
             if (in != null) in.close();
             if (clientSocket != null) clientSocket.close();
+            if (channelConnection != null) channelConnection.close();
         } catch (Exception e) {
             // Log error
         }
@@ -599,6 +691,15 @@ public class ClientHandler implements Runnable {
     public boolean isConnected() {
         return isConnected;
     }
+
+    public OutboundQueue getOutboundQueue() {
+        return outboundQueue;
+    }
+
+    // Called by the NIO transport once buffered output has drained
+    void onWritable() {
+        outboundQueue.resume();
+    }
 }
 
 
@@ -0,0 +1,182 @@
+package server;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides which threads run blocking per-client work: ClientHandler loops and
+ * offline data synchronization. Chosen with -Dserver.executor. Handlers run
+ * for the whole connection, so -Dserver.maxConcurrentHandlers rejects
+ * connections over the cap rather than letting them wait for one to end.
+ * Sync jobs are short and have their own cap, -Dserver.maxConcurrentSyncJobs,
+ * over which they wait in FIFO order.
+ */
+public enum ExecutorStrategy {
+    /** A cached pool of platform threads, one thread per running task. */
+    CACHED,
+    /** One virtual thread per task where the JVM has them, otherwise CACHED. */
+    VIRTUAL;
+
+    static ExecutorStrategy fromSystemProperty() {
+        String value = System.getProperty("server.executor", "cached");
+        return "virtual".equalsIgnoreCase(value.trim()) ? VIRTUAL : CACHED;
+    }
+
+    static int concurrencyCapFromSystemProperty() {
+        return Integer.getInteger("server.maxConcurrentHandlers", 0);
+    }
+
+    static int syncJobCapFromSystemProperty() {
+        return Integer.getInteger("server.maxConcurrentSyncJobs", 0);
+    }
+
+    /**
+     * Creates an executor for this strategy whose tasks over the cap wait for
+     * a running one to finish. A cap of zero or less means no cap.
+     */
+    public ExecutorService newExecutor(String threadNamePrefix, int maxConcurrent) {
+        return newExecutor(threadNamePrefix, maxConcurrent, true);
+    }
+
+    /**
+     * Creates an executor for this strategy. Over the cap, tasks wait if
+     * queueOverCap is set and are rejected otherwise; use rejection for tasks
+     * that only end with their connection. A cap of zero or less means no cap.
+     */
+    public ExecutorService newExecutor(String threadNamePrefix, int maxConcurrent, boolean queueOverCap) {
+        ExecutorService executor = null;
+        if (this == VIRTUAL) {
+            executor = newVirtualThreadExecutor();
+            if (executor == null) {
+                System.out.println("Virtual threads not available on this JVM, using platform threads for " + threadNamePrefix);
+            }
+        }
+        if (executor == null) {
+            AtomicInteger threadIds = new AtomicInteger();
+            executor = Executors.newCachedThreadPool(
+                    runnable -> new Thread(runnable, threadNamePrefix + "-" + threadIds.incrementAndGet()));
+        }
+        return maxConcurrent > 0 ? new CappedExecutor(executor, maxConcurrent, queueOverCap) : executor;
+    }
+
+    // Looked up reflectively so the server still builds and runs on Java 17
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            // Not present, or still a preview feature that is not enabled
+            return null;
+        }
+    }
+
+    /**
+     * Runs at most maxConcurrent tasks at a time on the delegate and queues or
+     * rejects the rest.
+     */
+    static final class CappedExecutor extends AbstractExecutorService {
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+        private final Queue<Runnable> waiting;
+        private final int maxConcurrent;
+        private final boolean queueOverCap;
+        private volatile boolean shutdown;
+
+        CappedExecutor(ExecutorService delegate, int maxConcurrent, boolean queueOverCap) {
+            this.delegate = delegate;
+            this.maxConcurrent = maxConcurrent;
+            this.queueOverCap = queueOverCap;
+            this.permits = new Semaphore(maxConcurrent);
+            this.waiting = new ConcurrentLinkedQueue<>();
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (shutdown) {
+                throw new RejectedExecutionException("Executor is shut down");
+            }
+            if (!queueOverCap) {
+                if (!permits.tryAcquire()) {
+                    throw new RejectedExecutionException(maxConcurrent + " tasks already running");
+                }
+                start(task);
+                return;
+            }
+            waiting.add(task);
+            startWaiting();
+        }
+
+        private void startWaiting() {
+            while (!waiting.isEmpty() && !delegate.isShutdown() && permits.tryAcquire()) {
+                Runnable task = waiting.poll();
+                if (task == null) {
+                    permits.release();
+                    continue;
+                }
+                start(task);
+            }
+        }
+
+        // Runs a task that already holds a permit
+        private void start(Runnable task) {
+            try {
+                delegate.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                        startWaiting();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        public int getWaitingCount() {
+            return waiting.size();
+        }
+
+        public int getRunningCount() {
+            return maxConcurrent - permits.availablePermits();
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            List<Runnable> pending = new java.util.ArrayList<>(waiting);
+            waiting.clear();
+            pending.addAll(delegate.shutdownNow());
+            return pending;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown && waiting.isEmpty() && delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
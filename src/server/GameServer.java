@@ -13,10 +13,31 @@ import java.util.concurrent.*;
 public class GameServer {
     private static final int DEFAULT_PORT = 8081;
     private static final int MAX_CLIENTS = 10;
+    private static final int MAX_NIO_CLIENTS = 10000;
+
+    /**
+     * How client sockets are served. BLOCKING gives every client its own
+     * thread; NIO multiplexes all clients over a few selector threads.
+     * Chosen with -Dserver.transport=nio, the client limit with -Dserver.maxClients.
+     */
+    public enum Transport {
+        BLOCKING, NIO;
+
+        static Transport fromSystemProperty() {
+            String value = System.getProperty("server.transport", "blocking");
+            return "nio".equalsIgnoreCase(value.trim()) ? NIO : BLOCKING;
+        }
+    }
 
     private ServerSocket serverSocket;
+    private NioServerTransport nioTransport;
     private int port;
-    private boolean isRunning;
+    private volatile boolean isRunning;
+    private final Transport transport;
+    private final int maxClients;
+    private final ExecutorStrategy executorStrategy;
+    private final int outboundQueueCapacity;
+    private final OutboundQueue.OverflowPolicy outboundOverflowPolicy;
 
 
     // Client management
@@ -31,15 +52,40 @@ public class GameServer {
 
     // Thread pools
     private ExecutorService clientHandlerPool;
-    private ScheduledExecutorService gameUpdatePool;
+    private ExecutorService offlineSyncPool;
+    private ExecutorService outboundWriterPool;
+    private SessionTickScheduler sessionTicks;
 
     public GameServer() {
         this(DEFAULT_PORT);
     }
 
     public GameServer(int port) {
+        this(port, Transport.fromSystemProperty());
+    }
+
+    public GameServer(int port, Transport transport) {
+        this(port, transport, ExecutorStrategy.fromSystemProperty(), ExecutorStrategy.concurrencyCapFromSystemProperty());
+    }
+
+    public GameServer(int port, Transport transport, ExecutorStrategy executorStrategy, int maxConcurrentHandlers) {
+        this(port, transport, executorStrategy, maxConcurrentHandlers, ExecutorStrategy.syncJobCapFromSystemProperty());
+    }
+
+    /**
+     * @param maxConcurrentHandlers cap on connected clients with a running handler, zero for no cap
+     * @param maxConcurrentSyncJobs cap on offline sync jobs running at once, zero for no cap
+     */
+    public GameServer(int port, Transport transport, ExecutorStrategy executorStrategy,
+                      int maxConcurrentHandlers, int maxConcurrentSyncJobs) {
         this.port = port;
+        this.executorStrategy = executorStrategy;
         this.isRunning = false;
+        this.transport = transport;
+        this.maxClients = Integer.getInteger("server.maxClients",
+                transport == Transport.NIO ? MAX_NIO_CLIENTS : MAX_CLIENTS);
+        this.outboundQueueCapacity = OutboundQueue.capacityFromSystemProperty();
+        this.outboundOverflowPolicy = OutboundQueue.OverflowPolicy.fromSystemProperty();
 
         this.connectedClients = new ConcurrentHashMap<>();
         this.activeSessions = new ConcurrentHashMap<>();
@@ -50,11 +96,20 @@ public class GameServer {
         this.dataValidator = new DataIntegrityValidator();
         this.databaseManager = new DatabaseManager();
 
-        this.clientHandlerPool = Executors.newCachedThreadPool();
-        this.gameUpdatePool = Executors.newScheduledThreadPool(2);
+        // A handler runs until its client leaves, so a connection over the cap is turned away instead of queued
+        this.clientHandlerPool = executorStrategy.newExecutor("client-handler", maxConcurrentHandlers, false);
+        this.offlineSyncPool = executorStrategy.newExecutor("offline-sync", maxConcurrentSyncJobs);
+        this.offlineDataHandler.setSyncExecutor(offlineSyncPool);
+        // Not capped: a writer blocked on one slow socket must not keep other clients' writers waiting
+        this.outboundWriterPool = executorStrategy.newExecutor("client-writer", 0);
+        this.sessionTicks = new SessionTickScheduler();
     }
 
     public void start() {
+        if (transport == Transport.NIO) {
+            startNioTransport();
+            return;
+        }
         try {
             serverSocket = new ServerSocket(port);
             isRunning = true;
@@ -62,14 +117,13 @@ public class GameServer {
             System.out.println("Game Server started on port " + port);
             System.out.println("Waiting for client connections...");
 
-            // Start game update scheduler
-            startGameUpdateScheduler();
+            System.out.println("Session ticks on " + sessionTicks.getThreadCount() + " threads");
 
             // Accept client connections
             while (isRunning) {
                 try {
                     Socket clientSocket = serverSocket.accept();
-                    if (connectedClients.size() < MAX_CLIENTS) {
+                    if (connectedClients.size() < maxClients) {
                         handleNewClient(clientSocket);
                     } else {
                         // Reject connection if at capacity
@@ -86,9 +140,28 @@ public class GameServer {
         }
     }
 
+    // Returns once the selector threads are running, they keep the process alive
+    private void startNioTransport() {
+        try {
+            nioTransport = new NioServerTransport(this, port, maxClients);
+            nioTransport.start();
+            isRunning = true;
+
+            System.out.println("Game Server started on port " + port + " (NIO transport, max " + maxClients + " clients)");
+
+            System.out.println("Session ticks on " + sessionTicks.getThreadCount() + " threads");
+        } catch (Exception e) {
+            System.err.println("Failed to start server: " + e.getMessage());
+        }
+    }
+
     public void stop() {
         isRunning = false;
 
+        if (nioTransport != null) {
+            nioTransport.stop();
+        }
+
         // Close all client connections
         for (ClientHandler client : connectedClients.values()) {
             client.disconnect();
@@ -100,7 +173,9 @@ public class GameServer {
 
         // Shutdown thread pools
         clientHandlerPool.shutdown();
-        gameUpdatePool.shutdown();
+        offlineSyncPool.shutdown();
+        outboundWriterPool.shutdown();
+        sessionTicks.shutdown();
 
         try {
             if (serverSocket != null) {
@@ -119,26 +194,30 @@ public class GameServer {
         String userId = userManager.identifyUser(clientSocket);
         ClientHandler clientHandler = new ClientHandler(userId, clientSocket, this);
 
-        connectedClients.put(userId, clientHandler);
-        clientHandlerPool.submit(clientHandler);
+        addClient(clientHandler);
+        try {
+            clientHandlerPool.execute(clientHandler);
+        } catch (RejectedExecutionException e) {
+            System.err.println("Rejecting client " + clientHandler.getClientId() + ": " + e.getMessage());
+            clientHandler.disconnect();
+        }
+    }
+
+    OutboundQueue newOutboundQueue(String clientId, network.FrameCodec frameCodec,
+                                   OutboundQueue.Sink sink, Runnable onFailure) {
+        return new OutboundQueue(clientId, frameCodec, outboundWriterPool, outboundQueueCapacity,
+                outboundOverflowPolicy, sink, onFailure);
+    }
+
+    void addClient(ClientHandler clientHandler) {
+        connectedClients.put(clientHandler.getClientId(), clientHandler);
 
         // Set connection status for offline data handler
         offlineDataHandler.setConnectionStatus(true);
 
-        System.out.println("New client connected: " + userId + " (MAC-based identification)");
+        System.out.println("New client connected: " + clientHandler.getClientId() + " (MAC-based identification)");
     }
 
-    private void startGameUpdateScheduler() {
-        gameUpdatePool.scheduleAtFixedRate(() -> {
-            for (MultiplayerSession session : activeSessions.values()) {
-                if (session.isActive()) {
-                    session.update();
-                }
-            }
-        }, 0, 50, TimeUnit.MILLISECONDS); // 20 FPS updates
-    }
-
-
     public void removeClient(String clientId) {
         ClientHandler client = connectedClients.remove(clientId);
         if (client != null) {
@@ -152,6 +231,7 @@ public class GameServer {
         MultiplayerSession session = new MultiplayerSession(sessionId, player1Id, player2Id);
         session.setServer(this); // Set the server reference
         activeSessions.put(sessionId, session);
+        sessionTicks.schedule(session);
 
         System.out.println("Created multiplayer session: " + sessionId);
         return sessionId;
@@ -162,6 +242,7 @@ public class GameServer {
         MultiplayerSession session = new MultiplayerSession(sessionId, player1Id, player2Id);
         session.setServer(this); // Set the server reference
         activeSessions.put(sessionId, session);
+        sessionTicks.schedule(session);
 
         System.out.println("✅ SERVER: Session created: " + sessionId);
         return sessionId;
@@ -192,6 +273,7 @@ public class GameServer {
 
     public void removeSession(String sessionId) {
         MultiplayerSession session = activeSessions.remove(sessionId);
+        sessionTicks.cancel(sessionId);
         if (session != null) {
             System.out.println("Removed session: " + sessionId);
         }
@@ -224,6 +306,18 @@ public class GameServer {
         return isRunning;
     }
 
+    public Transport getTransport() {
+        return transport;
+    }
+
+    public ExecutorStrategy getExecutorStrategy() {
+        return executorStrategy;
+    }
+
+    public int getMaxClients() {
+        return maxClients;
+    }
+
     public int getConnectedClientCount() {
         return connectedClients.size();
     }
@@ -232,6 +326,18 @@ public class GameServer {
         return activeSessions.size();
     }
 
+    public OutboundQueue.OverflowPolicy getOutboundOverflowPolicy() {
+        return outboundOverflowPolicy;
+    }
+
+    public int getOutboundQueueCapacity() {
+        return outboundQueueCapacity;
+    }
+
+    public SessionTickScheduler getSessionTicks() {
+        return sessionTicks;
+    }
+
     // Phase 3 component getters
     public UserManager getUserManager() {
         return userManager;
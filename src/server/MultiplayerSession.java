@@ -1,8 +1,17 @@
 package server;
 
+import controller.HeadlessSimulation;
+import model.GameStats;
+import multiplayer.LockstepInput;
+import multiplayer.PlayerAction;
+import multiplayer.PlayerState;
 import network.NetworkMessage;
+import network.PayloadRegistry;
+import network.StateDelta;
+import network.StateDeltaEncoder;
 import reflection.PacketReflectionManager;
 import model.GameState;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -39,6 +48,33 @@ public class MultiplayerSession {
     private double currentSpeedMultiplier = 1.0;
     private PacketReflectionManager packetManager;
 
+    // State updates are sent as deltas against what each player acknowledged; -Dserver.stateDeltas=off sends full states
+    private static final boolean STATE_DELTAS = !"off".equalsIgnoreCase(System.getProperty("server.stateDeltas", "on"));
+    private final StateDeltaEncoder stateDeltas = new StateDeltaEncoder("SERVER");
+
+    // Each player's network as sent during setup; simulated here once the game starts, so both
+    // clients see the same results. Simulations and scores are only touched on the tick thread.
+    private final Map<String, model.GameLevel> playerNetworks = new ConcurrentHashMap<>();
+    private final Map<String, HeadlessSimulation> simulations = new LinkedHashMap<>();
+    private final Map<String, PlayerState> playerStates = new HashMap<>();
+    private boolean simulationsStarted;
+    // CPU time all simulations of one session may use per tick; -Dserver.simulationBudgetMicros
+    private static final long SIMULATION_BUDGET_NANOS =
+            Math.max(100L, Long.getLong("server.simulationBudgetMicros", 4000L)) * 1000L;
+
+    // -Dserver.lockstep=on: both clients run the match from the same seed and only exchange inputs;
+    // the server relays them and compares the state checksums they report instead of simulating
+    private static final boolean LOCKSTEP = "on".equalsIgnoreCase(System.getProperty("server.lockstep", "off"));
+    private static final int MAX_PENDING_CHECKSUMS = 64;
+    private final long lockstepSeed = new Random().nextLong();
+    // Turn -> first checksum reported for it, until the other player's arrives
+    private final TreeMap<Long, ChecksumReport> pendingChecksums = new TreeMap<>();
+    private volatile Long lockstepDesyncTurn;
+    private int lockstepDesyncs;
+
+    // Packets released by the players, moved here and sent to both clients with every state update
+    private final ReleasedPackets releasedPackets = new ReleasedPackets();
+
     public MultiplayerSession(String sessionId, String player1Id, String player2Id) {
         this.sessionId = sessionId;
         this.player1Id = player1Id;
@@ -212,16 +248,20 @@ public class MultiplayerSession {
     }
 
     private void updateGameState(long deltaTime) {
-        if (gameState == null) return;
+        // In lockstep the clients simulate; the server only keeps time and relays inputs
+        if (!LOCKSTEP) {
+            if (!simulationsStarted) {
+                startSimulations();
+            }
 
-        // Update packet movements
-        updatePacketMovements(deltaTime);
+            // Run both networks for the elapsed time, within the session's budget
+            stepSimulations(deltaTime);
 
-        // Check for collisions
-        checkCollisions();
+            // Update player scores
+            updatePlayerScores();
 
-        // Update player scores
-        updatePlayerScores();
+            releasedPackets.step(deltaTime / 1000.0);
+        }
 
         // Check for game over conditions
         checkGameOverConditions();
@@ -230,50 +270,53 @@ public class MultiplayerSession {
         sendGameStateUpdate();
     }
 
-    private void updatePacketMovements(long deltaTime) {
-        // This would update all active packets in the game state
-        // For now, we'll simulate packet movement
-        if (gameState.getActivePackets() != null) {
-            for (model.Packet packet : gameState.getActivePackets()) {
-                if (packet != null && packet.getCurrentPosition() != null && packet.getMovementVector() != null) {
-                    // Update packet position based on movement vector and delta time
-                    double deltaSeconds = deltaTime / 1000.0;
-                    double speedFactor = (setupPhaseStarted && !gameStarted) ? currentSpeedMultiplier : 1.0;
-                    double newX = packet.getCurrentPosition().getX() + packet.getMovementVector().getX() * deltaSeconds * speedFactor;
-                    double newY = packet.getCurrentPosition().getY() + packet.getMovementVector().getY() * deltaSeconds * speedFactor;
-
-                    packet.setCurrentPosition(new model.Point2D(newX, newY));
-                }
+    private void startSimulations() {
+        simulationsStarted = true;
+        for (String playerId : new String[]{player1Id, player2Id}) {
+            model.GameLevel network = playerId != null ? playerNetworks.get(playerId) : null;
+            if (network == null) {
+                System.out.println("⚠️ No network received from " + playerId + ", nothing to simulate");
+                continue;
+            }
+            try {
+                simulations.put(playerId, new HeadlessSimulation(network));
+                playerStates.put(playerId, new PlayerState(playerId, players.get(playerId).getName()));
+            } catch (RuntimeException e) {
+                System.err.println("❌ Could not simulate network of " + playerId + ": " + e.getMessage());
             }
         }
     }
 
-    private void checkCollisions() {
-        // Simplified collision detection
-        // In a real implementation, this would check for packet-to-packet collisions
-        // and packet-to-destination collisions
-        if (gameState.getActivePackets() != null) {
-            // Remove packets that are outside game bounds
-            gameState.getActivePackets().removeIf(packet -> {
-                if (packet == null || packet.getCurrentPosition() == null) return true;
-
-                double x = packet.getCurrentPosition().getX();
-                double y = packet.getCurrentPosition().getY();
+    private void stepSimulations(long deltaTime) {
+        if (simulations.isEmpty()) return;
 
-                // Remove packets outside game area
-                return x < 0 || x > 1400 || y < 0 || y > 900;
-            });
+        // Each simulation gets an equal share; time one leaves unused is available to the next
+        long start = System.nanoTime();
+        long share = SIMULATION_BUDGET_NANOS / simulations.size();
+        int index = 0;
+        for (HeadlessSimulation simulation : simulations.values()) {
+            index++;
+            simulation.advance(deltaTime / 1000.0, start + share * index);
         }
     }
 
-
     private void updatePlayerScores() {
-        // Simplified score update logic
-        // In a real implementation, this would check for successful packet deliveries
-        // and update player scores accordingly
+        // Deliveries and losses of the server's simulation, scored by the same rules as on the clients
+        for (Map.Entry<String, HeadlessSimulation> entry : simulations.entrySet()) {
+            PlayerState state = playerStates.get(entry.getKey());
+            GameStats stats = entry.getValue().getStats();
+            while (state.getSuccessfulDeliveries() < stats.getDeliveredPackets()) {
+                state.recordSuccessfulDelivery();
+            }
+            while (state.getFailedDeliveries() < stats.getLostPackets()) {
+                state.recordPacketLoss();
+            }
 
-        // For now, we'll just maintain the existing scores
-        // This would be called when packets reach their destinations
+            PlayerInfo player = players.get(entry.getKey());
+            if (player != null) {
+                player.setScore(state.getScore());
+            }
+        }
     }
 
     private void checkGameOverConditions() {
@@ -293,9 +336,19 @@ public class MultiplayerSession {
             endSession();
         } else if (player2 != null && player2.getScore() >= 50) {
             endSession();
+        } else if (isActive && !simulations.isEmpty() && allSimulationsFinished()) {
+            // Every network ran to the end of its level
+            endSession();
         }
     }
 
+    private boolean allSimulationsFinished() {
+        for (HeadlessSimulation simulation : simulations.values()) {
+            if (!simulation.isFinished()) return false;
+        }
+        return true;
+    }
+
     private void applyPenaltyEffects(long currentTime) {
         int penaltyPhase = getCurrentPenaltyPhase();
 
@@ -389,11 +442,31 @@ public class MultiplayerSession {
         gameStateData.put("phaseDescription", getCurrentPhaseDescription());
         gameStateData.put("cooldownMultiplier", currentCooldownMultiplier);
         gameStateData.put("speedMultiplier", currentSpeedMultiplier);
-        gameStateData.put("player1State", null); // would need to be implemented
-        gameStateData.put("player2State", null); // would need to be implemented
+        gameStateData.put("player1State", playerStateData(player1Id));
+        gameStateData.put("player2State", playerStateData(player2Id));
         gameStateData.put("controllableSystems", null); // would need to be implemented
         gameStateData.put("cooldowns", null); // would need to be implemented
         gameStateData.put("timestamp", System.currentTimeMillis());
+        if (!LOCKSTEP && gameStarted) {
+            gameStateData.put("packets", releasedPackets.snapshotData());
+            gameStateData.put("releaseAcks", releasedPackets.ackData());
+        }
+        if (LOCKSTEP) {
+            gameStateData.put("lockstepSeed", lockstepSeed);
+            if (lockstepDesyncTurn != null) {
+                gameStateData.put("lockstepDesyncTurn", lockstepDesyncTurn);
+            }
+        }
+
+        if (server == null) return;
+
+        if (STATE_DELTAS) {
+            sendStateDelta(player1Id, gameStateData);
+            if (player2Id != null) {
+                sendStateDelta(player2Id, gameStateData);
+            }
+            return;
+        }
 
         NetworkMessage updateMessage = new NetworkMessage(
                 NetworkMessage.MessageType.GAME_STATE_UPDATE,
@@ -402,11 +475,52 @@ public class MultiplayerSession {
                 gameStateData
         );
 
-        if (server != null) {
-            server.sendToClient(player1Id, updateMessage);
-            if (player2Id != null) {
-                server.sendToClient(player2Id, updateMessage);
-            }
+        server.sendToClient(player1Id, updateMessage);
+        if (player2Id != null) {
+            server.sendToClient(player2Id, updateMessage);
+        }
+    }
+
+    // Untyped so the delta encoder can compare it field by field; null until the player is simulated
+    private Object playerStateData(String playerId) {
+        PlayerState state = playerId != null ? playerStates.get(playerId) : null;
+        return state != null ? PayloadRegistry.getDefault().toUntyped(state) : null;
+    }
+
+    private void sendStateDelta(String playerId, Map<String, Object> gameStateData) {
+        StateDelta delta = stateDeltas.encode(playerId, gameStateData);
+        if (delta != null) {
+            server.sendToClient(playerId, new NetworkMessage(
+                    NetworkMessage.MessageType.STATE_DELTA,
+                    "SERVER",
+                    sessionId,
+                    delta
+            ));
+        }
+    }
+
+    /**
+     * Called when a player confirms it applied a state update, making that state its next baseline.
+     */
+    public void acknowledgeState(String playerId, long sequence) {
+        stateDeltas.acknowledge(playerId, sequence);
+    }
+
+    /**
+     * Keeps a copy of the network a player sent during setup. The message
+     * itself is forwarded to the opponent, so the simulation gets its own copy.
+     * Networks are fixed once the game has started.
+     */
+    public void setPlayerNetwork(String playerId, model.GameLevel network) {
+        if (network == null || playerId == null || !players.containsKey(playerId)) return;
+        if (gameStarted) {
+            System.out.println("⚠️ Ignoring network from " + playerId + ": game already started");
+            return;
+        }
+        try {
+            playerNetworks.put(playerId, PayloadRegistry.getDefault().copy(network, model.GameLevel.class));
+        } catch (IOException e) {
+            System.err.println("❌ Could not copy network of " + playerId + ": " + e.getMessage());
         }
     }
 
@@ -432,8 +546,17 @@ public class MultiplayerSession {
     public void handlePlayerAction(String playerId, Object actionData) {
         if (!gameStarted) return;
 
-        // Process the player action
-        // This would involve updating the game state based on the action
+        // Releases are carried out here; clients only predict them until the next state update
+        if (!LOCKSTEP && actionData instanceof PlayerAction
+                && ((PlayerAction) actionData).getType() == PlayerAction.ActionType.RELEASE_PACKET) {
+            PlayerAction action = (PlayerAction) actionData;
+            // Never the id the client claims; packet ids and acks follow the sending connection
+            String matchPlayerId = matchPlayerId(playerId);
+            if (matchPlayerId != null) {
+                action.setPlayerId(matchPlayerId);
+                releasedPackets.release(action);
+            }
+        }
 
         // Notify the other player about the action
         String otherPlayerId = playerId.equals(player1Id) ? player2Id : player1Id;
@@ -448,6 +571,72 @@ public class MultiplayerSession {
         server.sendToClient(otherPlayerId, actionMessage);
     }
 
+    // The id a player has within the match on the clients ("Player 1" or "Player 2"), by server client id
+    private String matchPlayerId(String playerId) {
+        PlayerInfo player = playerId != null ? players.get(playerId) : null;
+        return player != null ? player.getName() : null;
+    }
+
+    /**
+     * Forwards a player's lockstep input to the opponent and checks the
+     * checksum it carries against the one the opponent reported for that turn.
+     */
+    public void relayLockstepInput(String playerId, LockstepInput input) {
+        if (!gameStarted || server == null) return;
+
+        // Clients attribute the input's actions by its player id, so it comes from the connection
+        String matchPlayerId = matchPlayerId(playerId);
+        if (matchPlayerId == null) return;
+        input.setPlayerId(matchPlayerId);
+
+        String otherPlayerId = getOtherPlayerId(playerId);
+        if (otherPlayerId != null) {
+            server.sendToClient(otherPlayerId, new NetworkMessage(
+                    NetworkMessage.MessageType.PLAYER_ACTION,
+                    playerId,
+                    sessionId,
+                    input
+            ));
+        }
+
+        if (input.hasChecksum()) {
+            verifyChecksum(playerId, input.getChecksumTurn(), input.getChecksum());
+        }
+    }
+
+    private synchronized void verifyChecksum(String playerId, long turn, long checksum) {
+        ChecksumReport first = pendingChecksums.get(turn);
+        if (first == null) {
+            pendingChecksums.put(turn, new ChecksumReport(playerId, checksum));
+            // A player that stopped reporting must not make the map grow forever
+            while (pendingChecksums.size() > MAX_PENDING_CHECKSUMS) {
+                pendingChecksums.pollFirstEntry();
+            }
+            return;
+        }
+        if (first.playerId.equals(playerId)) return;
+
+        pendingChecksums.remove(turn);
+        if (first.checksum != checksum) {
+            lockstepDesyncs++;
+            if (lockstepDesyncTurn == null) {
+                lockstepDesyncTurn = turn;
+            }
+            System.err.println("Lockstep desync in session " + sessionId + " at turn " + turn
+                    + " (" + lockstepDesyncs + " so far)");
+        }
+    }
+
+    private static final class ChecksumReport {
+        private final String playerId;
+        private final long checksum;
+
+        private ChecksumReport(String playerId, long checksum) {
+            this.playerId = playerId;
+            this.checksum = checksum;
+        }
+    }
+
     public void endSession() {
         isActive = false;
 
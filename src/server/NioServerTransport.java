@@ -0,0 +1,529 @@
+package server;
+
+import network.FrameCodec;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking transport for GameServer. A few selector threads own every
+ * socket; they only read, split frames (JSON lines or binary frames, see
+ * FrameCodec) and write. Complete
+ * frames are handed to a bounded worker pool, which runs the usual
+ * ClientHandler logic. Frames from one connection are always handled in
+ * order, one at a time.
+ *
+ * Idle connections hold no buffers: a connection only keeps a byte array for
+ * a partially received frame and a queue of frames still waiting to be written.
+ */
+public class NioServerTransport {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_PENDING_OUTBOUND_BYTES = 8 * 1024 * 1024;
+    // Above this the client's outbound queue holds messages back instead of handing them over
+    private static final int BACKLOG_OUTBOUND_BYTES = 256 * 1024;
+    private static final int MAX_INBOX_FRAMES = 256;
+    private static final int MAX_WRITE_BATCH = 64;
+    // Accepted connections waiting to be identified; more than this are closed right away
+    private static final int MAX_PENDING_OPENS = 1024;
+
+    private final GameServer server;
+    private final int port;
+    private final int maxConnections;
+    private final IoLoop[] loops;
+    private final ThreadPoolExecutor workers;
+    private final ThreadPoolExecutor openers;
+    private final AtomicInteger connectionCount;
+    private final AtomicInteger nextLoop;
+
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running;
+
+    public NioServerTransport(GameServer server, int port, int maxConnections) {
+        this(server, port, maxConnections,
+                Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)),
+                Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public NioServerTransport(GameServer server, int port, int maxConnections, int ioThreads, int workerThreads) {
+        this.server = server;
+        this.port = port;
+        this.maxConnections = maxConnections;
+        this.loops = new IoLoop[ioThreads];
+        this.connectionCount = new AtomicInteger();
+        this.nextLoop = new AtomicInteger();
+
+        // One queued drain task per connection at most, so the queue never needs to hold more than that.
+        // Opens have their own pool, so a connection storm cannot take the room drains need.
+        AtomicInteger workerIds = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(64, maxConnections)),
+                runnable -> new Thread(runnable, "nio-worker-" + workerIds.incrementAndGet()));
+        AtomicInteger openerIds = new AtomicInteger();
+        this.openers = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(MAX_PENDING_OPENS),
+                runnable -> new Thread(runnable, "nio-open-" + openerIds.incrementAndGet()));
+    }
+
+    public void start() throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        running = true;
+
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new IoLoop(i);
+        }
+        loops[0].registerAcceptor(serverChannel);
+        for (IoLoop loop : loops) {
+            loop.thread.start();
+        }
+    }
+
+    public void stop() {
+        running = false;
+        for (IoLoop loop : loops) {
+            if (loop != null) {
+                loop.selector.wakeup();
+            }
+        }
+        try {
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+        } catch (IOException e) {
+            // Ignore close errors during shutdown
+        }
+        workers.shutdown();
+        openers.shutdown();
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    public int getWorkerQueueSize() {
+        return workers.getQueue().size();
+    }
+
+    private void accept(ServerSocketChannel channel) {
+        SocketChannel socketChannel;
+        try {
+            while ((socketChannel = channel.accept()) != null) {
+                if (connectionCount.get() >= maxConnections) {
+                    // Reject connection if at capacity
+                    closeQuietly(socketChannel);
+                    continue;
+                }
+                socketChannel.configureBlocking(false);
+                socketChannel.setOption(java.net.StandardSocketOptions.TCP_NODELAY, true);
+                connectionCount.incrementAndGet();
+
+                IoLoop loop = loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+                Connection connection = new Connection(socketChannel, loop);
+                // User identification may hit the database, keep it off the selector thread
+                if (!dispatch(openers, connection::open)) {
+                    // Too many connections waiting to be opened; closing also gives back the count
+                    connection.close();
+                }
+            }
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("Error accepting client: " + e.getMessage());
+            }
+        }
+    }
+
+    private static boolean dispatch(ThreadPoolExecutor executor, Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    /**
+     * One selector thread. All key and interest changes happen on this
+     * thread; other threads post tasks and wake the selector.
+     */
+    private final class IoLoop implements Runnable {
+        private final Selector selector;
+        private final Thread thread;
+        private final Queue<Runnable> tasks;
+        private final ByteBuffer readBuffer;
+
+        private IoLoop(int index) throws IOException {
+            this.selector = Selector.open();
+            this.tasks = new ConcurrentLinkedQueue<>();
+            this.readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+            this.thread = new Thread(this, "nio-io-" + index);
+        }
+
+        private void registerAcceptor(ServerSocketChannel channel) throws ClosedChannelException {
+            channel.register(selector, SelectionKey.OP_ACCEPT);
+        }
+
+        private void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    selector.select();
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        task.run();
+                    }
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (!key.isValid()) continue;
+
+                        if (key.isAcceptable()) {
+                            accept((ServerSocketChannel) key.channel());
+                            continue;
+                        }
+
+                        Connection connection = (Connection) key.attachment();
+                        if (key.isReadable()) {
+                            connection.onReadable(readBuffer);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.onWritable();
+                        }
+                    }
+                } catch (IOException e) {
+                    if (running) {
+                        System.err.println("Selector error: " + e.getMessage());
+                    }
+                }
+            }
+
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection) {
+                    ((Connection) key.attachment()).close();
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // Ignore close errors during shutdown
+            }
+        }
+    }
+
+    /**
+     * A client socket served by an IoLoop.
+     */
+    public final class Connection {
+        private final SocketChannel channel;
+        private final IoLoop loop;
+        private final AtomicBoolean closed;
+        private final AtomicBoolean draining;
+        private final AtomicInteger pendingOutboundBytes;
+        private final Queue<ByteBuffer> outbound;
+        private final Queue<FrameCodec.Frame> inbox;
+        private final AtomicInteger inboxSize;
+
+        private volatile SelectionKey key;
+        private ClientHandler handler;
+        private volatile boolean readSuspended;
+
+        // Bytes of a frame that has not fully arrived yet, null while there is none
+        private byte[] partial;
+        private int partialLength;
+        private boolean partialBinary;
+        private int binaryFrameLength;
+
+        private Connection(SocketChannel channel, IoLoop loop) {
+            this.channel = channel;
+            this.loop = loop;
+            this.closed = new AtomicBoolean();
+            this.draining = new AtomicBoolean();
+            this.pendingOutboundBytes = new AtomicInteger();
+            this.outbound = new ConcurrentLinkedQueue<>();
+            this.inbox = new ConcurrentLinkedQueue<>();
+            this.inboxSize = new AtomicInteger();
+        }
+
+        // Runs on a worker thread
+        private void open() {
+            try {
+                String userId = server.getUserManager().identifyUser(channel.socket());
+                handler = new ClientHandler(userId, this, server);
+                server.addClient(handler);
+
+                loop.execute(() -> {
+                    if (closed.get()) return;
+                    try {
+                        key = channel.register(loop.selector, SelectionKey.OP_READ, this);
+                        updateInterest();
+                    } catch (IOException e) {
+                        close();
+                    }
+                });
+                handler.onConnected();
+            } catch (Exception e) {
+                System.err.println("Error opening client connection: " + e.getMessage());
+                close();
+            }
+        }
+
+        // Takes complete encoded frames and queues them as one buffer, with one selector wakeup
+        public void send(List<byte[]> frames) {
+            if (closed.get() || frames.isEmpty()) return;
+
+            int length = 0;
+            for (byte[] frame : frames) {
+                length += frame.length;
+            }
+            if (pendingOutboundBytes.addAndGet(length) > MAX_PENDING_OUTBOUND_BYTES) {
+                // The client stopped reading, drop it rather than buffer without limit
+                System.err.println("Closing slow client " + (handler != null ? handler.getClientId() : "?"));
+                close();
+                return;
+            }
+            ByteBuffer buffer;
+            if (frames.size() == 1) {
+                buffer = ByteBuffer.wrap(frames.get(0));
+            } else {
+                buffer = ByteBuffer.allocate(length);
+                for (byte[] frame : frames) {
+                    buffer.put(frame);
+                }
+                buffer.flip();
+            }
+            outbound.add(buffer);
+            loop.execute(this::updateInterest);
+        }
+
+        public boolean isBacklogged() {
+            return pendingOutboundBytes.get() > BACKLOG_OUTBOUND_BYTES;
+        }
+
+        public void close() {
+            if (!closed.compareAndSet(false, true)) return;
+
+            connectionCount.decrementAndGet();
+            if (key != null) {
+                key.cancel();
+            }
+            closeQuietly(channel);
+            outbound.clear();
+            if (handler != null) {
+                handler.disconnect();
+            }
+        }
+
+        // Selector thread only
+        private void updateInterest() {
+            if (key == null || !key.isValid()) return;
+            int ops = readSuspended ? 0 : SelectionKey.OP_READ;
+            if (!outbound.isEmpty()) {
+                ops |= SelectionKey.OP_WRITE;
+            }
+            key.interestOps(ops);
+        }
+
+        private void onReadable(ByteBuffer readBuffer) {
+            try {
+                readBuffer.clear();
+                int read = channel.read(readBuffer);
+                if (read < 0) {
+                    close();
+                    return;
+                }
+                readBuffer.flip();
+                splitFrames(readBuffer);
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private void splitFrames(ByteBuffer buffer) {
+            while (buffer.hasRemaining() && !closed.get()) {
+                if (partialLength == 0) {
+                    partialBinary = FrameCodec.isBinaryFrameStart(buffer.get(buffer.position()));
+                    binaryFrameLength = -1;
+                }
+                if (partialBinary) {
+                    splitBinaryFrame(buffer);
+                } else {
+                    splitJsonFrame(buffer);
+                }
+            }
+        }
+
+        private void splitJsonFrame(ByteBuffer buffer) {
+            int start = buffer.position();
+            int newline = -1;
+            for (int i = start; i < buffer.limit(); i++) {
+                if (buffer.get(i) == '\n') {
+                    newline = i;
+                    break;
+                }
+            }
+
+            int end = newline >= 0 ? newline : buffer.limit();
+            appendPartial(buffer, start, end - start);
+            buffer.position(newline >= 0 ? newline + 1 : end);
+            if (closed.get() || newline < 0) return;
+
+            int length = partialLength;
+            if (length > 0 && partial[length - 1] == '\r') length--;
+            byte[] frame = partial != null ? Arrays.copyOf(partial, length) : new byte[0];
+            resetPartial();
+            if (frame.length > 0) {
+                deliver(new FrameCodec.Frame(false, frame));
+            }
+        }
+
+        private void splitBinaryFrame(ByteBuffer buffer) {
+            int wanted = binaryFrameLength < 0
+                    ? FrameCodec.BINARY_HEADER_SIZE - partialLength
+                    : FrameCodec.BINARY_HEADER_SIZE + binaryFrameLength - partialLength;
+            int length = Math.min(wanted, buffer.remaining());
+            appendPartial(buffer, buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            if (closed.get() || length < wanted) return;
+
+            if (binaryFrameLength < 0) {
+                try {
+                    binaryFrameLength = FrameCodec.readPayloadLength(partial);
+                } catch (IOException e) {
+                    System.err.println("Bad frame from " + (handler != null ? handler.getClientId() : "?") + ": " + e.getMessage());
+                    close();
+                    return;
+                }
+                if (binaryFrameLength > 0) return;
+            }
+
+            byte[] payload = Arrays.copyOfRange(partial, FrameCodec.BINARY_HEADER_SIZE, partialLength);
+            resetPartial();
+            deliver(new FrameCodec.Frame(true, payload));
+        }
+
+        private void resetPartial() {
+            partial = null;
+            partialLength = 0;
+        }
+
+        private void appendPartial(ByteBuffer buffer, int start, int length) {
+            if (partialLength + length > FrameCodec.MAX_FRAME_SIZE + FrameCodec.BINARY_HEADER_SIZE) {
+                System.err.println("Frame too large from " + (handler != null ? handler.getClientId() : "?"));
+                close();
+                return;
+            }
+            if (length == 0) return;
+            if (partial == null) {
+                partial = new byte[Math.max(256, length)];
+            } else if (partial.length < partialLength + length) {
+                partial = Arrays.copyOf(partial, Math.max(partialLength + length, partial.length * 2));
+            }
+            for (int i = 0; i < length; i++) {
+                partial[partialLength + i] = buffer.get(start + i);
+            }
+            partialLength += length;
+        }
+
+        private void deliver(FrameCodec.Frame frame) {
+            inbox.add(frame);
+            if (inboxSize.incrementAndGet() >= MAX_INBOX_FRAMES && !readSuspended) {
+                // Stop reading until the workers catch up with this client
+                readSuspended = true;
+                updateInterest();
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                if (!dispatch(workers, this::drainInbox)) {
+                    // Only when shutting down, as every connection has at most one drain queued.
+                    // Reading may be suspended, so without a drain the connection would hang.
+                    draining.set(false);
+                    close();
+                }
+            }
+        }
+
+        // Worker thread: handles queued frames in arrival order
+        private void drainInbox() {
+            FrameCodec.Frame frame;
+            while ((frame = inbox.poll()) != null) {
+                inboxSize.decrementAndGet();
+                if (handler != null && !closed.get()) {
+                    handler.handleFrame(frame);
+                }
+            }
+            draining.set(false);
+
+            if (readSuspended) {
+                loop.execute(() -> {
+                    readSuspended = false;
+                    updateInterest();
+                });
+            }
+            // A frame may have arrived between the last poll and clearing the flag
+            if (!inbox.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void onWritable() {
+            try {
+                ArrayDeque<ByteBuffer> batch = new ArrayDeque<>();
+                for (ByteBuffer buffer : outbound) {
+                    batch.add(buffer);
+                    if (batch.size() == MAX_WRITE_BATCH) break;
+                }
+                // One gathering write for everything queued since the last flush
+                channel.write(batch.toArray(new ByteBuffer[0]));
+
+                boolean wasBacklogged = isBacklogged();
+                ByteBuffer head;
+                while ((head = outbound.peek()) != null && !head.hasRemaining()) {
+                    outbound.poll();
+                    pendingOutboundBytes.addAndGet(-head.capacity());
+                }
+                updateInterest();
+                if (wasBacklogged && !isBacklogged() && handler != null) {
+                    handler.onWritable();
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+    }
+}
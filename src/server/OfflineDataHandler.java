@@ -6,6 +6,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -20,6 +21,8 @@ public class OfflineDataHandler {
     private Map<String, List<ScoreRecord>> offlineScores;
     private Map<String, UserData> offlineUserData;
     private ScheduledExecutorService syncScheduler;
+    // Runs the sync jobs themselves; the scheduler only decides when
+    private Executor syncExecutor;
     private boolean isConnected;
 
     public OfflineDataHandler() {
@@ -28,6 +31,7 @@ public class OfflineDataHandler {
         this.offlineScores = new ConcurrentHashMap<>();
         this.offlineUserData = new ConcurrentHashMap<>();
         this.isConnected = false;
+        this.syncExecutor = Runnable::run;
 
         initializeOfflineDataDirectory();
         loadOfflineData();
@@ -50,6 +54,14 @@ public class OfflineDataHandler {
         System.out.println("Stored offline user data for user " + userId);
     }
 
+    public void setSyncExecutor(Executor syncExecutor) {
+        this.syncExecutor = syncExecutor != null ? syncExecutor : Runnable::run;
+    }
+
+    public void submitSynchronization(String userId) {
+        syncExecutor.execute(() -> synchronizeOfflineData(userId));
+    }
+
     public void synchronizeOfflineData(String userId) {
         if (!isConnected) {
             System.out.println("Cannot synchronize - server not connected");
@@ -123,7 +135,7 @@ public class OfflineDataHandler {
         if (connected) {
             System.out.println("Server connection restored - starting offline data synchronization");
             // Schedule immediate sync
-            syncScheduler.schedule(this::synchronizeAllOfflineData, 1, TimeUnit.SECONDS);
+            syncScheduler.schedule(() -> syncExecutor.execute(this::synchronizeAllOfflineData), 1, TimeUnit.SECONDS);
         } else {
             System.out.println("Server connection lost - offline mode enabled");
         }
@@ -214,7 +226,7 @@ public class OfflineDataHandler {
         // Schedule periodic sync attempts every 5 minutes
         syncScheduler.scheduleAtFixedRate(() -> {
             if (isConnected) {
-                synchronizeAllOfflineData();
+                syncExecutor.execute(this::synchronizeAllOfflineData);
             }
         }, 5, 5, TimeUnit.MINUTES);
     }
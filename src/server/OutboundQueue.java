@@ -0,0 +1,304 @@
+package server;
+
+import network.FrameCodec;
+import network.NetworkMessage;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Messages waiting to be written to one client. sendMessage only queues; the
+ * encoding and the socket write happen in a drain task on the writer pool, so
+ * a slow client never holds up the thread that sent to it (the session tick,
+ * another client's handler). At most one drain task runs per connection, and
+ * it writes everything queued so far with a single flush.
+ *
+ * State updates are snapshots, so only the newest one per session matters: a
+ * newer state update replaces the one still waiting, keeping its place in the
+ * queue. When the queue is full the overflow policy decides what gives way.
+ * Set the capacity with -Dserver.outboundQueueCapacity and the policy with
+ * -Dserver.outboundOverflow=drop-stale|disconnect.
+ */
+public class OutboundQueue {
+    private static final int DEFAULT_CAPACITY = 256;
+    private static final int MAX_BATCH = 64;
+    // Control messages may exceed the capacity by this factor before the client counts as stuck
+    private static final int CONTROL_HEADROOM = 4;
+
+    public enum OverflowPolicy {
+        /** Drop queued or incoming state updates to make room; keep control messages. */
+        DROP_STALE_STATE,
+        /** Disconnect the client as soon as its queue is full. */
+        DISCONNECT;
+
+        static OverflowPolicy fromSystemProperty() {
+            String value = System.getProperty("server.outboundOverflow", "drop-stale");
+            return "disconnect".equalsIgnoreCase(value.trim()) ? DISCONNECT : DROP_STALE_STATE;
+        }
+    }
+
+    static int capacityFromSystemProperty() {
+        return Math.max(1, Integer.getInteger("server.outboundQueueCapacity", DEFAULT_CAPACITY));
+    }
+
+    /**
+     * Where encoded frames go. Called from the drain task only.
+     */
+    interface Sink {
+        // Writes the frames in order and flushes once
+        void write(List<byte[]> frames) throws IOException;
+
+        // True while the transport still holds too much unsent data; draining resumes via resume()
+        default boolean isBacklogged() {
+            return false;
+        }
+    }
+
+    private static final class Entry {
+        private NetworkMessage message;
+        private boolean binary;
+        private final String stateKey;
+
+        private Entry(NetworkMessage message, boolean binary, String stateKey) {
+            this.message = message;
+            this.binary = binary;
+            this.stateKey = stateKey;
+        }
+    }
+
+    private final String clientId;
+    private final FrameCodec frameCodec;
+    private final Executor writer;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Sink sink;
+    private final Runnable onFailure;
+
+    private final ArrayDeque<Entry> queue;
+    private final Map<String, Entry> pendingState;
+    private boolean draining;
+    private boolean closed;
+
+    // Metrics, guarded by this
+    private int peakDepth;
+    private long enqueued;
+    private long written;
+    private long flushes;
+    private long coalesced;
+    private long dropped;
+
+    OutboundQueue(String clientId, FrameCodec frameCodec, Executor writer, int capacity,
+                  OverflowPolicy overflowPolicy, Sink sink, Runnable onFailure) {
+        this.clientId = clientId;
+        this.frameCodec = frameCodec;
+        this.writer = writer;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.sink = sink;
+        this.onFailure = onFailure;
+        this.queue = new ArrayDeque<>();
+        this.pendingState = new HashMap<>();
+    }
+
+    // Periodic snapshots that a newer one makes obsolete. Deltas count too:
+    // each is based on an acknowledged state, never on the delta before it.
+    static boolean isStateUpdate(NetworkMessage message) {
+        if (message.getType() == NetworkMessage.MessageType.STATE_DELTA) {
+            return true;
+        }
+        return message.getType() == NetworkMessage.MessageType.GAME_STATE_UPDATE
+                && (message.getData() instanceof Map || message.getData() instanceof multiplayer.MultiplayerGameState);
+    }
+
+    /**
+     * Queues a message, to be encoded as a binary frame if binary is set.
+     * Returns false if the message was dropped.
+     */
+    public boolean offer(NetworkMessage message, boolean binary) {
+        String stateKey = isStateUpdate(message) ? message.getSessionId() + "|" + message.getPlayerId() : null;
+        boolean overflow = false;
+        synchronized (this) {
+            if (closed) return false;
+
+            if (stateKey != null) {
+                Entry waiting = pendingState.get(stateKey);
+                if (waiting != null) {
+                    waiting.message = message;
+                    waiting.binary = binary;
+                    coalesced++;
+                    return true;
+                }
+            }
+
+            if (queue.size() >= capacity) {
+                if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                    overflow = true;
+                } else if (stateKey != null) {
+                    dropped++;
+                    return false;
+                } else if (!dropOldestState() && queue.size() >= capacity * CONTROL_HEADROOM) {
+                    overflow = true;
+                }
+            }
+
+            if (!overflow) {
+                Entry entry = new Entry(message, binary, stateKey);
+                queue.add(entry);
+                if (stateKey != null) {
+                    pendingState.put(stateKey, entry);
+                }
+                enqueued++;
+                peakDepth = Math.max(peakDepth, queue.size());
+                if (scheduleDrain()) return true;
+            }
+        }
+
+        if (!overflow) {
+            writerRejected();
+            return false;
+        }
+        System.err.println("Outbound queue overflow for " + clientId + ", disconnecting");
+        close();
+        onFailure.run();
+        return false;
+    }
+
+    private boolean dropOldestState() {
+        for (java.util.Iterator<Entry> it = queue.iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (entry.stateKey != null) {
+                it.remove();
+                pendingState.remove(entry.stateKey);
+                dropped++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Caller holds the lock. Returns false if the writer pool refused the drain, which closes the queue:
+    // nothing else would ever send what is queued, so the client must not wait on it.
+    private boolean scheduleDrain() {
+        if (draining || queue.isEmpty()) return true;
+        draining = true;
+        try {
+            writer.execute(this::drain);
+            return true;
+        } catch (RejectedExecutionException e) {
+            draining = false;
+            closed = true;
+            queue.clear();
+            pendingState.clear();
+            return false;
+        }
+    }
+
+    // Outside the lock, as onFailure tears down the connection
+    private void writerRejected() {
+        System.err.println("Writer pool rejected the outbound queue for " + clientId + ", disconnecting");
+        onFailure.run();
+    }
+
+    /**
+     * Restarts draining after the sink stopped being backlogged.
+     */
+    public void resume() {
+        boolean rejected;
+        synchronized (this) {
+            rejected = !closed && !scheduleDrain();
+        }
+        if (rejected) {
+            writerRejected();
+        }
+    }
+
+    private void drain() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        List<byte[]> frames = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            batch.clear();
+            frames.clear();
+            synchronized (this) {
+                if (closed || queue.isEmpty() || sink.isBacklogged()) {
+                    draining = false;
+                    return;
+                }
+                while (batch.size() < MAX_BATCH && !queue.isEmpty()) {
+                    Entry entry = queue.poll();
+                    if (entry.stateKey != null) {
+                        pendingState.remove(entry.stateKey);
+                    }
+                    batch.add(entry);
+                }
+            }
+
+            for (Entry entry : batch) {
+                try {
+                    frames.add(frameCodec.encode(entry.message, entry.binary));
+                } catch (IOException e) {
+                    System.err.println("Error encoding message to " + clientId + ": " + e.getMessage());
+                }
+            }
+
+            try {
+                sink.write(frames);
+            } catch (IOException e) {
+                System.err.println("Error sending message to " + clientId + ": " + e.getMessage());
+                close();
+                onFailure.run();
+                return;
+            }
+
+            synchronized (this) {
+                written += frames.size();
+                flushes++;
+            }
+        }
+    }
+
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            queue.clear();
+            pendingState.clear();
+        }
+    }
+
+    public synchronized int getDepth() {
+        return queue.size();
+    }
+
+    public synchronized int getPeakDepth() {
+        return peakDepth;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getEnqueuedCount() {
+        return enqueued;
+    }
+
+    public synchronized long getWrittenCount() {
+        return written;
+    }
+
+    public synchronized long getFlushCount() {
+        return flushes;
+    }
+
+    public synchronized long getCoalescedCount() {
+        return coalesced;
+    }
+
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+}
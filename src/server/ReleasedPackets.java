@@ -0,0 +1,157 @@
+package server;
+
+import model.PacketType;
+import model.Point2D;
+import model.Vec2D;
+import multiplayer.ControllableSystem;
+import multiplayer.PacketSnapshot;
+import multiplayer.PlayerAction;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The packets players release from their controllable systems during a match,
+ * moved by the server so both clients draw them from the same source. A
+ * client shows its release right away and drops it again if the server's
+ * acknowledgement arrives without the packet. Ammunition and cooldowns are
+ * still kept by the clients, which also grant ammunition rewards, so the
+ * server only rejects releases from unknown systems or of invalid types.
+ *
+ * Collisions follow the clients' rule, so a packet a client destroyed also
+ * leaves the server's updates; the client retires its own copy in the meantime.
+ *
+ * Packet ids are the releasing player's id and the release's sequence number,
+ * so a client can tell which server packet took over its prediction.
+ * Called from connection threads and the tick thread, hence synchronized.
+ */
+class ReleasedPackets {
+    // Packets leaving the field this far out are dropped
+    private static final double FIELD_WIDTH = 1400;
+    private static final double FIELD_HEIGHT = 900;
+    private static final double FIELD_MARGIN = 100;
+    private static final double MAX_LIFETIME_SECONDS = 30.0;
+    // Same rule as the clients' collision check: colliding packets outside the field are destroyed
+    private static final double COLLISION_RADIUS = 20.0;
+
+    private static final class Released {
+        private final PacketSnapshot snapshot;
+        private double age;
+
+        private Released(PacketSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+    }
+
+    private final Map<String, ControllableSystem> systems = ControllableSystem.createDefaultSystems();
+    private final Map<String, Released> packets = new LinkedHashMap<>();
+    private final Map<String, Long> acks = new LinkedHashMap<>();
+    private long rejected;
+
+    /**
+     * Handles a release. Returns true when the packet was released; either
+     * way the release counts as handled for acknowledgement.
+     */
+    synchronized boolean release(PlayerAction action) {
+        String playerId = action.getPlayerId();
+        if (playerId == null || action.getSequence() <= 0) return false;
+
+        // Releases arrive in order on one connection; anything older was handled already
+        Long acked = acks.get(playerId);
+        if (acked != null && action.getSequence() <= acked) return false;
+        acks.put(playerId, action.getSequence());
+
+        ControllableSystem system = action.getSystemId() != null ? systems.get(action.getSystemId()) : null;
+        PacketType type = packetType(action.getPacketType());
+        if (system == null || type == null || type.isConfidential()) {
+            rejected++;
+            return false;
+        }
+
+        Point2D position = system.getPosition();
+        Vec2D velocity = ControllableSystem.releaseVector(playerId, position, action.getTarget());
+        packets.put(playerId + "#" + action.getSequence(), new Released(new PacketSnapshot(
+                playerId, type.name(), position.getX(), position.getY(), velocity.getX(), velocity.getY())));
+        return true;
+    }
+
+    private static PacketType packetType(String name) {
+        if (name == null) return null;
+        try {
+            return PacketType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    synchronized void step(double seconds) {
+        Iterator<Released> iterator = packets.values().iterator();
+        while (iterator.hasNext()) {
+            Released released = iterator.next();
+            PacketSnapshot packet = released.snapshot;
+            packet.setX(packet.getX() + packet.getVx() * seconds);
+            packet.setY(packet.getY() + packet.getVy() * seconds);
+            released.age += seconds;
+
+            boolean offField = packet.getX() < -FIELD_MARGIN || packet.getX() > FIELD_WIDTH + FIELD_MARGIN
+                    || packet.getY() < -FIELD_MARGIN || packet.getY() > FIELD_HEIGHT + FIELD_MARGIN;
+            if (offField || released.age > MAX_LIFETIME_SECONDS) {
+                iterator.remove();
+            }
+        }
+        removeCollided();
+    }
+
+    // Pairwise, as a match only has the few dozen packets the players' ammunition allows
+    private void removeCollided() {
+        if (packets.size() < 2) return;
+        List<Map.Entry<String, Released>> live = new ArrayList<>(packets.entrySet());
+        Set<String> destroyed = new HashSet<>();
+        for (int i = 0; i < live.size(); i++) {
+            PacketSnapshot a = live.get(i).getValue().snapshot;
+            for (int j = i + 1; j < live.size(); j++) {
+                PacketSnapshot b = live.get(j).getValue().snapshot;
+                double dx = a.getX() - b.getX();
+                double dy = a.getY() - b.getY();
+                if (dx * dx + dy * dy >= COLLISION_RADIUS * COLLISION_RADIUS) continue;
+                if (outsideField(a)) destroyed.add(live.get(i).getKey());
+                if (outsideField(b)) destroyed.add(live.get(j).getKey());
+            }
+        }
+        packets.keySet().removeAll(destroyed);
+    }
+
+    private static boolean outsideField(PacketSnapshot packet) {
+        return packet.getX() < 0 || packet.getX() > FIELD_WIDTH || packet.getY() < 0 || packet.getY() > FIELD_HEIGHT;
+    }
+
+    // Untyped copies for the state update, so the delta encoder compares them field by field
+    synchronized Map<String, Object> snapshotData() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (Map.Entry<String, Released> entry : packets.entrySet()) {
+            PacketSnapshot packet = entry.getValue().snapshot;
+            Map<String, Object> fields = new LinkedHashMap<>();
+            fields.put("ownerId", packet.getOwnerId());
+            fields.put("packetType", packet.getPacketType());
+            fields.put("x", packet.getX());
+            fields.put("y", packet.getY());
+            fields.put("vx", packet.getVx());
+            fields.put("vy", packet.getVy());
+            data.put(entry.getKey(), fields);
+        }
+        return data;
+    }
+
+    synchronized Map<String, Long> ackData() {
+        return new LinkedHashMap<>(acks);
+    }
+
+    synchronized long getRejected() {
+        return rejected;
+    }
+}
@@ -141,14 +141,62 @@ public class ServerApp {
             System.out.println("========================================");
             System.out.println("Server Status:");
             System.out.println("  Running: " + (gameServer.isRunning() ? "Yes" : "No"));
-            System.out.println("  Connected Clients: " + gameServer.getConnectedClientCount());
+            System.out.println("  Transport: " + gameServer.getTransport() + " (" + gameServer.getExecutorStrategy() + " handler threads)");
+            System.out.println("  Connected Clients: " + gameServer.getConnectedClientCount() + " / " + gameServer.getMaxClients());
             System.out.println("  Active Sessions: " + gameServer.getActiveSessionCount());
+            showOutboundQueueStatus();
+            showSessionTickStatus();
             System.out.println("========================================");
         } else {
             System.out.println("Server is not running.");
         }
     }
 
+    private void showOutboundQueueStatus() {
+        int queued = 0;
+        long written = 0;
+        long flushes = 0;
+        long coalesced = 0;
+        long dropped = 0;
+        ClientHandler deepest = null;
+        for (ClientHandler client : gameServer.getConnectedClients().values()) {
+            OutboundQueue queue = client.getOutboundQueue();
+            queued += queue.getDepth();
+            written += queue.getWrittenCount();
+            flushes += queue.getFlushCount();
+            coalesced += queue.getCoalescedCount();
+            dropped += queue.getDroppedCount();
+            if (deepest == null || queue.getDepth() > deepest.getOutboundQueue().getDepth()) {
+                deepest = client;
+            }
+        }
+        System.out.println("  Outbound Queues: " + queued + " queued, " + written + " frames in " + flushes
+                + " flushes, " + coalesced + " coalesced, " + dropped + " dropped ("
+                + gameServer.getOutboundOverflowPolicy() + ", capacity " + gameServer.getOutboundQueueCapacity() + ")");
+        if (deepest != null && deepest.getOutboundQueue().getDepth() > 0) {
+            OutboundQueue queue = deepest.getOutboundQueue();
+            System.out.println("  Deepest Queue: " + deepest.getClientId() + " " + queue.getDepth()
+                    + " (peak " + queue.getPeakDepth() + ")");
+        }
+    }
+
+    private void showSessionTickStatus() {
+        SessionTickScheduler sessionTicks = gameServer.getSessionTicks();
+        TickStats stats = sessionTicks.getStats();
+        System.out.println("  Session Ticks: " + stats.getTickCount() + " on " + sessionTicks.getThreadCount()
+                + " threads, mean " + stats.getMeanMicros() + "us, p99 <" + stats.getPercentileMicros(0.99)
+                + "us, max " + stats.getMaxMicros() + "us, " + stats.getMissedDeadlines() + " missed deadlines, "
+                + stats.getSkippedTicks() + " skipped");
+        System.out.println("  Tick Durations: " + stats.formatHistogram());
+        SessionTickScheduler.ScheduledTick slowest = sessionTicks.getSlowestSession();
+        if (slowest != null && slowest.getStats().getTickCount() > 0) {
+            TickStats slowestStats = slowest.getStats();
+            System.out.println("  Slowest Session: " + slowest.getSessionId() + " mean " + slowestStats.getMeanMicros()
+                    + "us, max " + slowestStats.getMaxMicros() + "us, " + slowestStats.getMissedDeadlines()
+                    + " missed deadlines");
+        }
+    }
+
     private void showHelp() {
         System.out.println("========================================");
         System.out.println("Available Commands:");
@@ -182,6 +230,18 @@ public class ServerApp {
                 System.out.println("Options:");
                 System.out.println("  --help, -h    Show this help message");
                 System.out.println("  --port PORT   Set server port (default: 8081)");
+                System.out.println("System properties:");
+                System.out.println("  -Dserver.transport=nio     Serve clients with the NIO selector transport");
+                System.out.println("  -Dserver.maxClients=N      Maximum connected clients");
+                System.out.println("  -Dserver.executor=virtual  Run client handlers on virtual threads when available");
+                System.out.println("  -Dserver.maxConcurrentHandlers=N  Cap on client handlers running at once; clients over it are rejected");
+                System.out.println("  -Dserver.maxConcurrentSyncJobs=N  Cap on offline sync jobs running at once; jobs over it wait");
+                System.out.println("  -Dserver.outboundQueueCapacity=N  Messages queued per client before overflow");
+                System.out.println("  -Dserver.outboundOverflow=disconnect  Disconnect instead of dropping state updates");
+                System.out.println("  -Dserver.stateDeltas=off   Send full state updates instead of deltas");
+                System.out.println("  -Dserver.simulationBudgetMicros=N  CPU time per session tick for simulating both networks");
+                System.out.println("  -Dserver.tickThreads=N     Threads ticking sessions (default: CPU count)");
+                System.out.println("  -Dserver.lockstep=on       Run matches in lockstep: clients simulate, server relays inputs and checks checksums");
                 System.exit(0);
             }
         }
@@ -0,0 +1,148 @@
+package server;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ticks every multiplayer session on its own schedule. A single timer thread
+ * only decides when a session is due and hands the tick to a work-stealing
+ * pool with one thread per CPU, so a slow match delays no other match and the
+ * ticks of many matches spread over all cores. Sessions start at different
+ * offsets within the tick period to keep them from all coming due at once.
+ *
+ * A session never runs two ticks at the same time: when its previous tick is
+ * still running at the next due time, that tick is skipped and counted. The
+ * pool size can be set with -Dserver.tickThreads.
+ */
+public class SessionTickScheduler {
+    static final long TICK_MILLIS = 50; // 20 updates per second
+
+    private final ScheduledThreadPoolExecutor timer;
+    private final ForkJoinPool tickPool;
+    private final Map<String, ScheduledTick> ticks = new ConcurrentHashMap<>();
+    private final TickStats stats = new TickStats();
+
+    /**
+     * One session's schedule and the statistics of its ticks.
+     */
+    public static final class ScheduledTick {
+        private final MultiplayerSession session;
+        private final TickStats stats = new TickStats();
+        private final AtomicBoolean running = new AtomicBoolean();
+        private ScheduledFuture<?> future;
+
+        private ScheduledTick(MultiplayerSession session) {
+            this.session = session;
+        }
+
+        public String getSessionId() {
+            return session.getSessionId();
+        }
+
+        public TickStats getStats() {
+            return stats;
+        }
+    }
+
+    public SessionTickScheduler() {
+        this(Integer.getInteger("server.tickThreads", Runtime.getRuntime().availableProcessors()));
+    }
+
+    public SessionTickScheduler(int threads) {
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "session-tick-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+        // Async mode: tasks are independent events, taken in the order they were submitted
+        this.tickPool = new ForkJoinPool(Math.max(1, threads), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("session-tick-" + thread.getPoolIndex());
+            return thread;
+        }, null, true);
+    }
+
+    public void schedule(MultiplayerSession session) {
+        ScheduledTick tick = new ScheduledTick(session);
+        if (ticks.putIfAbsent(session.getSessionId(), tick) != null) return;
+
+        long offset = Math.floorMod(session.getSessionId().hashCode(), (int) TICK_MILLIS);
+        tick.future = timer.scheduleAtFixedRate(() -> dispatch(tick), offset, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public void cancel(String sessionId) {
+        ScheduledTick tick = ticks.remove(sessionId);
+        if (tick != null && tick.future != null) {
+            tick.future.cancel(false);
+        }
+    }
+
+    // Runs on the timer thread, so it only hands the tick over
+    private void dispatch(ScheduledTick tick) {
+        if (!tick.running.compareAndSet(false, true)) {
+            tick.stats.recordSkipped();
+            stats.recordSkipped();
+            return;
+        }
+        long dueNanos = System.nanoTime();
+        tickPool.execute(() -> run(tick, dueNanos));
+    }
+
+    private void run(ScheduledTick tick, long dueNanos) {
+        long start = System.nanoTime();
+        try {
+            if (tick.session.isActive()) {
+                tick.session.update();
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error updating session " + tick.getSessionId() + ": " + e.getMessage());
+        } finally {
+            long end = System.nanoTime();
+            // Late when it ends after the next tick is due, including time spent waiting for a thread
+            boolean missedDeadline = end - dueNanos > TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+            tick.stats.record(end - start, missedDeadline);
+            stats.record(end - start, missedDeadline);
+            tick.running.set(false);
+        }
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+        tickPool.shutdown();
+    }
+
+    // All ticks since the server started, including those of sessions that have ended
+    public TickStats getStats() {
+        return stats;
+    }
+
+    // The scheduled session whose ticks took longest on average, or null
+    public ScheduledTick getSlowestSession() {
+        ScheduledTick slowest = null;
+        for (ScheduledTick tick : ticks.values()) {
+            if (slowest == null || tick.stats.getMeanMicros() > slowest.stats.getMeanMicros()) {
+                slowest = tick;
+            }
+        }
+        return slowest;
+    }
+
+    public int getScheduledCount() {
+        return ticks.size();
+    }
+
+    public int getThreadCount() {
+        return tickPool.getParallelism();
+    }
+
+    public int getActiveThreadCount() {
+        return tickPool.getActiveThreadCount();
+    }
+}
@@ -0,0 +1,104 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * How long session ticks took, as a histogram over fixed buckets, together
+ * with the ticks that finished after their deadline and the ticks that were
+ * skipped because the previous one was still running. Recorded from the tick
+ * threads without locking; readers get a slightly moving but consistent enough view.
+ */
+public class TickStats {
+    // Upper bounds of the histogram buckets in microseconds; the last bucket has no bound
+    private static final long[] BUCKET_LIMITS_MICROS = {250, 500, 1_000, 2_000, 5_000, 10_000, 25_000, 50_000};
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_LIMITS_MICROS.length + 1);
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final LongAdder missedDeadlines = new LongAdder();
+    private final LongAdder skippedTicks = new LongAdder();
+
+    void record(long durationNanos, boolean missedDeadline) {
+        long micros = durationNanos / 1_000;
+        int bucket = 0;
+        while (bucket < BUCKET_LIMITS_MICROS.length && micros >= BUCKET_LIMITS_MICROS[bucket]) {
+            bucket++;
+        }
+        buckets.incrementAndGet(bucket);
+        ticks.increment();
+        totalNanos.add(durationNanos);
+        maxNanos.accumulateAndGet(durationNanos, Math::max);
+        if (missedDeadline) {
+            missedDeadlines.increment();
+        }
+    }
+
+    void recordSkipped() {
+        skippedTicks.increment();
+    }
+
+    public long getTickCount() {
+        return ticks.sum();
+    }
+
+    // Ticks that ended after the next one was due
+    public long getMissedDeadlines() {
+        return missedDeadlines.sum();
+    }
+
+    // Ticks not run at all because the session's previous tick had not finished
+    public long getSkippedTicks() {
+        return skippedTicks.sum();
+    }
+
+    public long getMeanMicros() {
+        long count = ticks.sum();
+        return count > 0 ? totalNanos.sum() / count / 1_000 : 0;
+    }
+
+    public long getMaxMicros() {
+        return maxNanos.get() / 1_000;
+    }
+
+    /**
+     * Upper bound of the bucket holding the given fraction of ticks, e.g.
+     * 0.99 for the 99th percentile. Ticks in the open last bucket report the maximum.
+     */
+    public long getPercentileMicros(double fraction) {
+        long count = 0;
+        long[] snapshot = new long[buckets.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = buckets.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) return 0;
+
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_LIMITS_MICROS.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return BUCKET_LIMITS_MICROS[i];
+            }
+        }
+        return getMaxMicros();
+    }
+
+    // One line with the count of every bucket, e.g. "<250us:120 <500us:4 ... >=50ms:0"
+    public String formatHistogram() {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < BUCKET_LIMITS_MICROS.length; i++) {
+            line.append('<').append(formatMicros(BUCKET_LIMITS_MICROS[i])).append(':').append(buckets.get(i)).append(' ');
+        }
+        line.append(">=").append(formatMicros(BUCKET_LIMITS_MICROS[BUCKET_LIMITS_MICROS.length - 1]))
+                .append(':').append(buckets.get(BUCKET_LIMITS_MICROS.length));
+        return line.toString();
+    }
+
+    private static String formatMicros(long micros) {
+        return micros >= 1_000 ? (micros / 1_000) + "ms" : micros + "us";
+    }
+}
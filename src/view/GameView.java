@@ -1183,14 +1183,12 @@ public class GameView {
         int packetIndex = packets.indexOf(packet);
         double yOffset = -15 - (packetIndex * 8); // Stack progress bars for multiple packets
 
-        Point2D midPoint = new Point2D(
-                (startPos.getX() + endPos.getX()) / 2,
-                (startPos.getY() + endPos.getY()) / 2 + yOffset
-        );
+        double midX = (startPos.getX() + endPos.getX()) / 2;
+        double midY = (startPos.getY() + endPos.getY()) / 2 + yOffset;
 
         // Progress bar background
         gc.setFill(Color.color(0.3, 0.3, 0.3, 0.7));
-        gc.fillRect(midPoint.getX() - 25, midPoint.getY() - 3, 50, 6);
+        gc.fillRect(midX - 25, midY - 3, 50, 6);
 
         // Progress bar fill
         Color progressColor = Color.LIGHTGREEN;
@@ -1201,12 +1199,12 @@ public class GameView {
         }
 
         gc.setFill(progressColor);
-        gc.fillRect(midPoint.getX() - 25, midPoint.getY() - 3, 50 * progress, 6);
+        gc.fillRect(midX - 25, midY - 3, 50 * progress, 6);
 
         // Progress bar border
         gc.setStroke(Color.WHITE);
         gc.setLineWidth(1);
-        gc.strokeRect(midPoint.getX() - 25, midPoint.getY() - 3, 50, 6);
+        gc.strokeRect(midX - 25, midY - 3, 50, 6);
     }
 
     private Point2D getPositionAlongWire(List<Point2D> pathPoints, double progress) {
@@ -1594,7 +1592,8 @@ public class GameView {
 
         // Calculate trail length based on speed
         double trailLength = Math.min(30, speed / 3);
-        Vec2D normalizedVel = velocity.normalize();
+        double directionX = velocity.getX() / speed;
+        double directionY = velocity.getY() / speed;
 
         // Draw multiple trail segments with decreasing opacity
         int segments = 5;
@@ -1602,10 +1601,8 @@ public class GameView {
             double segmentDistance = (trailLength / segments) * (i + 1);
             double opacity = 1.0 - (double) i / segments;
 
-            Point2D trailPos = new Point2D(
-                    pos.getX() - normalizedVel.getX() * segmentDistance,
-                    pos.getY() - normalizedVel.getY() * segmentDistance
-            );
+            double trailX = pos.getX() - directionX * segmentDistance;
+            double trailY = pos.getY() - directionY * segmentDistance;
 
             // Create color with opacity
             Color segmentColor = Color.color(
@@ -1617,7 +1614,7 @@ public class GameView {
 
             gc.setFill(segmentColor);
             double segmentSize = packetSize * (0.3 + 0.7 * opacity);
-            gc.fillOval(trailPos.getX() - segmentSize/2, trailPos.getY() - segmentSize/2,
+            gc.fillOval(trailX - segmentSize/2, trailY - segmentSize/2,
                     segmentSize, segmentSize);
         }
     }
@@ -12,7 +12,10 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 // Animation imports removed - no toggle functionality
 import controller.GameController;
+import controller.OutcomePredictor;
+import controller.SimulationClock;
 import model.AbilityType;
+import model.GameStats;
 import model.WireConnection;
 
 import java.util.List;
@@ -23,7 +26,9 @@ public class HUDView {
     private Label coinsLabel;
     private Label wireLengthLabel;
     private Label packetLossLabel;
+    private Label predictionLabel;
     private Label temporalProgressLabel;
+    private Label speedLabel;
     private VBox activeAbilitiesBox;
     // HUD is now always visible - removed toggle functionality
 
@@ -62,6 +67,10 @@ public class HUDView {
         wireLengthLabel = createStatLabel("Wire Length: 0");
         packetLossLabel = createStatLabel("Packets (safe: 0  lost: 0)");
         temporalProgressLabel = createStatLabel("Time: 0s");
+        speedLabel = createStatLabel("Speed: 1x");
+        predictionLabel = createStatLabel("");
+        predictionLabel.setVisible(false);
+        predictionLabel.setManaged(false);
 
         // Mode indicator
         Label modeLabel = createStatLabel("Mode: Editing");
@@ -83,7 +92,7 @@ public class HUDView {
         // HUD is now always visible - removed toggle button and indicator
 
         root.getChildren().addAll(
-                coinsLabel, wireLengthLabel, packetLossLabel, temporalProgressLabel, modeLabel,
+                coinsLabel, wireLengthLabel, packetLossLabel, predictionLabel, temporalProgressLabel, speedLabel, modeLabel,
                 abilitiesTitle, activeAbilitiesBox
         );
     }
@@ -126,9 +135,8 @@ public class HUDView {
         wireLengthLabel.setText(String.format("Wire: %.1f remaining, %.1f used", remainingWire, totalUsedWire));
 
         // Display packet counts instead of percentage
-        int safePackets = gameController.getGameState().getTotalDeliveredPackets();
-        int lostPackets = gameController.getGameState().getTotalLostPackets();
-        packetLossLabel.setText(String.format("Packets (safe: %d  lost: %d)", safePackets, lostPackets));
+        GameStats stats = gameController.getGameState().getStats();
+        packetLossLabel.setText(String.format("Packets (safe: %d  lost: %d)", stats.getDeliveredPackets(), stats.getLostPackets()));
         // Enhanced temporal progress display with visual feedback
         double currentTime = gameController.getGameState().getTemporalProgress();
         double maxTime = gameController.getGameState().getCurrentLevel() != null ?
@@ -147,6 +155,16 @@ public class HUDView {
             temporalProgressLabel.setTextFill(Color.RED);
         }
 
+        // Playback speed, with the speed actually reached when the CPU budget caps it
+        SimulationClock clock = gameController.getSimulationClock();
+        if (clock.isThrottled() && gameController.isSimulationMode()) {
+            speedLabel.setText(String.format("Speed: %dx (running at %.1fx)", clock.getSpeed(), clock.getEffectiveSpeed()));
+            speedLabel.setTextFill(Color.ORANGE);
+        } else {
+            speedLabel.setText("Speed: " + clock.getSpeed() + "x");
+            speedLabel.setTextFill(Color.WHITE);
+        }
+
         // Update mode indicator
         Label modeLabel = (Label) root.lookup("#modeLabel");
         if (modeLabel != null) {
@@ -226,6 +244,28 @@ public class HUDView {
         );
     }
 
+    /**
+     * Shows the result of a background run of the current wiring. Must be
+     * called on the FX thread.
+     */
+    public void showPrediction(OutcomePredictor.Prediction prediction) {
+        if (prediction == null) {
+            clearPrediction();
+            return;
+        }
+        predictionLabel.setText(String.format("Predicted: %s  loss %.1f%%  safe %d  lost %d  coins %d",
+                prediction.isPassed() ? "PASS" : "FAIL", prediction.getPacketLossPercentage(),
+                prediction.getDeliveredPackets(), prediction.getLostPackets(), prediction.getCoins()));
+        predictionLabel.setTextFill(prediction.isPassed() ? Color.LIGHTGREEN : Color.SALMON);
+        predictionLabel.setVisible(true);
+        predictionLabel.setManaged(true);
+    }
+
+    public void clearPrediction() {
+        predictionLabel.setVisible(false);
+        predictionLabel.setManaged(false);
+    }
+
     // Timer methods removed - no auto-hide timer
 
     public VBox getRoot() {
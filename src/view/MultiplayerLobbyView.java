@@ -586,24 +586,16 @@ public class MultiplayerLobbyView {
     private void handleTimerUpdate(Object timerData) {
 
         // Check if this is a timer update with remaining time
-        if (timerData instanceof java.util.Map) {
-            @SuppressWarnings("unchecked")
-            java.util.Map<String, Object> timerMap = (java.util.Map<String, Object>) timerData;
+        if (timerData instanceof multiplayer.MultiplayerGameState) {
+            long remainingMs = ((multiplayer.MultiplayerGameState) timerData).getRemainingSetupTime();
+            long remainingSeconds = remainingMs / 1000;
 
-            if (timerMap.containsKey("remainingSetupTime")) {
-                Object remainingTime = timerMap.get("remainingSetupTime");
-                if (remainingTime instanceof Number) {
-                    long remainingMs = ((Number) remainingTime).longValue();
-                    long remainingSeconds = remainingMs / 1000;
 
+            // Update UI with remaining time if needed
+            // For now, just log it - you can add UI updates here later
+            if (remainingSeconds > 0) {
+            } else {
 
-                    // Update UI with remaining time if needed
-                    // For now, just log it - you can add UI updates here later
-                    if (remainingSeconds > 0) {
-                    } else {
-
-                    }
-                }
             }
         }
     }